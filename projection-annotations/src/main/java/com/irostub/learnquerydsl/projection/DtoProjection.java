@@ -0,0 +1,14 @@
+package com.irostub.learnquerydsl.projection;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+//@QueryProjection 과 같이 생성자에 붙이면 같은 패키지에 {클래스명}Projection 이 생성된다
+//생성된 클래스는 리플렉션 없이 생성자를 직접 호출한다
+//SOURCE retention 이므로 dto 는 컴파일 이후 이 어노테이션에도, querydsl 에도 의존하지 않는다
+@Target(ElementType.CONSTRUCTOR)
+@Retention(RetentionPolicy.SOURCE)
+public @interface DtoProjection {
+}
@@ -0,0 +1,197 @@
+package com.irostub.learnquerydsl.projection;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+//@DtoProjection 이 붙은 생성자마다 FactoryExpressionBase 를 상속한 {클래스명}Projection 소스를 생성한다
+//newInstance 는 values 를 캐스팅해 생성자를 직접 호출하므로 행 당 비용이 손으로 작성한 코드와 같다
+//primitive 파라미터에 null(left join 의 member.age 등)이 오면 ConstructorExpression 처럼 기본값(0, false)을 넘긴다
+@SupportedAnnotationTypes("com.irostub.learnquerydsl.projection.DtoProjection")
+public class ProjectionProcessor extends AbstractProcessor {
+    private final Set<String> generated = new HashSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(DtoProjection.class)) {
+            ExecutableElement constructor = (ExecutableElement) element;
+            TypeElement dto = (TypeElement) constructor.getEnclosingElement();
+            if (validate(constructor, dto)) {
+                generate(constructor, dto);
+            }
+        }
+        return true;
+    }
+
+    private boolean validate(ExecutableElement constructor, TypeElement dto) {
+        if (constructor.getModifiers().contains(Modifier.PRIVATE)) {
+            return error(constructor, "@DtoProjection constructor must not be private");
+        }
+        if (!dto.getTypeParameters().isEmpty() || !constructor.getTypeParameters().isEmpty()) {
+            return error(constructor, "@DtoProjection is not supported on generic types or constructors");
+        }
+        if (dto.getNestingKind().isNested() && !dto.getModifiers().contains(Modifier.STATIC)) {
+            return error(constructor, "@DtoProjection is not supported on inner (non-static) classes");
+        }
+        if (!generated.add(dto.getQualifiedName().toString())) {
+            return error(constructor, "only one @DtoProjection constructor is allowed per class");
+        }
+        return true;
+    }
+
+    private void generate(ExecutableElement constructor, TypeElement dto) {
+        String packageName = packageOf(dto).getQualifiedName().toString();
+        String simpleName = projectionName(dto);
+        String qualifiedName = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+        String dtoName = dto.getQualifiedName().toString();
+        List<? extends VariableElement> parameters = constructor.getParameters();
+
+        StringBuilder params = new StringBuilder();
+        StringBuilder args = new StringBuilder();
+        StringBuilder values = new StringBuilder();
+        boolean unchecked = false;
+        for (int i = 0; i < parameters.size(); i++) {
+            VariableElement parameter = parameters.get(i);
+            String type = boxed(parameter.asType());
+            String name = parameter.getSimpleName().toString();
+            if (i > 0) {
+                params.append(", ");
+                args.append(", ");
+                values.append(", ");
+            }
+            params.append("Expression<? extends ").append(type).append("> ").append(name);
+            args.append(name);
+            if (parameter.asType().getKind().isPrimitive()) {
+                values.append("values[").append(i).append("] != null ? ");
+            }
+            values.append("(").append(type).append(") values[").append(i).append("]");
+            if (parameter.asType().getKind().isPrimitive()) {
+                values.append(" : ").append(defaultValue(parameter.asType()));
+            }
+            unchecked |= type.indexOf('<') >= 0;
+        }
+
+        try (Writer writer = processingEnv.getFiler().createSourceFile(qualifiedName, constructor, dto).openWriter();
+             PrintWriter out = new PrintWriter(writer)) {
+            if (!packageName.isEmpty()) {
+                out.println("package " + packageName + ";");
+                out.println();
+            }
+            out.println("import com.querydsl.core.types.Expression;");
+            out.println("import com.querydsl.core.types.FactoryExpressionBase;");
+            out.println("import com.querydsl.core.types.Visitor;");
+            out.println();
+            out.println("import javax.annotation.processing.Generated;");
+            out.println("import java.util.Arrays;");
+            out.println("import java.util.Collections;");
+            out.println("import java.util.List;");
+            out.println();
+            out.println("@Generated(\"" + ProjectionProcessor.class.getName() + "\")");
+            out.println("public class " + simpleName + " extends FactoryExpressionBase<" + dtoName + "> {");
+            out.println("    private static final long serialVersionUID = 1L;");
+            out.println();
+            out.println("    private final List<Expression<?>> args;");
+            out.println();
+            out.println("    public " + simpleName + "(" + params + ") {");
+            out.println("        super(" + dtoName + ".class);");
+            out.println("        this.args = Collections.unmodifiableList(Arrays.<Expression<?>>asList(" + args + "));");
+            out.println("    }");
+            out.println();
+            out.println("    @Override");
+            out.println("    public List<Expression<?>> getArgs() {");
+            out.println("        return args;");
+            out.println("    }");
+            out.println();
+            if (unchecked) {
+                out.println("    @SuppressWarnings(\"unchecked\")");
+            }
+            out.println("    @Override");
+            out.println("    public " + dtoName + " newInstance(Object... values) {");
+            out.println("        return new " + dtoName + "(" + values + ");");
+            out.println("    }");
+            out.println();
+            out.println("    @Override");
+            out.println("    public <R, C> R accept(Visitor<R, C> v, C context) {");
+            out.println("        return v.visit(this, context);");
+            out.println("    }");
+            out.println("}");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    //중첩 클래스는 Outer_InnerProjection 으로 생성한다
+    private static String projectionName(TypeElement dto) {
+        StringBuilder name = new StringBuilder(dto.getSimpleName());
+        Element enclosing = dto.getEnclosingElement();
+        while (enclosing.getKind() != ElementKind.PACKAGE) {
+            name.insert(0, enclosing.getSimpleName() + "_");
+            enclosing = enclosing.getEnclosingElement();
+        }
+        return name.append("Projection").toString();
+    }
+
+    private static PackageElement packageOf(Element element) {
+        Element current = element;
+        while (current.getKind() != ElementKind.PACKAGE) {
+            current = current.getEnclosingElement();
+        }
+        return (PackageElement) current;
+    }
+
+    private String boxed(TypeMirror type) {
+        if (type.getKind().isPrimitive()) {
+            return processingEnv.getTypeUtils().boxedClass((PrimitiveType) type).getQualifiedName().toString();
+        }
+        return type.toString();
+    }
+
+    private static String defaultValue(TypeMirror type) {
+        switch (type.getKind()) {
+            case BOOLEAN:
+                return "false";
+            case CHAR:
+                return "'\\0'";
+            case BYTE:
+                return "(byte) 0";
+            case SHORT:
+                return "(short) 0";
+            case LONG:
+                return "0L";
+            case FLOAT:
+                return "0F";
+            case DOUBLE:
+                return "0D";
+            default:
+                return "0";
+        }
+    }
+
+    private boolean error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+        return false;
+    }
+}
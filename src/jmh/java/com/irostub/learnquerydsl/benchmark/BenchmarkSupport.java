@@ -0,0 +1,54 @@
+package com.irostub.learnquerydsl.benchmark;
+
+import com.irostub.learnquerydsl.LearnQuerydslApplication;
+import com.irostub.learnquerydsl.dto.MemberDto;
+import com.irostub.learnquerydsl.service.MemberBulkLoader;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+//벤치마크 공용 H2 in-memory 컨텍스트 기동 및 데이터 적재
+public final class BenchmarkSupport {
+    public static final int MEMBERS_PER_TEAM = 100;
+
+    private BenchmarkSupport() {
+    }
+
+    //application.yml 보다 우선하도록 커맨드라인 인자로 넘긴다
+    public static ConfigurableApplicationContext start(String databaseName, String... extraArgs) {
+        return startWithUrl("jdbc:h2:mem:" + databaseName + ";DB_CLOSE_DELAY=-1", extraArgs);
+    }
+
+    //같은 키를 extraArgs 로 다시 넘기면 값이 합쳐지므로 url 은 따로 받는다
+    public static ConfigurableApplicationContext startWithUrl(String url, String... extraArgs) {
+        List<String> args = new ArrayList<>(Arrays.asList(
+                "--spring.datasource.url=" + url,
+                "--spring.jpa.properties.hibernate.format_sql=false",
+                "--spring.jpa.properties.hibernate.use_sql_comments=false",
+                "--decorator.datasource.enabled=false",
+                "--logging.level.org.hibernate.SQL=warn",
+                "--logging.level.root=warn"));
+        args.addAll(Arrays.asList(extraArgs));
+
+        return new SpringApplicationBuilder(LearnQuerydslApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args.toArray(new String[0]));
+    }
+
+    //teamA, teamB ... 처럼 팀 당 MEMBERS_PER_TEAM 명씩 적재
+    public static void seed(ConfigurableApplicationContext context, int members) {
+        Map<String, List<MemberDto>> membersByTeam = new LinkedHashMap<>();
+        for (int i = 0; i < members; i++) {
+            String teamName = "team" + (i / MEMBERS_PER_TEAM);
+            membersByTeam.computeIfAbsent(teamName, name -> new ArrayList<>())
+                    .add(new MemberDto("member" + i, i % 100));
+        }
+        context.getBean(MemberBulkLoader.class).load(membersByTeam);
+    }
+}
@@ -0,0 +1,128 @@
+package com.irostub.learnquerydsl.benchmark;
+
+import com.irostub.learnquerydsl.dto.MemberDto;
+import com.irostub.learnquerydsl.entity.Member;
+import com.irostub.learnquerydsl.entity.Team;
+import com.irostub.learnquerydsl.service.MemberBulkLoader;
+import org.h2.tools.Server;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+//MemberTest.init 과 같은 em.persist 루프(persistLoop)와 MemberBulkLoader(bulkLoader)의 적재 시간 비교
+//- settings=baseline: 회원마다 시퀀스를 호출하고(allocation size 1) jdbc batch 를 쓰지 않는, pooled id/batch 도입 전 설정
+//- settings=tuned: application.yml 그대로 (pooled allocation size 100, batch_size 100, order_inserts)
+//persistLoop 도 tuned 에서는 pooled id 와 batch 의 효과를 받으므로, 도입 전과의 비교는 baseline 의 persistLoop 를 기준으로 한다
+//in-memory url 은 statement 마다 드는 왕복 비용이 없어 시퀀스 호출과 batch 의 차이가 드러나지 않으므로 임베디드 h2 tcp 서버로 접속한다
+//한 번의 호출이 members 명을 적재하고, 호출마다 테이블을 비운다
+//ex) ./gradlew jmh -Pjmh.includes=MemberBulkLoadBenchmark
+//측정값 (ms/op, SingleShotTime, 1 fork, 1 vCPU, members=100000)
+//                 baseline         tuned
+//persistLoop      9165 ± 1993      4885 ± 2378
+//bulkLoader       8285 ± 1909      4167 ± 1681
+//대부분은 pooled id 와 batch 의 효과이고, chunk 마다 flush/clear 하는 bulkLoader 의 이득은 그보다 작다
+//목표(50k rows/s 이상)에 못 미친다: tuned bulkLoader 는 100000 / 4.167 s ≈ 24k rows/s 로 목표의 절반 이하이다
+//이 측정은 h2 tcp 서버가 같은 jvm, 같은 1 vCPU 에서 돌아 서버의 insert 처리와 hibernate 의 엔티티 persist/flush 가 cpu 를 나눠 쓴다
+//어느 쪽이 병목인지는 프로파일링으로 나누지 않았다 (오차도 ± 1681 ms 로 크다)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class MemberBulkLoadBenchmark {
+    private static final int TEAMS = 10;
+
+    @Param({"100000"})
+    int members;
+
+    @Param({"baseline", "tuned"})
+    String settings;
+
+    Server server;
+    ConfigurableApplicationContext context;
+    EntityManager em;
+    TransactionTemplate transactionTemplate;
+    JdbcTemplate jdbcTemplate;
+    MemberBulkLoader bulkLoader;
+    Map<String, List<MemberDto>> membersByTeam;
+
+    @Setup
+    public void setUp() throws SQLException {
+        server = Server.createTcpServer("-tcpPort", "0", "-ifNotExists").start();
+        String url = "jdbc:h2:tcp://localhost:" + server.getPort() + "/mem:bulk_load;DB_CLOSE_DELAY=-1";
+        context = "baseline".equals(settings)
+                ? BenchmarkSupport.startWithUrl(url,
+                        "--spring.jpa.properties.hibernate.id.pooled_allocation_size=1",
+                        "--spring.jpa.properties.hibernate.jdbc.batch_size=0",
+                        "--spring.jpa.properties.hibernate.order_inserts=false")
+                : BenchmarkSupport.startWithUrl(url);
+        em = context.getBean(EntityManager.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        bulkLoader = context.getBean(MemberBulkLoader.class);
+
+        membersByTeam = new LinkedHashMap<>();
+        for (int t = 0; t < TEAMS; t++) {
+            membersByTeam.put("team" + t, new ArrayList<>());
+        }
+        for (int i = 0; i < members; i++) {
+            membersByTeam.get("team" + (i % TEAMS)).add(new MemberDto("member" + i, i % 100));
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void truncate() {
+        jdbcTemplate.update("delete from member");
+        jdbcTemplate.update("delete from team");
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+        server.stop();
+    }
+
+    @Benchmark
+    public int persistLoop() {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Team> teams = new ArrayList<>();
+            for (int t = 0; t < TEAMS; t++) {
+                Team newTeam = Team.createTeam("team" + t);
+                em.persist(newTeam);
+                teams.add(newTeam);
+            }
+            for (int i = 0; i < members; i++) {
+                Member newMember = Member.createMember("member" + i, i % 100);
+                newMember.changeTeam(teams.get(i % TEAMS));
+                em.persist(newMember);
+            }
+        });
+        return members;
+    }
+
+    @Benchmark
+    public long bulkLoader() {
+        return bulkLoader.load(membersByTeam);
+    }
+}
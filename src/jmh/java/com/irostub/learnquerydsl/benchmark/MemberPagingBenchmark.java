@@ -0,0 +1,112 @@
+package com.irostub.learnquerydsl.benchmark;
+
+import com.irostub.learnquerydsl.entity.Member;
+import com.irostub.learnquerydsl.repository.MemberKeysetPager;
+import com.irostub.learnquerydsl.repository.MemberKeysetSort;
+import com.irostub.learnquerydsl.repository.support.KeysetCursor;
+import com.irostub.learnquerydsl.repository.support.KeysetPage;
+import com.querydsl.core.QueryResults;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static com.irostub.learnquerydsl.entity.QMember.member;
+
+//끝에서 두 번째 페이지를 offset 페이징(offset + fetchResults)과 keyset 페이징(MemberKeysetPager)으로 조회하는 비용 비교
+//keyset 은 직전 페이지 마지막 행을 cursor 로 받는다고 가정한다
+//두 쪽 모두 같은 JPAQueryFactory 빈을 쓴다
+//ex) ./gradlew jmh -Pjmh.includes=MemberPagingBenchmark
+//측정값 (ms/op, avgt, 1 fork, 1 vCPU, h2 in-memory)
+//아래 값은 @BenchmarkMode 를 고정하기 전에 기록했으므로 AverageTime 으로 다시 측정해 갱신해야 한다
+//                      100000          1000000
+//offsetFetchResults    22.6 ± 7.3      200.7 ± 22.7
+//keyset                0.17 ± 0.33     0.15 ± 0.30
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MemberPagingBenchmark {
+    private static final String PREFIX = "paging_";
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"100000", "1000000"})
+    int members;
+
+    ConfigurableApplicationContext context;
+    JPAQueryFactory query;
+    MemberKeysetPager pager;
+    long offset;
+    String cursor;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkSupport.start("paging_" + members);
+        query = context.getBean(JPAQueryFactory.class);
+        pager = context.getBean(MemberKeysetPager.class);
+
+        //엔티티 영속화 비용이 적재 시간에 섞이지 않도록 jdbc batch 로 직접 적재
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        int batchSize = 10_000;
+        for (int from = 0; from < members; from += batchSize) {
+            List<Object[]> rows = new ArrayList<>(batchSize);
+            for (int i = from; i < Math.min(from + batchSize, members); i++) {
+                rows.add(new Object[]{i + 1L, PREFIX + String.format("%08d", i), i % 100});
+            }
+            jdbcTemplate.batchUpdate("insert into member (id, username, age) values (?, ?, ?)", rows);
+        }
+
+        offset = members - PAGE_SIZE * 2L;
+        Member boundary = deepPageQuery()
+                .offset(offset - 1)
+                .limit(1)
+                .fetchOne();
+        cursor = new KeysetCursor(MemberKeysetSort.USERNAME_ASC.name(), false,
+                boundary.getId(), boundary.getUsername()).encode();
+
+        //두 방식이 같은 페이지를 읽는지 확인한다
+        List<Long> offsetIds = offsetFetchResults().getResults().stream().map(Member::getId).collect(Collectors.toList());
+        List<Long> keysetIds = keyset().getContent().stream().map(Member::getId).collect(Collectors.toList());
+        if (!offsetIds.equals(keysetIds)) {
+            throw new IllegalStateException("offset page " + offsetIds + " != keyset page " + keysetIds);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public QueryResults<Member> offsetFetchResults() {
+        return deepPageQuery()
+                .offset(offset)
+                .limit(PAGE_SIZE)
+                .fetchResults();
+    }
+
+    @Benchmark
+    public KeysetPage<Member> keyset() {
+        return pager.fetchPage(member.username.startsWith(PREFIX), MemberKeysetSort.USERNAME_ASC, cursor, PAGE_SIZE);
+    }
+
+    private JPAQuery<Member> deepPageQuery() {
+        return query
+                .selectFrom(member)
+                .where(member.username.startsWith(PREFIX))
+                .orderBy(member.username.asc(), member.id.asc());
+    }
+}
@@ -0,0 +1,356 @@
+package com.irostub.learnquerydsl.benchmark;
+
+import com.irostub.learnquerydsl.dto.MemberDto;
+import com.irostub.learnquerydsl.dto.MemberDtoProjection;
+import com.irostub.learnquerydsl.dto.QMemberDto;
+import com.irostub.learnquerydsl.entity.Member;
+import com.irostub.learnquerydsl.entity.QMember;
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.QueryResults;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Projections;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.CaseBuilder;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.StringExpression;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.irostub.learnquerydsl.entity.QMember.member;
+import static com.irostub.learnquerydsl.entity.QTeam.team;
+import static com.querydsl.jpa.JPAExpressions.select;
+
+//MemberTest 의 쿼리 모양 별 처리량/지연시간(sample 모드 백분위)/할당량(gc profiler) 측정
+//매 호출마다 영속성 컨텍스트를 비워 1차 캐시 효과가 섞이지 않도록 한다
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MemberQueryBenchmark {
+
+    @Param({"1000", "10000"})
+    int members;
+
+    ConfigurableApplicationContext context;
+    EntityManager em;
+    JPAQueryFactory query;
+    int lastTeam;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkSupport.start("member_query_" + members);
+        BenchmarkSupport.seed(context, members);
+        em = context.getBean(EntityManagerFactory.class).createEntityManager();
+        query = new JPAQueryFactory(em);
+        lastTeam = (members - 1) / BenchmarkSupport.MEMBERS_PER_TEAM;
+    }
+
+    @TearDown
+    public void tearDown() {
+        em.close();
+        context.close();
+    }
+
+    @Benchmark
+    public List<Member> findMemberByName() {
+        return clear(query
+                .selectFrom(member)
+                .where(member.username.eq("member1"))
+                .fetch());
+    }
+
+    @Benchmark
+    public List<Member> findMemberByNameAndAge() {
+        return clear(query
+                .selectFrom(member)
+                .where(member.username.eq("member1"), member.age.eq(1))
+                .fetch());
+    }
+
+    @Benchmark
+    public Member fetchFirst() {
+        return clear(query
+                .selectFrom(member)
+                .fetchFirst());
+    }
+
+    @Benchmark
+    public long fetchCount() {
+        return query
+                .selectFrom(member)
+                .fetchCount();
+    }
+
+    @Benchmark
+    public List<Member> sort() {
+        return clear(query
+                .selectFrom(member)
+                .orderBy(member.age.desc().nullsLast())
+                .fetch());
+    }
+
+    @Benchmark
+    public List<Member> paging() {
+        return clear(query
+                .selectFrom(member)
+                .orderBy(member.age.asc())
+                .offset(members / 2)
+                .limit(20)
+                .fetch());
+    }
+
+    @Benchmark
+    public QueryResults<Member> pagingAndCount() {
+        return clear(query
+                .selectFrom(member)
+                .orderBy(member.username.asc())
+                .offset(members / 2)
+                .limit(20)
+                .fetchResults());
+    }
+
+    @Benchmark
+    public List<Tuple> aggregation() {
+        return query
+                .select(member.count(), member.age.sum(), member.age.avg(), member.age.max(), member.age.min())
+                .from(member)
+                .fetch();
+    }
+
+    @Benchmark
+    public List<Tuple> group() {
+        return query
+                .select(team.name, member.age.avg())
+                .from(member)
+                .join(member.team, team)
+                .groupBy(team.name)
+                .fetch();
+    }
+
+    @Benchmark
+    public List<Member> defaultJoin() {
+        return clear(query
+                .selectFrom(member)
+                .join(member.team, team)
+                .where(team.name.eq("team0"))
+                .fetch());
+    }
+
+    @Benchmark
+    public List<Member> thetaJoin() {
+        return clear(query
+                .select(member)
+                .from(member, team)
+                .where(member.username.eq(team.name))
+                .fetch());
+    }
+
+    @Benchmark
+    public List<Tuple> onJoin() {
+        return clear(query
+                .select(member, team)
+                .from(member)
+                .leftJoin(member.team, team)
+                .on(team.name.eq("team0"))
+                .fetch());
+    }
+
+    @Benchmark
+    public List<Member> fetchJoin() {
+        return clear(query
+                .selectFrom(member)
+                .join(member.team, team)
+                .fetchJoin()
+                .where(team.name.eq("team" + lastTeam))
+                .fetch());
+    }
+
+    @Benchmark
+    public List<Member> subQueryEq() {
+        QMember subMember = new QMember("subMember");
+        return clear(query
+                .selectFrom(member)
+                .where(member.id.in(
+                        select(subMember.id)
+                                .from(subMember)
+                                .where(subMember.age.eq(10))))
+                .fetch());
+    }
+
+    @Benchmark
+    public List<Member> subQueryLoe() {
+        QMember subMember = new QMember("subMember");
+        return clear(query
+                .selectFrom(member)
+                .where(member.age.loe(
+                        select(subMember.age.avg())
+                                .from(subMember)))
+                .fetch());
+    }
+
+    @Benchmark
+    public List<String> caseWhen() {
+        QMember subMember = new QMember("subMember");
+        return query
+                .select(new CaseBuilder()
+                        .when(member.age.goe(
+                                select(subMember.age.avg()).from(subMember)))
+                        .then("이상")
+                        .otherwise("미만"))
+                .from(member)
+                .fetch();
+    }
+
+    @Benchmark
+    public List<Integer> simpleCase() {
+        return query
+                .select(member.age
+                        .when(19).then(1)
+                        .otherwise(2))
+                .from(member)
+                .fetch();
+    }
+
+    @Benchmark
+    public List<Tuple> separateCase() {
+        StringExpression casePath = new CaseBuilder()
+                .when(member.age.goe(25))
+                .then("이상")
+                .otherwise("미만");
+        return query
+                .select(member.username, casePath)
+                .from(member)
+                .orderBy(casePath.asc())
+                .fetch();
+    }
+
+    @Benchmark
+    public List<String> concat() {
+        return query
+                .select(member.username.concat("_").concat(member.age.stringValue()))
+                .from(member)
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberDto> projectionBean() {
+        return query
+                .select(Projections.bean(MemberDto.class, member.username, member.age))
+                .from(member)
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberDto> projectionFields() {
+        return query
+                .select(Projections.fields(MemberDto.class, member.username, member.age))
+                .from(member)
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberDto> projectionConstructor() {
+        return query
+                .select(Projections.constructor(MemberDto.class, member.username, member.age))
+                .from(member)
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberDto> queryProjection() {
+        return query
+                .select(new QMemberDto(member.username, member.age))
+                .from(member)
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberDto> generatedProjection() {
+        return query
+                .select(new MemberDtoProjection(member.username, member.age))
+                .from(member)
+                .fetch();
+    }
+
+    @Benchmark
+    public List<Member> dynamicBooleanBuilder() {
+        BooleanBuilder builder = new BooleanBuilder();
+        builder.and(member.username.like("member1%"));
+        builder.and(member.age.goe(25));
+        return clear(query
+                .selectFrom(member)
+                .where(builder)
+                .fetch());
+    }
+
+    @Benchmark
+    public List<Member> dynamicWhereParams() {
+        return clear(query
+                .selectFrom(member)
+                .where(usernameLike("member1%"), ageGreaterEqThan(25))
+                .fetch());
+    }
+
+    @Benchmark
+    public long updateBulk() {
+        em.getTransaction().begin();
+        try {
+            return query
+                    .update(member)
+                    .set(member.age, member.age.add(1))
+                    .where(member.age.lt(10))
+                    .execute();
+        } finally {
+            em.getTransaction().rollback();
+            em.clear();
+        }
+    }
+
+    @Benchmark
+    public long deleteBulk() {
+        em.getTransaction().begin();
+        try {
+            return query
+                    .delete(member)
+                    .where(member.age.lt(10))
+                    .execute();
+        } finally {
+            em.getTransaction().rollback();
+            em.clear();
+        }
+    }
+
+    @Benchmark
+    public String sqlFunction() {
+        return query
+                .select(Expressions.stringTemplate("function('upper',{0})", member.username))
+                .from(member)
+                .fetchFirst();
+    }
+
+    private BooleanExpression ageGreaterEqThan(Integer age) {
+        return age != null ? member.age.goe(age) : null;
+    }
+
+    private BooleanExpression usernameLike(String username) {
+        return username != null ? member.username.like(username) : null;
+    }
+
+    private <T> T clear(T result) {
+        em.clear();
+        return result;
+    }
+}
@@ -0,0 +1,381 @@
+package com.irostub.learnquerydsl.benchmark;
+
+import com.irostub.learnquerydsl.entity.QMember;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.h2.tools.Server;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BiFunction;
+
+import static com.irostub.learnquerydsl.entity.QMember.member;
+import static com.irostub.learnquerydsl.entity.QTeam.team;
+import static com.querydsl.jpa.JPAExpressions.select;
+
+//커넥션 풀 크기를 감이 아니라 측정으로 정하기 위한 부하 테스트
+//임베디드 h2 tcp 서버를 띄우고 pool size x concurrency x query mix 별 처리량과 지연시간 백분위를 csv 로 남긴다
+//- in-memory url 은 커넥션/네트워크 비용이 없어 풀 크기 차이가 드러나지 않으므로 운영과 같이 tcp 로 접속한다
+//- pool size 마다 컨텍스트를 새로 띄우고 데이터를 적재한 뒤, concurrency 와 mix 를 바꿔가며 warmup 후 duration 동안 측정한다
+//- 요청마다 read-only 트랜잭션으로 커넥션을 잡으므로 커넥션 대기 시간이 지연시간에 포함된다
+//ex) ./gradlew loadTest -Ploadtest.pool-sizes=4,8,16 -Ploadtest.concurrency=8,32,128
+public final class PoolSizingLoadTest {
+    //MemberTest 의 쿼리 모양, 상수는 매 호출마다 바꿔서 같은 행만 읽지 않도록 한다
+    private static final Map<String, BiFunction<JPAQueryFactory, Integer, Object>> SHAPES = new LinkedHashMap<>();
+
+    static {
+        SHAPES.put("byName", (query, members) -> query
+                .selectFrom(member)
+                .where(member.username.eq("member" + random(members)))
+                .fetch());
+        SHAPES.put("byNameAndAge", (query, members) -> {
+            int i = random(members);
+            return query
+                    .selectFrom(member)
+                    .where(member.username.eq("member" + i), member.age.eq(i % 100))
+                    .fetch();
+        });
+        SHAPES.put("paging", (query, members) -> query
+                .selectFrom(member)
+                .orderBy(member.age.asc(), member.id.asc())
+                .offset(random(Math.max(members - 20, 1)))
+                .limit(20)
+                .fetch());
+        SHAPES.put("aggregate", (query, members) -> query
+                .select(member.count(), member.age.sum(), member.age.avg(), member.age.max(), member.age.min())
+                .from(member)
+                .fetch());
+        SHAPES.put("groupByTeam", (query, members) -> query
+                .select(team.name, member.age.avg())
+                .from(member)
+                .join(member.team, team)
+                .groupBy(team.name)
+                .fetch());
+        SHAPES.put("joinTeam", (query, members) -> query
+                .selectFrom(member)
+                .join(member.team, team)
+                .where(team.name.eq(randomTeam(members)))
+                .fetch());
+        SHAPES.put("fetchJoin", (query, members) -> query
+                .selectFrom(member)
+                .join(member.team, team).fetchJoin()
+                .where(team.name.eq(randomTeam(members)))
+                .fetch());
+        SHAPES.put("subQuery", (query, members) -> {
+            QMember subMember = new QMember("subMember");
+            return query
+                    .selectFrom(member)
+                    .where(member.age.goe(select(subMember.age.avg()).from(subMember)))
+                    .limit(20)
+                    .fetch();
+        });
+    }
+
+    private PoolSizingLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Settings settings = Settings.fromSystemProperties();
+        Server server = Server.createTcpServer("-tcpPort", String.valueOf(settings.port), "-ifNotExists").start();
+        try (PrintWriter report = open(settings.report)) {
+            report.println(Result.HEADER);
+            System.out.println(Result.HEADER);
+            for (int poolSize : settings.poolSizes) {
+                sweep(settings, server.getPort(), poolSize, report);
+            }
+        } finally {
+            server.stop();
+        }
+        System.out.println("report: " + settings.report.toAbsolutePath());
+    }
+
+    private static void sweep(Settings settings, int port, int poolSize, PrintWriter report) throws Exception {
+        //ddl-auto: create 로 스키마를 다시 만들고 적재하므로 pool size 마다 같은 데이터로 시작한다
+        ConfigurableApplicationContext context = BenchmarkSupport.startWithUrl(
+                "jdbc:h2:tcp://localhost:" + port + "/mem:loadtest;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.hikari.maximum-pool-size=" + poolSize,
+                "--spring.datasource.hikari.minimum-idle=" + poolSize,
+                "--spring.datasource.hikari.connection-timeout=" + settings.connectionTimeout.toMillis(),
+                "--app.scheduling.enabled=false");
+        try {
+            BenchmarkSupport.seed(context, settings.members);
+            JPAQueryFactory query = context.getBean(JPAQueryFactory.class);
+            TransactionTemplate transaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+            transaction.setReadOnly(true);
+            HikariPoolMXBean pool = context.getBean(DataSource.class).unwrap(HikariDataSource.class).getHikariPoolMXBean();
+
+            for (Map.Entry<String, Mix> mix : settings.mixes.entrySet()) {
+                for (int concurrency : settings.concurrency) {
+                    Result result = run(settings, poolSize, concurrency, mix.getKey(), mix.getValue(), query, transaction, pool);
+                    report.println(result.toCsv());
+                    report.flush();
+                    System.out.println(result.toCsv());
+                }
+            }
+        } finally {
+            context.close();
+        }
+    }
+
+    private static Result run(Settings settings, int poolSize, int concurrency, String mixName, Mix mix,
+                              JPAQueryFactory query, TransactionTemplate transaction, HikariPoolMXBean pool) throws Exception {
+        Phase phase = new Phase();
+        List<Recorder> recorders = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            Recorder recorder = new Recorder();
+            recorders.add(recorder);
+            futures.add(executor.submit(() -> {
+                while (phase.running) {
+                    BiFunction<JPAQueryFactory, Integer, Object> shape = mix.next();
+                    long start = System.nanoTime();
+                    boolean failed = false;
+                    try {
+                        transaction.execute(status -> shape.apply(query, settings.members));
+                    } catch (RuntimeException e) {
+                        //커넥션 타임아웃 등은 실패로 세고 계속 부하를 건다
+                        failed = true;
+                    }
+                    if (phase.recording) {
+                        recorder.record(System.nanoTime() - start, failed);
+                    }
+                }
+            }));
+        }
+
+        try {
+            Thread.sleep(settings.warmup.toMillis());
+            phase.recording = true;
+            long start = System.nanoTime();
+            long deadline = start + settings.duration.toNanos();
+            long waitingSum = 0;
+            int waitingMax = 0;
+            int samples = 0;
+            while (System.nanoTime() < deadline) {
+                Thread.sleep(100);
+                int waiting = pool.getThreadsAwaitingConnection();
+                waitingSum += waiting;
+                waitingMax = Math.max(waitingMax, waiting);
+                samples++;
+            }
+            phase.recording = false;
+            long elapsed = System.nanoTime() - start;
+            phase.running = false;
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            return Result.of(poolSize, concurrency, mixName, recorders, elapsed,
+                    samples == 0 ? 0 : (double) waitingSum / samples, waitingMax);
+        } finally {
+            phase.running = false;
+            executor.shutdownNow();
+        }
+    }
+
+    private static int random(int bound) {
+        return ThreadLocalRandom.current().nextInt(bound);
+    }
+
+    private static String randomTeam(int members) {
+        return "team" + random((members - 1) / BenchmarkSupport.MEMBERS_PER_TEAM + 1);
+    }
+
+    private static PrintWriter open(Path report) throws IOException {
+        if (report.getParent() != null) {
+            Files.createDirectories(report.getParent());
+        }
+        return new PrintWriter(Files.newBufferedWriter(report));
+    }
+
+    private static final class Phase {
+        volatile boolean running = true;
+        volatile boolean recording;
+    }
+
+    //스레드마다 따로 기록하고 측정이 끝난 뒤 합친다
+    private static final class Recorder {
+        long[] latencies = new long[1 << 14];
+        int size;
+        long errors;
+
+        void record(long nanos, boolean failed) {
+            if (failed) {
+                errors++;
+                return;
+            }
+            if (size == latencies.length) {
+                latencies = Arrays.copyOf(latencies, size * 2);
+            }
+            latencies[size++] = nanos;
+        }
+    }
+
+    //name=shape:weight,... 의 가중치에 따라 쿼리 모양을 고른다
+    private static final class Mix {
+        private final List<BiFunction<JPAQueryFactory, Integer, Object>> shapes = new ArrayList<>();
+        private final int[] cumulative;
+
+        Mix(String spec) {
+            String[] entries = spec.split(",");
+            cumulative = new int[entries.length];
+            int total = 0;
+            for (int i = 0; i < entries.length; i++) {
+                String[] entry = entries[i].trim().split(":");
+                BiFunction<JPAQueryFactory, Integer, Object> shape = SHAPES.get(entry[0]);
+                if (shape == null) {
+                    throw new IllegalArgumentException("unknown query shape: " + entry[0] + ", available: " + SHAPES.keySet());
+                }
+                shapes.add(shape);
+                total += entry.length > 1 ? Integer.parseInt(entry[1]) : 1;
+                cumulative[i] = total;
+            }
+        }
+
+        BiFunction<JPAQueryFactory, Integer, Object> next() {
+            int pick = random(cumulative[cumulative.length - 1]);
+            for (int i = 0; i < cumulative.length; i++) {
+                if (pick < cumulative[i]) {
+                    return shapes.get(i);
+                }
+            }
+            return shapes.get(shapes.size() - 1);
+        }
+    }
+
+    private static final class Result {
+        static final String HEADER = "poolSize,concurrency,mix,ops,errors,throughput,p50Ms,p95Ms,p99Ms,maxMs,avgAwaiting,maxAwaiting";
+
+        private final int poolSize;
+        private final int concurrency;
+        private final String mix;
+        private final long ops;
+        private final long errors;
+        private final double throughput;
+        private final long[] percentiles;
+        private final long max;
+        private final double avgAwaiting;
+        private final int maxAwaiting;
+
+        private Result(int poolSize, int concurrency, String mix, long ops, long errors, double throughput,
+                       long[] percentiles, long max, double avgAwaiting, int maxAwaiting) {
+            this.poolSize = poolSize;
+            this.concurrency = concurrency;
+            this.mix = mix;
+            this.ops = ops;
+            this.errors = errors;
+            this.throughput = throughput;
+            this.percentiles = percentiles;
+            this.max = max;
+            this.avgAwaiting = avgAwaiting;
+            this.maxAwaiting = maxAwaiting;
+        }
+
+        static Result of(int poolSize, int concurrency, String mix, List<Recorder> recorders, long elapsedNanos,
+                         double avgAwaiting, int maxAwaiting) {
+            int size = 0;
+            long errors = 0;
+            for (Recorder recorder : recorders) {
+                size += recorder.size;
+                errors += recorder.errors;
+            }
+            long[] latencies = new long[size];
+            int offset = 0;
+            for (Recorder recorder : recorders) {
+                System.arraycopy(recorder.latencies, 0, latencies, offset, recorder.size);
+                offset += recorder.size;
+            }
+            Arrays.sort(latencies);
+
+            long[] percentiles = new long[]{rank(latencies, 0.50), rank(latencies, 0.95), rank(latencies, 0.99)};
+            long max = size == 0 ? 0 : latencies[size - 1];
+            double throughput = size / (elapsedNanos / 1_000_000_000.0);
+            return new Result(poolSize, concurrency, mix, size, errors, throughput, percentiles, max, avgAwaiting, maxAwaiting);
+        }
+
+        //nearest-rank
+        private static long rank(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile * sorted.length) - 1;
+            return sorted[Math.max(index, 0)];
+        }
+
+        String toCsv() {
+            return String.format(Locale.ROOT, "%d,%d,%s,%d,%d,%.1f,%.3f,%.3f,%.3f,%.3f,%.2f,%d",
+                    poolSize, concurrency, mix, ops, errors, throughput,
+                    millis(percentiles[0]), millis(percentiles[1]), millis(percentiles[2]), millis(max),
+                    avgAwaiting, maxAwaiting);
+        }
+
+        private static double millis(long nanos) {
+            return nanos / 1_000_000.0;
+        }
+    }
+
+    //gradle 의 -Ploadtest.* 가 system property 로 넘어온다
+    private static final class Settings {
+        int port;
+        int members;
+        int[] poolSizes;
+        int[] concurrency;
+        Map<String, Mix> mixes;
+        Duration warmup;
+        Duration duration;
+        Duration connectionTimeout;
+        Path report;
+
+        static Settings fromSystemProperties() {
+            Settings settings = new Settings();
+            settings.port = Integer.getInteger("loadtest.port", 9123);
+            settings.members = Integer.getInteger("loadtest.members", 10000);
+            settings.poolSizes = ints(System.getProperty("loadtest.pool-sizes", "2,4,8,16,32"));
+            settings.concurrency = ints(System.getProperty("loadtest.concurrency", "1,4,16,64"));
+            settings.mixes = mixes(System.getProperty("loadtest.mixes",
+                    "lookup=byName:6,byNameAndAge:2,fetchJoin:2;"
+                            + "mixed=byName:4,paging:2,joinTeam:2,aggregate:1,groupByTeam:1,subQuery:1;"
+                            + "report=aggregate:1,groupByTeam:1,subQuery:1,paging:1"));
+            settings.warmup = Duration.parse(System.getProperty("loadtest.warmup", "PT3S"));
+            settings.duration = Duration.parse(System.getProperty("loadtest.duration", "PT10S"));
+            settings.connectionTimeout = Duration.parse(System.getProperty("loadtest.connection-timeout", "PT3S"));
+            settings.report = Paths.get(System.getProperty("loadtest.report", "build/reports/loadtest/pool-sizing.csv"));
+            return settings;
+        }
+
+        private static int[] ints(String value) {
+            return Arrays.stream(value.split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray();
+        }
+
+        private static Map<String, Mix> mixes(String value) {
+            Map<String, Mix> mixes = new LinkedHashMap<>();
+            for (String mix : value.split(";")) {
+                int separator = mix.indexOf('=');
+                if (separator < 0) {
+                    throw new IllegalArgumentException("mix must be name=shape:weight,...: " + mix);
+                }
+                mixes.put(mix.substring(0, separator).trim(), new Mix(mix.substring(separator + 1)));
+            }
+            return mixes;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.irostub.learnquerydsl.benchmark;
+
+import com.irostub.learnquerydsl.dto.MemberDto;
+import com.irostub.learnquerydsl.dto.MemberDtoProjection;
+import com.irostub.learnquerydsl.dto.QMemberDto;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Projections;
+import com.querydsl.core.types.dsl.Expressions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.irostub.learnquerydsl.entity.QMember.member;
+
+//db 를 거치지 않고 이미 읽힌 행(Object[])을 dto 로 바꾸는 FactoryExpression.newInstance 비용만 비교한다
+//생성된 {Dto}Projection 은 손으로 작성한 생성자 호출(handWritten)과 같은 수준이어야 한다
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ProjectionBenchmark {
+
+    @Param({"10000"})
+    int rows;
+
+    Object[][] narrowRows;
+    Object[][] wideRows;
+
+    FactoryExpression<MemberDto> narrowBean;
+    FactoryExpression<MemberDto> narrowFields;
+    FactoryExpression<MemberDto> narrowConstructor;
+    FactoryExpression<MemberDto> narrowQueryProjection;
+    FactoryExpression<MemberDto> narrowGenerated;
+
+    FactoryExpression<WideMemberRow> wideBean;
+    FactoryExpression<WideMemberRow> wideFields;
+    FactoryExpression<WideMemberRow> wideConstructor;
+    FactoryExpression<WideMemberRow> wideGenerated;
+
+    @Setup
+    public void setUp() {
+        narrowRows = new Object[rows][];
+        wideRows = new Object[rows][];
+        for (int i = 0; i < rows; i++) {
+            narrowRows[i] = new Object[]{"member" + i, i % 100};
+            wideRows[i] = new Object[]{(long) i, "member" + i, i % 100, (long) i / 100, "team" + i / 100,
+                    "member" + i + "@example.com", "010-0000-" + i, "seoul", "street" + i, "0" + i % 10000,
+                    i % 5, i * 10L};
+        }
+
+        narrowBean = Projections.bean(MemberDto.class, member.username, member.age);
+        narrowFields = Projections.fields(MemberDto.class, member.username, member.age);
+        narrowConstructor = Projections.constructor(MemberDto.class, member.username, member.age);
+        narrowQueryProjection = new QMemberDto(member.username, member.age);
+        narrowGenerated = new MemberDtoProjection(member.username, member.age);
+
+        Expression<?>[] wide = {
+                Expressions.numberPath(Long.class, "id"),
+                Expressions.stringPath("username"),
+                Expressions.numberPath(Integer.class, "age"),
+                Expressions.numberPath(Long.class, "teamId"),
+                Expressions.stringPath("teamName"),
+                Expressions.stringPath("email"),
+                Expressions.stringPath("phone"),
+                Expressions.stringPath("city"),
+                Expressions.stringPath("street"),
+                Expressions.stringPath("zipcode"),
+                Expressions.numberPath(Integer.class, "grade"),
+                Expressions.numberPath(Long.class, "point")
+        };
+        wideBean = Projections.bean(WideMemberRow.class, wide);
+        wideFields = Projections.fields(WideMemberRow.class, wide);
+        wideConstructor = Projections.constructor(WideMemberRow.class, wide);
+        wideGenerated = new WideMemberRowProjection(
+                Expressions.numberPath(Long.class, "id"),
+                Expressions.stringPath("username"),
+                Expressions.numberPath(Integer.class, "age"),
+                Expressions.numberPath(Long.class, "teamId"),
+                Expressions.stringPath("teamName"),
+                Expressions.stringPath("email"),
+                Expressions.stringPath("phone"),
+                Expressions.stringPath("city"),
+                Expressions.stringPath("street"),
+                Expressions.stringPath("zipcode"),
+                Expressions.numberPath(Integer.class, "grade"),
+                Expressions.numberPath(Long.class, "point"));
+    }
+
+    @Benchmark
+    public void narrowHandWritten(Blackhole bh) {
+        for (Object[] row : narrowRows) {
+            bh.consume(new MemberDto((String) row[0], (Integer) row[1]));
+        }
+    }
+
+    @Benchmark
+    public void narrowBean(Blackhole bh) {
+        project(narrowBean, narrowRows, bh);
+    }
+
+    @Benchmark
+    public void narrowFields(Blackhole bh) {
+        project(narrowFields, narrowRows, bh);
+    }
+
+    @Benchmark
+    public void narrowConstructor(Blackhole bh) {
+        project(narrowConstructor, narrowRows, bh);
+    }
+
+    @Benchmark
+    public void narrowQueryProjection(Blackhole bh) {
+        project(narrowQueryProjection, narrowRows, bh);
+    }
+
+    @Benchmark
+    public void narrowGenerated(Blackhole bh) {
+        project(narrowGenerated, narrowRows, bh);
+    }
+
+    @Benchmark
+    public void wideHandWritten(Blackhole bh) {
+        for (Object[] row : wideRows) {
+            bh.consume(new WideMemberRow((Long) row[0], (String) row[1], (Integer) row[2], (Long) row[3],
+                    (String) row[4], (String) row[5], (String) row[6], (String) row[7], (String) row[8],
+                    (String) row[9], (Integer) row[10], (Long) row[11]));
+        }
+    }
+
+    @Benchmark
+    public void wideBean(Blackhole bh) {
+        project(wideBean, wideRows, bh);
+    }
+
+    @Benchmark
+    public void wideFields(Blackhole bh) {
+        project(wideFields, wideRows, bh);
+    }
+
+    @Benchmark
+    public void wideConstructor(Blackhole bh) {
+        project(wideConstructor, wideRows, bh);
+    }
+
+    @Benchmark
+    public void wideGenerated(Blackhole bh) {
+        project(wideGenerated, wideRows, bh);
+    }
+
+    private static <T> void project(FactoryExpression<T> projection, Object[][] rows, Blackhole bh) {
+        for (Object[] row : rows) {
+            bh.consume(projection.newInstance(row));
+        }
+    }
+}
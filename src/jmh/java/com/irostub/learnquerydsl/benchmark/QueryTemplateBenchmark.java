@@ -0,0 +1,115 @@
+package com.irostub.learnquerydsl.benchmark;
+
+import com.irostub.learnquerydsl.dto.MemberDto;
+import com.irostub.learnquerydsl.dto.MemberDtoProjection;
+import com.irostub.learnquerydsl.repository.MemberQueryRepository;
+import com.irostub.learnquerydsl.repository.support.ReadOnlyQueryFactory;
+import com.irostub.learnquerydsl.support.metrics.QueryMetrics;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.dsl.CaseBuilder;
+import com.querydsl.core.types.dsl.StringExpression;
+import com.querydsl.jpa.impl.JPAQuery;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.irostub.learnquerydsl.entity.QMember.member;
+import static com.irostub.learnquerydsl.entity.QTeam.team;
+
+//요청마다 query factory, case 문, projection, 정렬 조건을 새로 만드는 경우(perRequest)와
+//싱글톤 factory 와 MemberQueryRepository 의 상수 expression 을 재사용하는 경우(shared)의 요청 당 할당량 비교
+//MemberQueryRepository 의 조회와 같도록 양쪽 모두 ReadOnlyQueryFactory 를 쓴다
+//build* 는 쿼리 조립까지만, fetch* 는 실제 조회까지 측정한다 (gc profiler 의 gc.alloc.rate.norm)
+//ex) ./gradlew jmh -Pjmh.includes=QueryTemplateBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class QueryTemplateBenchmark {
+    ConfigurableApplicationContext context;
+    EntityManager em;
+    QueryMetrics metrics;
+    ReadOnlyQueryFactory sharedQuery;
+    MemberQueryRepository repository;
+    TransactionTemplate readOnly;
+    OrderSpecifier<String> ageGroupAsc;
+    OrderSpecifier<String> usernameAsc;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkSupport.start("query_template");
+        BenchmarkSupport.seed(context, 1000);
+        em = context.getBean(EntityManager.class);
+        metrics = context.getBean(QueryMetrics.class);
+        sharedQuery = context.getBean(ReadOnlyQueryFactory.class);
+        repository = context.getBean(MemberQueryRepository.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+        ageGroupAsc = MemberQueryRepository.AGE_GROUP.asc();
+        usernameAsc = member.username.asc();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public JPAQuery<Tuple> buildAgeGroupsPerRequest() {
+        StringExpression ageGroup = new CaseBuilder()
+                .when(member.age.goe(25)).then("이상")
+                .otherwise("미만");
+        return new ReadOnlyQueryFactory(em, metrics)
+                .select(member.username, ageGroup)
+                .from(member)
+                .orderBy(ageGroup.asc(), member.username.asc());
+    }
+
+    @Benchmark
+    public JPAQuery<Tuple> buildAgeGroupsShared() {
+        return sharedQuery
+                .select(member.username, MemberQueryRepository.AGE_GROUP)
+                .from(member)
+                .orderBy(ageGroupAsc, usernameAsc);
+    }
+
+    @Benchmark
+    public List<MemberDto> fetchTeamMembersPerRequest() {
+        return readOnly.execute(status -> new ReadOnlyQueryFactory(em, metrics)
+                .select(new MemberDtoProjection(member.username, member.age))
+                .from(member)
+                .join(member.team, team)
+                .where(team.name.eq("team3"))
+                .orderBy(member.username.asc(), member.id.asc())
+                .fetch());
+    }
+
+    @Benchmark
+    public List<MemberDto> fetchTeamMembersShared() {
+        return readOnly.execute(status -> repository.findTeamMemberDtos("team3"));
+    }
+
+    @Benchmark
+    public List<Tuple> fetchAgeGroupsPerRequest() {
+        return readOnly.execute(status -> buildAgeGroupsPerRequest()
+                .where(member.username.startsWith("member1"))
+                .fetch());
+    }
+
+    @Benchmark
+    public List<Tuple> fetchAgeGroupsShared() {
+        return readOnly.execute(status -> repository.findAgeGroups(member.username.startsWith("member1")));
+    }
+}
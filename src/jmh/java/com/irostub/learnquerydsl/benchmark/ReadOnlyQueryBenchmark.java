@@ -0,0 +1,88 @@
+package com.irostub.learnquerydsl.benchmark;
+
+import com.irostub.learnquerydsl.dto.MemberDto;
+import com.irostub.learnquerydsl.dto.MemberDtoProjection;
+import com.irostub.learnquerydsl.entity.Member;
+import com.irostub.learnquerydsl.repository.support.ReadOnlyQueryFactory;
+import com.irostub.learnquerydsl.support.metrics.InstrumentedJPAQueryFactory;
+import com.irostub.learnquerydsl.support.metrics.QueryMetrics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static com.irostub.learnquerydsl.entity.QMember.member;
+
+//관리되는 엔티티 조회 vs read-only 엔티티 조회 vs dto 직접 변환의 지연시간/할당량 비교
+//트랜잭션 커밋까지 포함해 flush 시 dirty checking 비용이 드러나도록 한다
+//세 경우 모두 같은 QueryMetrics 기록을 거치도록 관리되는 엔티티 조회도 InstrumentedJPAQueryFactory 를 쓴다
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ReadOnlyQueryBenchmark {
+
+    @Param({"1000", "10000"})
+    int members;
+
+    ConfigurableApplicationContext context;
+    EntityManager em;
+    InstrumentedJPAQueryFactory query;
+    ReadOnlyQueryFactory readOnlyQuery;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkSupport.start("read_only_" + members);
+        BenchmarkSupport.seed(context, members);
+        em = context.getBean(EntityManagerFactory.class).createEntityManager();
+        QueryMetrics metrics = context.getBean(QueryMetrics.class);
+        query = new InstrumentedJPAQueryFactory(em, metrics);
+        readOnlyQuery = new ReadOnlyQueryFactory(em, metrics);
+    }
+
+    @TearDown
+    public void tearDown() {
+        em.close();
+        context.close();
+    }
+
+    @Benchmark
+    public List<Member> managedEntities() {
+        return inTransaction(() -> query.selectFrom(member).fetch());
+    }
+
+    @Benchmark
+    public List<Member> readOnlyEntities() {
+        return inTransaction(() -> readOnlyQuery.selectFrom(member).fetch());
+    }
+
+    @Benchmark
+    public List<MemberDto> dtoProjection() {
+        return inTransaction(() -> readOnlyQuery
+                .select(new MemberDtoProjection(member.username, member.age))
+                .from(member)
+                .fetch());
+    }
+
+    private <T> T inTransaction(Supplier<T> work) {
+        em.getTransaction().begin();
+        try {
+            T result = work.get();
+            em.getTransaction().commit();
+            return result;
+        } finally {
+            em.clear();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.irostub.learnquerydsl.benchmark;
+
+import com.irostub.learnquerydsl.repository.support.ReadOnlyQueryFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.irostub.learnquerydsl.entity.QMember.member;
+
+//기본 프로필(ddl-auto: create, 즉시 초기화) vs fast 프로필(flyway, lazy, 백그라운드 jpa bootstrap) 의 cold start 비교
+//fork 마다 새 jvm 에서 한 번만 기동하므로 jit/클래스 로딩 비용까지 포함된다
+//lazy 초기화는 기동 이후로 비용을 미룰 뿐이므로 첫 쿼리 응답까지의 시간(firstQuery)도 함께 본다
+//ex) ./gradlew jmh -Pjmh.includes=StartupBenchmark
+//측정 결과 (1 vCPU, jdk 17, h2 in-memory, fork 5, ms/op)
+//  ready       default 13160 ± 1152, fast 12588 ± 3532
+//  firstQuery  default 13013 ± 2969, fast 12822 ± 1974
+//코어가 하나면 백그라운드 EntityManagerFactory 생성이 기동 스레드와 겹치지 못해 차이가 오차 범위 안이다
+//코어가 여럿인 환경에서 다시 측정해야 fast 프로필의 기동 시간 효과를 말할 수 있다
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(5)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+public class StartupBenchmark {
+
+    @Param({"default", "fast"})
+    String profile;
+
+    ConfigurableApplicationContext context;
+
+    @TearDown(Level.Invocation)
+    public void tearDown() {
+        if (context != null) {
+            context.close();
+            context = null;
+        }
+    }
+
+    @Benchmark
+    public ConfigurableApplicationContext ready() {
+        context = start();
+        return context;
+    }
+
+    @Benchmark
+    public Long firstQuery() {
+        context = start();
+        return context.getBean(ReadOnlyQueryFactory.class)
+                .select(member.count())
+                .from(member)
+                .fetchOne();
+    }
+
+    private ConfigurableApplicationContext start() {
+        return BenchmarkSupport.start("startup_" + profile + "_" + System.nanoTime(), "--spring.profiles.active=" + profile);
+    }
+}
@@ -0,0 +1,108 @@
+package com.irostub.learnquerydsl.benchmark;
+
+import com.irostub.learnquerydsl.entity.QMember;
+import com.irostub.learnquerydsl.repository.support.SubQueryOptimizer;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.irostub.learnquerydsl.entity.QMember.member;
+import static com.irostub.learnquerydsl.entity.QTeam.team;
+import static com.querydsl.jpa.JPAExpressions.select;
+
+//서브쿼리 원본 vs SubQueryOptimizer 변환 쿼리
+//optimized 쪽은 매 호출마다 optimize(상수 서브쿼리 실행 포함)까지 측정한다
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SubQueryBenchmark {
+    private static final QMember subMember = new QMember("subMember");
+
+    @Param({"1000", "10000"})
+    int members;
+
+    ConfigurableApplicationContext context;
+    EntityManager em;
+    JPAQueryFactory query;
+    SubQueryOptimizer optimizer;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkSupport.start("sub_query_" + members);
+        BenchmarkSupport.seed(context, members);
+        em = context.getBean(EntityManagerFactory.class).createEntityManager();
+        query = new JPAQueryFactory(em);
+        optimizer = new SubQueryOptimizer(em);
+    }
+
+    @TearDown
+    public void tearDown() {
+        em.close();
+        context.close();
+    }
+
+    @Benchmark
+    public List<Long> scalarAvgSubQuery() {
+        return scalarAvg().fetch();
+    }
+
+    @Benchmark
+    public List<Long> scalarAvgOptimized() {
+        return optimizer.optimize(scalarAvg()).fetch();
+    }
+
+    @Benchmark
+    public List<Long> selfInSubQuery() {
+        return selfIn().fetch();
+    }
+
+    @Benchmark
+    public List<Long> selfInOptimized() {
+        return optimizer.optimize(selfIn()).fetch();
+    }
+
+    @Benchmark
+    public List<Long> teamInSubQuery() {
+        return teamIn().fetch();
+    }
+
+    @Benchmark
+    public List<Long> teamInOptimized() {
+        return optimizer.optimize(teamIn()).fetch();
+    }
+
+    private JPAQuery<Long> scalarAvg() {
+        return query
+                .select(member.id)
+                .from(member)
+                .where(member.age.goe(select(subMember.age.avg()).from(subMember)));
+    }
+
+    private JPAQuery<Long> selfIn() {
+        return query
+                .select(member.id)
+                .from(member)
+                .where(member.id.in(select(subMember.id).from(subMember).where(subMember.age.lt(10))));
+    }
+
+    private JPAQuery<Long> teamIn() {
+        return query
+                .select(member.id)
+                .from(member)
+                .where(member.team.id.in(select(team.id).from(team).where(team.name.startsWith("team1"))));
+    }
+}
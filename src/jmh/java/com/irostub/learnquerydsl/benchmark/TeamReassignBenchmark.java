@@ -0,0 +1,131 @@
+package com.irostub.learnquerydsl.benchmark;
+
+import com.irostub.learnquerydsl.dto.MemberDto;
+import com.irostub.learnquerydsl.entity.Member;
+import com.irostub.learnquerydsl.entity.Team;
+import com.irostub.learnquerydsl.service.MemberBulkLoader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.ReflectionUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+//회원 한 명을 큰 팀으로(into) 또는 큰 팀에서(outOf) 옮기는 비용
+//- changeTeam: 현재 구현, 초기화되지 않은 members 의 추가/제거를 Team 에 쌓아 둔다
+//- baselineChangeTeam: 이전 구현 그대로 member.team 을 바꾸고 team.getMembers().add(this) 만 한다
+//  mappedBy 컬렉션(PersistentBag)은 초기화되지 않았으면 add 를 스스로 큐에 쌓으므로 큰 팀으로 옮기는 비용은 같다
+//- baselineChangeTeamKeepingOldTeam: 이전 구현에 이전 팀 members 의 remove 를 더한 것
+//  PersistentBag.remove 는 큐에 쌓지 않고 컬렉션 전체를 읽으므로, Team 의 큐는 이 제거(와 세션 밖 팀의 add)를 위한 것이다
+//매 호출은 롤백하므로 데이터는 그대로 유지된다
+//측정값 (ms/op, avgt, 1 fork, 1 vCPU, teamSize=100000)
+//아래 값은 @BenchmarkMode 를 고정하기 전에 기록했으므로 AverageTime 으로 다시 측정해 갱신해야 한다
+//                                    into           outOf
+//changeTeam                          1.3 ± 1.4      0.9 ± 1.1
+//baselineChangeTeam                  2.3 ± 3.7      2.0 ± 4.4
+//baselineChangeTeamKeepingOldTeam    678 ± 220      761 ± 200
+//into 에서도 작은 이전 팀의 remove 가 느린 것은 default_batch_fetch_size 로 큰 팀의 members 까지 함께 초기화되기 때문이다
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TeamReassignBenchmark {
+    private static final Field MEMBER_TEAM = ReflectionUtils.findField(Member.class, "team");
+
+    @Param({"100000"})
+    int teamSize;
+
+    @Param({"into", "outOf"})
+    String move;
+
+    ConfigurableApplicationContext context;
+    EntityManager em;
+    Long bigTeamId;
+    Long smallTeamId;
+    Long movingMemberId;
+
+    @Setup
+    public void setUp() {
+        ReflectionUtils.makeAccessible(MEMBER_TEAM);
+        context = BenchmarkSupport.start("team_reassign_" + teamSize + "_" + move,
+                //collection 2차 캐시에서 읽지 않도록
+                "--spring.jpa.properties.hibernate.cache.use_second_level_cache=false");
+        List<MemberDto> bigTeam = new ArrayList<>(teamSize);
+        for (int i = 0; i < teamSize; i++) {
+            bigTeam.add(new MemberDto("bigTeamMember" + i, i % 100));
+        }
+        List<MemberDto> smallTeam = new ArrayList<>();
+        //outOf 는 큰 팀에 있는 회원을 작은 팀으로 옮긴다
+        ("into".equals(move) ? smallTeam : bigTeam).add(new MemberDto("movingMember", 20));
+        Map<String, List<MemberDto>> membersByTeam = new LinkedHashMap<>();
+        membersByTeam.put("bigTeam", bigTeam);
+        membersByTeam.put("smallTeam", smallTeam);
+        context.getBean(MemberBulkLoader.class).load(membersByTeam);
+
+        em = context.getBean(EntityManagerFactory.class).createEntityManager();
+        bigTeamId = em.createQuery("select t.id from Team t where t.name = 'bigTeam'", Long.class).getSingleResult();
+        smallTeamId = em.createQuery("select t.id from Team t where t.name = 'smallTeam'", Long.class).getSingleResult();
+        movingMemberId = em.createQuery("select m.id from Member m where m.username = 'movingMember'", Long.class).getSingleResult();
+    }
+
+    @TearDown
+    public void tearDown() {
+        em.close();
+        context.close();
+    }
+
+    @Benchmark
+    public Member changeTeam() {
+        return reassign(Member::changeTeam);
+    }
+
+    @Benchmark
+    public Member baselineChangeTeam() {
+        return reassign(TeamReassignBenchmark::previousChangeTeam);
+    }
+
+    @Benchmark
+    public Member baselineChangeTeamKeepingOldTeam() {
+        return reassign((moving, target) -> {
+            moving.getTeam().getMembers().remove(moving);
+            previousChangeTeam(moving, target);
+        });
+    }
+
+    //members 동기화를 Team 에 맡기기 전의 Member.changeTeam
+    private static void previousChangeTeam(Member moving, Team target) {
+        ReflectionUtils.setField(MEMBER_TEAM, moving, target);
+        target.getMembers().add(moving);
+    }
+
+    private Member reassign(Reassignment reassignment) {
+        em.getTransaction().begin();
+        try {
+            Member moving = em.find(Member.class, movingMemberId);
+            Team target = em.find(Team.class, "into".equals(move) ? bigTeamId : smallTeamId);
+            reassignment.apply(moving, target);
+            em.flush();
+            return moving;
+        } finally {
+            em.getTransaction().rollback();
+            em.clear();
+        }
+    }
+
+    private interface Reassignment {
+        void apply(Member moving, Team target);
+    }
+}
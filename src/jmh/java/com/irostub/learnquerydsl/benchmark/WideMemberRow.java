@@ -0,0 +1,40 @@
+package com.irostub.learnquerydsl.benchmark;
+
+import com.irostub.learnquerydsl.projection.DtoProjection;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+//컬럼 수가 많은 dto 에서 프로젝션 방식별 행 당 비용을 비교하기 위한 dto
+@Data
+@NoArgsConstructor
+public class WideMemberRow {
+    private Long id;
+    private String username;
+    private int age;
+    private Long teamId;
+    private String teamName;
+    private String email;
+    private String phone;
+    private String city;
+    private String street;
+    private String zipcode;
+    private int grade;
+    private long point;
+
+    @DtoProjection
+    public WideMemberRow(Long id, String username, int age, Long teamId, String teamName, String email,
+                         String phone, String city, String street, String zipcode, int grade, long point) {
+        this.id = id;
+        this.username = username;
+        this.age = age;
+        this.teamId = teamId;
+        this.teamName = teamName;
+        this.email = email;
+        this.phone = phone;
+        this.city = city;
+        this.street = street;
+        this.zipcode = zipcode;
+        this.grade = grade;
+        this.point = point;
+    }
+}
@@ -2,12 +2,20 @@ package com.irostub.learnquerydsl;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
 public class LearnQuerydslApplication {
+    //기동 단계 기록 개수, 넘으면 이후 단계는 버린다
+    private static final int STARTUP_STEPS = 4096;
 
     public static void main(String[] args) {
-        SpringApplication.run(LearnQuerydslApplication.class, args);
+        SpringApplication application = new SpringApplication(LearnQuerydslApplication.class);
+        //StartupTimingReport, /actuator/startup 에서 단계별 소요 시간을 조회
+        application.setApplicationStartup(new BufferingApplicationStartup(STARTUP_STEPS));
+        application.run(args);
     }
 
 }
@@ -0,0 +1,12 @@
+package com.irostub.learnquerydsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter @Setter
+@ConfigurationProperties(prefix = "app.bulk-load")
+public class BulkLoadProperties {
+    //N 건마다 flush/clear, hibernate.jdbc.batch_size 의 배수로 맞춘다
+    private int chunkSize = 1000;
+}
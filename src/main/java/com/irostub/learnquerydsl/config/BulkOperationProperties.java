@@ -0,0 +1,14 @@
+package com.irostub.learnquerydsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter @Setter
+@ConfigurationProperties(prefix = "app.bulk-operation")
+public class BulkOperationProperties {
+    //한 트랜잭션에서 처리할 id 범위의 크기, 락을 잡는 행 수의 상한이 된다
+    private int chunkSize = 1000;
+    //동시에 처리할 청크 수, 커넥션 풀 크기보다 작게 둔다
+    private int parallelism = 1;
+}
@@ -0,0 +1,14 @@
+package com.irostub.learnquerydsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter @Setter
+@ConfigurationProperties(prefix = "app.export")
+public class ExportProperties {
+    //jdbc 드라이버가 한 번에 가져오는 행 수
+    private int fetchSize = 500;
+    //엔티티 export 시 N 건마다 영속성 컨텍스트를 비운다
+    private int clearInterval = 1000;
+}
@@ -0,0 +1,17 @@
+package com.irostub.learnquerydsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter @Setter
+@ConfigurationProperties(prefix = "app.n-plus-one")
+public class NPlusOneProperties {
+    private Mode mode = Mode.LOG;
+    //한 요청에서 같은 select 가 이 횟수 이상 실행되면 N+1 로 판단
+    private int threshold = 5;
+
+    public enum Mode {
+        OFF, LOG, FAIL
+    }
+}
@@ -0,0 +1,33 @@
+package com.irostub.learnquerydsl.config;
+
+import com.irostub.learnquerydsl.repository.support.ReadOnlyQueryFactory;
+import com.irostub.learnquerydsl.repository.support.SubQueryOptimizer;
+import com.irostub.learnquerydsl.support.metrics.InstrumentedJPAQueryFactory;
+import com.irostub.learnquerydsl.support.metrics.QueryMetrics;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import javax.persistence.EntityManager;
+
+@Configuration
+public class QuerydslConfig {
+
+    //트랜잭션에 바인딩되는 공유 EntityManager 프록시를 사용하므로 싱글톤으로 공유해도 안전하다
+    @Bean
+    @Primary
+    public JPAQueryFactory jpaQueryFactory(EntityManager em, QueryMetrics queryMetrics) {
+        return new InstrumentedJPAQueryFactory(em, queryMetrics);
+    }
+
+    @Bean
+    public ReadOnlyQueryFactory readOnlyQueryFactory(EntityManager em, QueryMetrics queryMetrics) {
+        return new ReadOnlyQueryFactory(em, queryMetrics);
+    }
+
+    @Bean
+    public SubQueryOptimizer subQueryOptimizer(EntityManager em) {
+        return new SubQueryOptimizer(em);
+    }
+}
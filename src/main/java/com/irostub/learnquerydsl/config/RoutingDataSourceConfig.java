@@ -0,0 +1,88 @@
+package com.irostub.learnquerydsl.config;
+
+import com.irostub.learnquerydsl.support.routing.ReplicaRoutingDataSource;
+import com.irostub.learnquerydsl.support.routing.ReplicaSet;
+import com.irostub.learnquerydsl.support.routing.RoutingStickinessFilter;
+import com.irostub.learnquerydsl.support.routing.WriteStickiness;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+
+//app.routing.enabled=true 면 spring.datasource 를 primary 로, app.routing.replicas 를 replica 로 쓰는 DataSource 를 만든다
+//DataSource 빈이 있으므로 spring boot 의 DataSourceAutoConfiguration 은 풀을 만들지 않는다
+@Configuration
+@ConditionalOnProperty(prefix = "app.routing", name = "enabled", havingValue = "true")
+public class RoutingDataSourceConfig {
+
+    //replica 풀은 primary 의 hikari 설정을 복사하고 url, 계정, 풀 이름만 바꾼다
+    @Bean(destroyMethod = "close")
+    public ReplicaSet replicaSet(DataSourceProperties dataSourceProperties, RoutingProperties properties,
+                                 Environment environment) {
+        HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+
+        List<ReplicaSet.Replica> replicas = new ArrayList<>();
+        for (int i = 0; i < properties.getReplicas().size(); i++) {
+            RoutingProperties.Replica replica = properties.getReplicas().get(i);
+            HikariConfig config = new HikariConfig();
+            primary.copyStateTo(config);
+            config.setJdbcUrl(replica.getUrl());
+            config.setUsername(replica.getUsername());
+            config.setPassword(replica.getPassword());
+            config.setPoolName(primary.getPoolName() + "-replica-" + i);
+            replicas.add(new ReplicaSet.Replica("replica-" + i, new HikariDataSource(config), replica.getLagQuery()));
+        }
+        return new ReplicaSet(primary, replicas, properties.getMaxLag());
+    }
+
+    //replica 풀도 hikaricp.connections.* 에 연결한다, primary 풀은 spring boot 가 연결한다
+    //DataSource 를 만들면서 MeterRegistry 를 꺼내면 EntityManagerFactory 를 쓰는 MeterBinder 때문에 순환 참조가 되므로 풀을 만든 뒤에 연결한다
+    @Bean
+    public MeterBinder replicaPoolMetrics(ReplicaSet replicaSet) {
+        return registry -> {
+            for (ReplicaSet.Replica replica : replicaSet.getReplicas()) {
+                replica.getDataSource().setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+            }
+        };
+    }
+
+    @Bean
+    public WriteStickiness writeStickiness(RoutingProperties properties, ReplicaSet replicaSet) {
+        return new WriteStickiness(properties.getStickyWindow(), replicaSet);
+    }
+
+    //기본값을 지정해 두면 LazyConnectionDataSourceProxy 가 기동 시 커넥션을 열어 확인하지 않는다
+    //p6spy 로 감싸면 getConnection 에서 실제 커넥션을 열어 read-only 여부가 정해지기 전에 primary 로 가므로
+    //application.yml 의 decorator.datasource.exclude-beans 로 이 빈은 감싸지 않는다 (sql 로그는 org.hibernate.SQL 로 남는다)
+    @Bean
+    public DataSource routingDataSource(ReplicaSet replicaSet, WriteStickiness stickiness) {
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(replicaSet, stickiness);
+        routing.afterPropertiesSet();
+
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy();
+        dataSource.setTargetDataSource(routing);
+        dataSource.setDefaultAutoCommit(true);
+        dataSource.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        dataSource.afterPropertiesSet();
+        return dataSource;
+    }
+
+    @Bean
+    public RoutingStickinessFilter routingStickinessFilter(WriteStickiness stickiness) {
+        return new RoutingStickinessFilter(stickiness);
+    }
+}
@@ -0,0 +1,32 @@
+package com.irostub.learnquerydsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter @Setter
+@ConfigurationProperties(prefix = "app.routing")
+public class RoutingProperties {
+    //false 면 spring.datasource 하나만 사용한다
+    private boolean enabled = false;
+    //read-only 트랜잭션을 나눠 받을 replica, 커넥션 풀 설정은 spring.datasource.hikari 를 따른다
+    private List<Replica> replicas = new ArrayList<>();
+    //쓰기 트랜잭션 커밋 후 같은 사용자의 조회를 primary 로 보내는 최소 시간, 측정된 replica 지연이 더 길면 그 시간을 쓴다
+    private Duration stickyWindow = Duration.ofSeconds(1);
+    //복제 지연이 이보다 큰 replica 로는 보내지 않는다
+    private Duration maxLag = Duration.ofSeconds(5);
+
+    @Getter @Setter
+    public static class Replica {
+        private String url;
+        private String username;
+        private String password;
+        //복제 지연(초)을 돌려주는 쿼리, 없으면 연결 가능 여부만 확인하고 지연은 0 으로 본다
+        //ex) mysql: select timestampdiff(microsecond, max(ts), now(6)) / 1000000 from heartbeat
+        private String lagQuery;
+    }
+}
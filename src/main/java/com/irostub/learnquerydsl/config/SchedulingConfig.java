@@ -0,0 +1,12 @@
+package com.irostub.learnquerydsl.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+//TeamStatsService.reconcile 같은 주기 작업, app.scheduling.enabled=false 로 끌 수 있다
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(prefix = "app.scheduling", name = "enabled", matchIfMissing = true)
+public class SchedulingConfig {
+}
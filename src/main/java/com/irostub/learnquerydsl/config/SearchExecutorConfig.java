@@ -0,0 +1,52 @@
+package com.irostub.learnquerydsl.config;
+
+import com.irostub.learnquerydsl.support.async.BoundedQueryExecutor;
+import com.irostub.learnquerydsl.support.routing.WriteStickiness;
+import com.irostub.learnquerydsl.support.statement.StatementCounter;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.task.TaskDecorator;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+@Configuration
+public class SearchExecutorConfig {
+    //HikariConfig 의 기본 maximumPoolSize
+    private static final int DEFAULT_POOL_SIZE = 10;
+
+    //동시 실행 수를 커넥션 풀 크기에 맞춰 커넥션을 기다리며 잠든 작업이 생기지 않도록 한다
+    //sharding 을 켜면 shard 전용 executor 가 하나 더 생기므로 타입으로 주입받는 곳은 이 executor 를 받는다
+    @Primary
+    @Bean(destroyMethod = "shutdown")
+    public BoundedQueryExecutor searchQueryExecutor(SearchProperties properties, DataSource dataSource,
+                                                   TaskDecorator queryTaskDecorator) {
+        int maxConcurrency = properties.getMaxConcurrency() > 0 ? properties.getMaxConcurrency() : poolSize(dataSource);
+        return new BoundedQueryExecutor(maxConcurrency, Math.max(properties.getMaxPending(), maxConcurrency), queryTaskDecorator);
+    }
+
+    //요청 스레드의 ThreadLocal 상태(sql 집계 scope, 쓰기 후 primary 유지 시한)를 작업 스레드로 넘긴다
+    //TaskDecorator 빈이 하나뿐이면 spring boot 가 applicationTaskExecutor(@Async, mvc 비동기 응답)에도 적용한다
+    @Bean
+    public TaskDecorator queryTaskDecorator(ObjectProvider<WriteStickiness> stickiness) {
+        WriteStickiness writeStickiness = stickiness.getIfAvailable();
+        if (writeStickiness == null) {
+            return StatementCounter::propagate;
+        }
+        return task -> writeStickiness.propagate(StatementCounter.propagate(task));
+    }
+
+    //p6spy 등으로 감싸진 경우에도 실제 hikari 풀 크기를 찾는다
+    private static int poolSize(DataSource dataSource) {
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                return dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+            }
+        } catch (SQLException ignored) {
+        }
+        return DEFAULT_POOL_SIZE;
+    }
+}
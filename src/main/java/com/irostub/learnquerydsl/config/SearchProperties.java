@@ -0,0 +1,20 @@
+package com.irostub.learnquerydsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter @Setter
+@ConfigurationProperties(prefix = "app.search")
+public class SearchProperties {
+    //동시에 db 커넥션을 잡고 실행할 검색 쿼리 수, 0 이면 커넥션 풀 크기를 사용
+    private int maxConcurrency = 0;
+    //실행 대기 + 실행 중인 검색 요청 수 상한, 넘으면 바로 503 으로 거절
+    private int maxPending = 10000;
+    //요청 단위 timeout, 넘으면 504
+    private Duration timeout = Duration.ofSeconds(5);
+    //한 번에 반환하는 최대 결과 수
+    private int maxResults = 1000;
+}
@@ -0,0 +1,48 @@
+package com.irostub.learnquerydsl.config;
+
+import com.irostub.learnquerydsl.support.async.BoundedQueryExecutor;
+import com.irostub.learnquerydsl.support.shard.MemberShards;
+import com.irostub.learnquerydsl.support.shard.ShardedMemberQueries;
+import com.irostub.learnquerydsl.support.shard.ShardedMemberStore;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+
+//app.sharding.enabled=true 면 같은 db 안에 member shard 스키마를 만들고 shard 조회/쓰기 빈을 등록한다
+//기존 public 스키마의 Member 매핑과 리포지토리는 그대로 둔다
+@Configuration
+@ConditionalOnProperty(prefix = "app.sharding", name = "enabled", havingValue = "true")
+public class ShardingConfig {
+
+    @Bean
+    public MemberShards memberShards(ShardingProperties properties, DataSource dataSource) {
+        MemberShards shards = new MemberShards(properties.getShards(), properties.getSchemaPrefix());
+        shards.migrate(dataSource);
+        return shards;
+    }
+
+    //검색/대시보드 작업 안에서 fan-out 하면 같은 executor 의 permit 을 기다리며 서로 막힐 수 있으므로 shard 전용 executor 를 쓴다
+    @Bean(destroyMethod = "shutdown")
+    public BoundedQueryExecutor shardQueryExecutor(ShardingProperties properties, TaskDecorator queryTaskDecorator) {
+        int maxConcurrency = properties.getMaxConcurrency() > 0 ? properties.getMaxConcurrency() : properties.getShards();
+        return new BoundedQueryExecutor(maxConcurrency, Math.max(properties.getMaxPending(), maxConcurrency), queryTaskDecorator);
+    }
+
+    @Bean
+    public ShardedMemberQueries shardedMemberQueries(MemberShards shards, EntityManagerFactory emf,
+                                                     @Qualifier("shardQueryExecutor") BoundedQueryExecutor shardQueryExecutor,
+                                                     SearchProperties searchProperties) {
+        return new ShardedMemberQueries(shards, emf, shardQueryExecutor, searchProperties.getTimeout());
+    }
+
+    @Bean
+    public ShardedMemberStore shardedMemberStore(MemberShards shards, JdbcTemplate jdbcTemplate) {
+        return new ShardedMemberStore(shards, jdbcTemplate);
+    }
+}
@@ -0,0 +1,19 @@
+package com.irostub.learnquerydsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter @Setter
+@ConfigurationProperties(prefix = "app.sharding")
+public class ShardingProperties {
+    //true 면 member/team 을 team_id 기준으로 나눠 저장하는 shard 스키마를 만든다
+    private boolean enabled = false;
+    private int shards = 4;
+    //shard 스키마 이름은 schemaPrefix + 0 ... schemaPrefix + (shards - 1)
+    private String schemaPrefix = "member_shard_";
+    //shard fan-out 전용 executor 의 동시 실행 수, 0 이면 shard 수
+    private int maxConcurrency = 0;
+    //shard fan-out 대기 + 실행 중인 작업 수 상한
+    private int maxPending = 1000;
+}
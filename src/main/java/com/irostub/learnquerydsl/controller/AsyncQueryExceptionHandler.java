@@ -0,0 +1,27 @@
+package com.irostub.learnquerydsl.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+
+//BoundedQueryExecutor 에서 실행되는 async 응답(CompletableFuture)의 실패를 상태 코드로 변환한다
+@RestControllerAdvice
+public class AsyncQueryExceptionHandler {
+
+    //대기 중인 쿼리가 너무 많으면 큐에 쌓지 않고 바로 거절한다
+    @ExceptionHandler(RejectedExecutionException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public String rejected(RejectedExecutionException e) {
+        return e.getMessage();
+    }
+
+    @ExceptionHandler(TimeoutException.class)
+    @ResponseStatus(HttpStatus.GATEWAY_TIMEOUT)
+    public String timeout() {
+        return "query timed out";
+    }
+}
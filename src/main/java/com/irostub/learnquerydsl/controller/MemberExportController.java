@@ -0,0 +1,39 @@
+package com.irostub.learnquerydsl.controller;
+
+import com.irostub.learnquerydsl.service.ExportFormat;
+import com.irostub.learnquerydsl.service.MemberExportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+//응답 body 를 별도 스레드에서 바로 써 내려가므로 결과 크기와 관계없이 메모리 사용이 일정하다
+@RestController
+@RequestMapping("/members/export")
+@RequiredArgsConstructor
+public class MemberExportController {
+    private final MemberExportService exportService;
+
+    @GetMapping
+    public ResponseEntity<StreamingResponseBody> exportDtos(@RequestParam(defaultValue = "NDJSON") ExportFormat format) {
+        return stream(format, "members", out -> exportService.exportMemberDtos(null, format, out));
+    }
+
+    @GetMapping("/entities")
+    public ResponseEntity<StreamingResponseBody> exportEntities(@RequestParam(defaultValue = "NDJSON") ExportFormat format) {
+        return stream(format, "member-entities", out -> exportService.exportMembers(null, format, out));
+    }
+
+    private ResponseEntity<StreamingResponseBody> stream(ExportFormat format, String fileName, StreamingResponseBody body) {
+        String extension = format == ExportFormat.CSV ? "csv" : "ndjson";
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "." + extension + "\"")
+                .body(body);
+    }
+}
@@ -0,0 +1,28 @@
+package com.irostub.learnquerydsl.controller;
+
+import com.irostub.learnquerydsl.dto.MemberDto;
+import com.irostub.learnquerydsl.entity.MemberSearchCondition;
+import com.irostub.learnquerydsl.service.MemberSearchService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+//CompletableFuture 를 반환하면 spring mvc 가 async 로 처리하므로 검색이 끝날 때까지 요청 스레드를 잡지 않는다
+//ex) GET /members/search?username=member1%25&age=20&size=50
+@RestController
+@RequestMapping("/members/search")
+@RequiredArgsConstructor
+public class MemberSearchController {
+    private final MemberSearchService searchService;
+
+    @GetMapping
+    public CompletableFuture<List<MemberDto>> search(MemberSearchCondition condition,
+                                                     @RequestParam(defaultValue = "100") int size) {
+        return searchService.search(condition, size);
+    }
+}
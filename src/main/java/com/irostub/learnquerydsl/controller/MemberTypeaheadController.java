@@ -0,0 +1,36 @@
+package com.irostub.learnquerydsl.controller;
+
+import com.irostub.learnquerydsl.dto.MemberDto;
+import com.irostub.learnquerydsl.repository.MemberUsernameSearch;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+//ex) GET /members/typeahead?q=mem&size=10
+//    GET /members/typeahead/like?q=%25ber1%25
+//    GET /members/typeahead/fuzzy?q=membr1
+@RestController
+@RequestMapping("/members/typeahead")
+@RequiredArgsConstructor
+public class MemberTypeaheadController {
+    private final MemberUsernameSearch usernameSearch;
+
+    @GetMapping
+    public List<MemberDto> prefix(@RequestParam String q, @RequestParam(defaultValue = "10") int size) {
+        return usernameSearch.typeahead(q, size);
+    }
+
+    @GetMapping("/like")
+    public List<MemberDto> like(@RequestParam String q, @RequestParam(defaultValue = "10") int size) {
+        return usernameSearch.search(q, size);
+    }
+
+    @GetMapping("/fuzzy")
+    public List<MemberDto> fuzzy(@RequestParam String q, @RequestParam(defaultValue = "10") int size) {
+        return usernameSearch.fuzzy(q, size);
+    }
+}
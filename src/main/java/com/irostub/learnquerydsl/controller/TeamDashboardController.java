@@ -0,0 +1,43 @@
+package com.irostub.learnquerydsl.controller;
+
+import com.irostub.learnquerydsl.dto.TeamAnalytics;
+import com.irostub.learnquerydsl.dto.TeamDashboard;
+import com.irostub.learnquerydsl.dto.TeamStatsDto;
+import com.irostub.learnquerydsl.service.TeamAnalyticsService;
+import com.irostub.learnquerydsl.service.TeamDashboardService;
+import com.irostub.learnquerydsl.service.TeamStatsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+@RestController
+@RequestMapping("/teams/dashboard")
+@RequiredArgsConstructor
+public class TeamDashboardController {
+    private final TeamDashboardService dashboardService;
+    private final TeamAnalyticsService analyticsService;
+    private final TeamStatsService statsService;
+
+    @GetMapping
+    public CompletableFuture<TeamDashboard> dashboard(@RequestParam(defaultValue = "10") int size) {
+        return dashboardService.dashboard(size);
+    }
+
+    //ex) GET /teams/dashboard/analytics?percentiles=50,90,99&bucketWidth=10
+    @GetMapping("/analytics")
+    public TeamAnalytics analytics(@RequestParam(defaultValue = "50,90,99") double[] percentiles,
+                                   @RequestParam(defaultValue = "10") int bucketWidth) {
+        return analyticsService.analyze(percentiles, bucketWidth);
+    }
+
+    //미리 집계된 team_stats 를 팀 수만큼 읽는다
+    @GetMapping("/stats")
+    public List<TeamStatsDto> stats() {
+        return statsService.findAll();
+    }
+}
@@ -1,5 +1,6 @@
 package com.irostub.learnquerydsl.dto;
 
+import com.irostub.learnquerydsl.projection.DtoProjection;
 import com.querydsl.core.annotations.QueryProjection;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -12,6 +13,9 @@ public class MemberDto {
 
     //query projection 을 사용한 프로젝션을 가능하도록 QType 클래스를 생성하도록 하는 어노테이션
     @QueryProjection
+    //리플렉션 없이 생성자를 직접 호출하는 MemberDtoProjection 을 생성하도록 하는 어노테이션
+    //@QueryProjection 과 달리 SOURCE retention 이라 dto 가 런타임에 querydsl 에 의존하지 않는다
+    @DtoProjection
     public MemberDto(String username, int age) {
         this.username = username;
         this.age = age;
@@ -0,0 +1,21 @@
+package com.irostub.learnquerydsl.dto;
+
+import com.irostub.learnquerydsl.support.analytics.TeamAgeSummary;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+@Getter
+@AllArgsConstructor
+public class TeamAnalytics {
+    //통계를 계산한 (team_id, age) 스냅샷을 읽은 시각
+    private final Instant loadedAt;
+    private final int rows;
+    private final long columnBytes;
+    private final double[] percentiles;
+    private final Map<Long, String> teamNames;
+    private final List<TeamAgeSummary> teams;
+}
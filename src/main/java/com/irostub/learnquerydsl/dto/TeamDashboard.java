@@ -0,0 +1,14 @@
+package com.irostub.learnquerydsl.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class TeamDashboard {
+    private final long totalMembers;
+    private final List<TeamStatsDto> teams;
+    private final List<MemberDto> youngest;
+}
@@ -0,0 +1,22 @@
+package com.irostub.learnquerydsl.dto;
+
+import com.irostub.learnquerydsl.projection.DtoProjection;
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+public class TeamStatsDto {
+    private final Long teamId;
+    private final String teamName;
+    private final long memberCount;
+    private final double ageAvg;
+
+    @DtoProjection
+    public TeamStatsDto(Long teamId, String teamName, Long memberCount, Long ageSum) {
+        this.teamId = teamId;
+        this.teamName = teamName;
+        this.memberCount = memberCount;
+        this.ageAvg = memberCount == 0 ? 0 : (double) ageSum / memberCount;
+    }
+}
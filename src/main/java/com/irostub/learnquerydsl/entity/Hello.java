@@ -2,6 +2,9 @@ package com.irostub.learnquerydsl.entity;
 
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
@@ -10,6 +13,8 @@ import javax.persistence.Id;
 @Entity
 @Getter @Setter
 public class Hello {
-    @Id @GeneratedValue
+    @Id @GeneratedValue(generator = "hello_seq")
+    @GenericGenerator(name = "hello_seq", strategy = PooledSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "hello_seq"))
     private Long id;
 }
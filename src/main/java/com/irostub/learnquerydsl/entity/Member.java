@@ -1,20 +1,44 @@
 package com.irostub.learnquerydsl.entity;
 
+import com.irostub.learnquerydsl.support.search.UsernameIndexListener;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.ManyToOne;
+import javax.persistence.Table;
 
 @NoArgsConstructor(access = AccessLevel.PROTECTED) @AllArgsConstructor
 @Getter
 @Entity
+//username 변경을 trigram 색인(UsernameIndex)에 반영
+@EntityListeners(UsernameIndexListener.class)
+//쿼리 캐시 히트 시 id 로 엔티티를 다시 읽지 않도록 회원도 2차 캐시에 둔다
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "member")
+//username eq/like prefix 와 username keyset 정렬, age 범위/정렬, 팀 join 후 팀 별 age 집계를 인덱스로 처리한다
+//뒤에 id 를 붙여 (key, id) keyset 정렬도 인덱스 순서로 읽는다
+@Table(indexes = {
+        @Index(name = "idx_member_username_id", columnList = "username, id"),
+        @Index(name = "idx_member_age_id", columnList = "age, id"),
+        @Index(name = "idx_member_team_age", columnList = "team_id, age")
+})
 public class Member {
-    @Id @GeneratedValue
+    @Id @GeneratedValue(generator = "member_seq")
+    @GenericGenerator(name = "member_seq", strategy = PooledSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "member_seq"))
     private Long id;
     private String username;
     private int age;
@@ -31,9 +55,23 @@ public class Member {
         return member;
     }
 
+    //대량 적재용, 연관관계의 주인인 member.team 만 설정하고 team.members 컬렉션은 건드리지 않는다
+    public static Member createMember(String username, int age, Team team) {
+        Member member = createMember(username, age);
+        member.team = team;
+        return member;
+    }
+
+    //team.members 를 초기화하지 않는다, 프록시 팀은 팀 행만 읽고 변경은 Team 에 쌓아 둔다
+    //나중에 같은 영속성 컨텍스트에서 이전 팀의 members 를 읽어도 옮긴 회원이 남아 있지 않다
     public void changeTeam(Team team) {
+        if (this.team != null) {
+            this.team.removeMember(this);
+        }
         this.team = team;
-        team.getMembers().add(this);
+        if (team != null) {
+            team.addMember(this);
+        }
     }
 
     @Override
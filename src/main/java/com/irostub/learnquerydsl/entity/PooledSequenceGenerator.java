@@ -0,0 +1,30 @@
+package com.irostub.learnquerydsl.entity;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Properties;
+
+//pooled optimizer 를 사용하는 시퀀스 생성기
+//allocation size 를 어노테이션 상수가 아닌 설정(hibernate.id.pooled_allocation_size)으로 조절할 수 있다
+//시퀀스 한 번 호출로 allocation size 만큼의 id 를 메모리에서 할당한다
+public class PooledSequenceGenerator extends SequenceStyleGenerator {
+    public static final String STRATEGY = "com.irostub.learnquerydsl.entity.PooledSequenceGenerator";
+    public static final String ALLOCATION_SIZE_SETTING = "hibernate.id.pooled_allocation_size";
+    public static final int DEFAULT_ALLOCATION_SIZE = 50;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        Object allocationSize = serviceRegistry.getService(ConfigurationService.class)
+                .getSettings()
+                .get(ALLOCATION_SIZE_SETTING);
+
+        params.putIfAbsent(INCREMENT_PARAM, allocationSize != null ? allocationSize.toString() : String.valueOf(DEFAULT_ALLOCATION_SIZE));
+        params.putIfAbsent(OPT_PARAM, StandardOptimizerDescriptor.POOLED.getExternalName());
+        super.configure(type, params, serviceRegistry);
+    }
+}
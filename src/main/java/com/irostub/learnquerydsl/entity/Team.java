@@ -4,31 +4,98 @@ import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.OneToMany;
+import javax.persistence.Table;
+import javax.persistence.Transient;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 
 @NoArgsConstructor(access = AccessLevel.PROTECTED) @AllArgsConstructor
 @Getter
 @Entity
+//팀은 거의 바뀌지 않으므로 2차 캐시에 둔다
+//region 이름은 application.conf 의 caffeine.jcache 키, caffeine 이 '.' 을 경로로 읽으므로 '.' 없이 짓는다
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "team")
+@Table(indexes = @Index(name = "idx_team_name", columnList = "name"))
 public class Team {
-    @Id @GeneratedValue
+    @Id @GeneratedValue(generator = "team_seq")
+    @GenericGenerator(name = "team_seq", strategy = PooledSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "team_seq"))
     private Long id;
     private String name;
 
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "team-members")
     @OneToMany(mappedBy = "team")
     private List<Member> members = new ArrayList<>();
 
+    //members 가 초기화되지 않았을 때의 추가/제거, getMembers 로 처음 읽을 때 반영한다
+    //addMember/removeMember 를 거치지 않고 바꿀 수 없도록 getter 를 만들지 않는다
+    @Transient @Getter(AccessLevel.NONE)
+    private final List<Member> addedMembers = new ArrayList<>();
+    @Transient @Getter(AccessLevel.NONE)
+    private final List<Member> removedMembers = new ArrayList<>();
+
     public static Team createTeam(String teamName) {
         Team team = new Team();
         team.name = teamName;
         return team;
     }
 
+    //연관관계의 주인은 member.team 이므로 members 는 메모리 상의 일관성만 맞춘다
+    //초기화되지 않은 members 를 읽지 않도록 변경을 쌓아 두고, 팀 인원 수와 관계없이 O(1) 로 끝낸다
+    public void addMember(Member member) {
+        if (Hibernate.isInitialized(members)) {
+            members.add(member);
+            return;
+        }
+        removedMembers.remove(member);
+        addedMembers.add(member);
+    }
+
+    public void removeMember(Member member) {
+        if (Hibernate.isInitialized(members)) {
+            members.remove(member);
+            return;
+        }
+        addedMembers.remove(member);
+        removedMembers.add(member);
+    }
+
+    //쌓아 둔 변경은 db 에서 읽은 목록에 반영한다, 이미 flush 되어 db 목록에 포함된 회원은 다시 추가하지 않는다
+    public List<Member> getMembers() {
+        if (!addedMembers.isEmpty() || !removedMembers.isEmpty()) {
+            Set<Member> loaded = Collections.newSetFromMap(new IdentityHashMap<>());
+            loaded.addAll(members);
+            for (Member member : addedMembers) {
+                if (loaded.add(member)) {
+                    members.add(member);
+                }
+            }
+            Set<Member> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+            removed.addAll(removedMembers);
+            members.removeIf(removed::contains);
+            addedMembers.clear();
+            removedMembers.clear();
+        }
+        return members;
+    }
+
     @Override
     public String toString() {
         return "Team{" +
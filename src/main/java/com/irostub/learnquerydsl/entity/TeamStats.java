@@ -0,0 +1,48 @@
+package com.irostub.learnquerydsl.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+//팀 별 회원 수/나이 합계를 미리 집계해 둔 테이블
+//회원 insert/update/delete 시 TeamStatsMaintainer 가 같은 트랜잭션에서 증감분만 반영하고
+//TeamStatsService.reconcile 이 주기적으로 member 테이블과 비교해 어긋난 값을 바로잡는다
+//증감은 jdbc 로 직접 반영하므로 2차 캐시에 두지 않는다
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Getter
+@Entity
+public class TeamStats {
+    @Id
+    private Long teamId;
+    private long memberCount;
+    private long ageSum;
+
+    public static TeamStats createTeamStats(Long teamId, long memberCount, long ageSum) {
+        TeamStats stats = new TeamStats();
+        stats.teamId = teamId;
+        stats.memberCount = memberCount;
+        stats.ageSum = ageSum;
+        return stats;
+    }
+
+    public void reset(long memberCount, long ageSum) {
+        this.memberCount = memberCount;
+        this.ageSum = ageSum;
+    }
+
+    public double getAgeAvg() {
+        return memberCount == 0 ? 0 : (double) ageSum / memberCount;
+    }
+
+    @Override
+    public String toString() {
+        return "TeamStats{" +
+                "teamId=" + teamId +
+                ", memberCount=" + memberCount +
+                ", ageSum=" + ageSum +
+                '}';
+    }
+}
@@ -0,0 +1,94 @@
+package com.irostub.learnquerydsl.repository;
+
+import com.irostub.learnquerydsl.entity.Member;
+import com.irostub.learnquerydsl.repository.support.CountCache;
+import com.irostub.learnquerydsl.repository.support.KeysetCursor;
+import com.irostub.learnquerydsl.repository.support.KeysetPage;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static com.irostub.learnquerydsl.entity.QMember.member;
+
+//offset().limit().fetchResults() 대신 (정렬 key, id) 를 기준으로 다음 행부터 읽는 keyset 페이징
+//offset 만큼 버리는 스캔이 없으므로 페이지 깊이와 관계없이 비용이 일정하다
+//잘못된 cursor/size 는 호출자 오류이므로 @Repository 의 예외 변환 없이 IllegalArgumentException 그대로 던진다
+@Component
+public class MemberKeysetPager {
+    private final JPAQueryFactory query;
+    private final CountCache countCache;
+
+    public MemberKeysetPager(JPAQueryFactory query,
+                             @Value("${app.paging.count-cache-ttl:1m}") Duration countCacheTtl) {
+        this.query = query;
+        this.countCache = new CountCache(countCacheTtl);
+    }
+
+    public KeysetPage<Member> fetchPage(Predicate where, MemberKeysetSort sort, String cursor, int size) {
+        return fetchPage(where, sort, cursor, size, false);
+    }
+
+    //withCount 가 true 인 경우에만 count 쿼리를 실행하고, 같은 조건의 count 는 캐시된 값을 사용한다
+    public KeysetPage<Member> fetchPage(Predicate where, MemberKeysetSort sort, String cursor, int size, boolean withCount) {
+        if (size < 1) {
+            throw new IllegalArgumentException("page size must be positive: " + size);
+        }
+
+        KeysetCursor decoded = cursor != null ? KeysetCursor.decode(cursor) : null;
+        if (decoded != null && !sort.name().equals(decoded.getSort())) {
+            throw new IllegalArgumentException("cursor was issued for sort " + decoded.getSort() + ", not " + sort);
+        }
+        boolean backward = decoded != null && decoded.isBackward();
+
+        //한 건을 더 읽어 진행 방향에 페이지가 더 있는지 판단한다
+        List<Member> rows = query
+                .selectFrom(member)
+                .where(where, decoded != null ? sort.seek(decoded.getKey(), decoded.getId(), backward) : null)
+                .orderBy(sort.orderBy(backward))
+                .limit(size + 1L)
+                .fetch();
+
+        boolean hasMore = rows.size() > size;
+        List<Member> content = new ArrayList<>(hasMore ? rows.subList(0, size) : rows);
+        if (backward) {
+            Collections.reverse(content);
+        }
+
+        boolean hasNext = backward || hasMore;
+        boolean hasPrev = backward ? hasMore : decoded != null;
+
+        String nextCursor = null;
+        String prevCursor = null;
+        if (!content.isEmpty()) {
+            Member first = content.get(0);
+            Member last = content.get(content.size() - 1);
+            if (hasNext) {
+                nextCursor = new KeysetCursor(sort.name(), false, last.getId(), sort.keyOf(last)).encode();
+            }
+            if (hasPrev) {
+                prevCursor = new KeysetCursor(sort.name(), true, first.getId(), sort.keyOf(first)).encode();
+            }
+        }
+
+        Long total = withCount ? count(where) : null;
+        return new KeysetPage<>(content, nextCursor, prevCursor, total);
+    }
+
+    public void evictCountCache() {
+        countCache.evictAll();
+    }
+
+    private long count(Predicate where) {
+        return countCache.get(String.valueOf(where), () -> query
+                .select(member.count())
+                .from(member)
+                .where(where)
+                .fetchOne());
+    }
+}
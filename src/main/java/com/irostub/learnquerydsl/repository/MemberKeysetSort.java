@@ -0,0 +1,87 @@
+package com.irostub.learnquerydsl.repository;
+
+import com.irostub.learnquerydsl.entity.Member;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import static com.irostub.learnquerydsl.entity.QMember.member;
+
+//keyset 페이징에서 지원하는 정렬, 동률은 항상 member.id 로 끊는다
+//username 정렬은 username 이 null 이 아닌 회원을 전제로 한다
+@Getter
+@RequiredArgsConstructor
+public enum MemberKeysetSort {
+    USERNAME_ASC(SortKey.USERNAME, true),
+    USERNAME_DESC(SortKey.USERNAME, false),
+    AGE_ASC(SortKey.AGE, true),
+    AGE_DESC(SortKey.AGE, false);
+
+    private final SortKey sortKey;
+    private final boolean ascending;
+
+    //이전 페이지 조회는 정렬을 뒤집어 읽은 뒤 결과를 다시 뒤집는다
+    OrderSpecifier<?>[] orderBy(boolean backward) {
+        boolean asc = ascending != backward;
+        return new OrderSpecifier<?>[]{
+                sortKey.order(asc),
+                asc ? member.id.asc() : member.id.desc()
+        };
+    }
+
+    BooleanExpression seek(String key, Long id, boolean backward) {
+        return sortKey.seek(key, id, ascending != backward);
+    }
+
+    String keyOf(Member m) {
+        return sortKey.keyOf(m);
+    }
+
+    enum SortKey {
+        USERNAME {
+            @Override
+            OrderSpecifier<?> order(boolean asc) {
+                return asc ? member.username.asc() : member.username.desc();
+            }
+
+            //범위 조건을 앞에 두어 (username, id) 인덱스의 range scan 을 유도
+            @Override
+            BooleanExpression seek(String key, Long id, boolean asc) {
+                return asc
+                        ? member.username.goe(key).and(member.username.gt(key).or(member.id.gt(id)))
+                        : member.username.loe(key).and(member.username.lt(key).or(member.id.lt(id)));
+            }
+
+            @Override
+            String keyOf(Member m) {
+                return m.getUsername();
+            }
+        },
+        AGE {
+            @Override
+            OrderSpecifier<?> order(boolean asc) {
+                return asc ? member.age.asc() : member.age.desc();
+            }
+
+            @Override
+            BooleanExpression seek(String key, Long id, boolean asc) {
+                int age = Integer.parseInt(key);
+                return asc
+                        ? member.age.goe(age).and(member.age.gt(age).or(member.id.gt(id)))
+                        : member.age.loe(age).and(member.age.lt(age).or(member.id.lt(id)));
+            }
+
+            @Override
+            String keyOf(Member m) {
+                return String.valueOf(m.getAge());
+            }
+        };
+
+        abstract OrderSpecifier<?> order(boolean asc);
+
+        abstract BooleanExpression seek(String key, Long id, boolean asc);
+
+        abstract String keyOf(Member m);
+    }
+}
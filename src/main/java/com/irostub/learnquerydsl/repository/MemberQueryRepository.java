@@ -0,0 +1,120 @@
+package com.irostub.learnquerydsl.repository;
+
+import com.irostub.learnquerydsl.dto.MemberDto;
+import com.irostub.learnquerydsl.dto.MemberDtoProjection;
+import com.irostub.learnquerydsl.entity.Member;
+import com.irostub.learnquerydsl.entity.MemberSearchCondition;
+import com.irostub.learnquerydsl.repository.support.CountMode;
+import com.irostub.learnquerydsl.repository.support.LikePattern;
+import com.irostub.learnquerydsl.repository.support.QuerydslPager;
+import com.irostub.learnquerydsl.repository.support.ReadOnlyQueryFactory;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.CaseBuilder;
+import com.querydsl.core.types.dsl.StringExpression;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.annotations.QueryHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.StringUtils;
+
+import java.util.List;
+
+import static com.irostub.learnquerydsl.entity.QMember.member;
+import static com.irostub.learnquerydsl.entity.QTeam.team;
+
+//querydsl 의 expression(path, projection, case, order specifier)은 만든 뒤 바뀌지 않으므로
+//요청마다 새로 만들지 않고 상수로 만들어 두고 공유한다, 파라미터 값은 쿼리를 직렬화할 때 따로 바인딩된다
+//JPAQueryFactory 는 트랜잭션에 바인딩되는 공유 EntityManager 를 쓰는 싱글톤 빈(QuerydslConfig)이다
+@Repository
+public class MemberQueryRepository {
+    //tuple.get(AGE_GROUP) 으로 값을 꺼낼 수 있도록 공개한다
+    public static final StringExpression AGE_GROUP = new CaseBuilder()
+            .when(member.age.goe(25)).then("이상")
+            .otherwise("미만");
+
+    private static final MemberDtoProjection MEMBER_DTO = new MemberDtoProjection(member.username, member.age);
+    private static final OrderSpecifier<String> AGE_GROUP_ASC = AGE_GROUP.asc();
+    private static final OrderSpecifier<String> USERNAME_ASC = member.username.asc();
+    private static final OrderSpecifier<Long> ID_ASC = member.id.asc();
+
+    private final JPAQueryFactory query;
+    private final ReadOnlyQueryFactory readOnlyQuery;
+    private final QuerydslPager pager;
+
+    public MemberQueryRepository(JPAQueryFactory query, ReadOnlyQueryFactory readOnlyQuery, QuerydslPager pager) {
+        this.query = query;
+        this.readOnlyQuery = readOnlyQuery;
+        this.pager = pager;
+    }
+
+    //읽기 위주의 조회는 쿼리 캐시를 사용한다
+    //member 테이블에 대한 bulk update/delete 가 실행되면 hibernate 가 결과를 자동으로 무효화한다
+    public List<Member> findByUsername(String username) {
+        return query
+                .selectFrom(member)
+                .where(member.username.eq(username))
+                .setHint(QueryHints.CACHEABLE, true)
+                .fetch();
+    }
+
+    //조회 API 용, 엔티티가 필요없으면 findDtos 를 사용
+    public List<Member> findReadOnly(Predicate where) {
+        return readOnlyQuery
+                .selectFrom(member)
+                .where(where)
+                .fetch();
+    }
+
+    //영속성 컨텍스트를 거치지 않고 바로 MemberDto 로 변환
+    public List<MemberDto> findDtos(Predicate where) {
+        return readOnlyQuery
+                .select(MEMBER_DTO)
+                .from(member)
+                .where(where)
+                .fetch();
+    }
+
+    //팀 이름으로 팀 회원을 MemberDto 로 조회
+    public List<MemberDto> findTeamMemberDtos(String teamName) {
+        return readOnlyQuery
+                .select(MEMBER_DTO)
+                .from(member)
+                .join(member.team, team)
+                .where(team.name.eq(teamName))
+                .orderBy(USERNAME_ASC, ID_ASC)
+                .fetch();
+    }
+
+    //(username, AGE_GROUP) 을 나이 구분, 이름 순으로 조회
+    public List<Tuple> findAgeGroups(Predicate where) {
+        return readOnlyQuery
+                .select(member.username, AGE_GROUP)
+                .from(member)
+                .where(where)
+                .orderBy(AGE_GROUP_ASC, USERNAME_ASC)
+                .fetch();
+    }
+
+    //회원 목록 화면용, 팀은 fetch join 으로 함께 읽는다
+    //count 쿼리에서는 order by 와 팀 fetch join 이 빠진 select count(member) from Member member where ... 만 실행된다
+    public Page<Member> searchPage(MemberSearchCondition condition, Pageable pageable, CountMode countMode) {
+        return pager.fetchPage(query
+                .selectFrom(member)
+                .leftJoin(member.team, team).fetchJoin()
+                .where(usernameLike(condition.getUsername()), ageGoe(condition.getAge()))
+                .orderBy(USERNAME_ASC, ID_ASC), pageable, countMode);
+    }
+
+    //와일드카드가 없으면 eq, 있으면 like 그대로 ('member1%' 같은 접두어 like 도 인덱스를 탄다)
+    private BooleanExpression usernameLike(String username) {
+        return StringUtils.hasText(username) ? LikePattern.parse(username).toPredicate(member.username) : null;
+    }
+
+    private BooleanExpression ageGoe(Integer age) {
+        return age != null ? member.age.goe(age) : null;
+    }
+}
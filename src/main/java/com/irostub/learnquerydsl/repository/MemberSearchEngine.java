@@ -0,0 +1,160 @@
+package com.irostub.learnquerydsl.repository;
+
+import com.irostub.learnquerydsl.entity.Member;
+import com.irostub.learnquerydsl.entity.MemberSearchCondition;
+import com.irostub.learnquerydsl.support.metrics.QueryMetrics;
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.dsl.Param;
+import com.querydsl.jpa.HQLTemplates;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.StringUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static com.irostub.learnquerydsl.entity.QMember.member;
+
+//MemberSearchCondition 의 "모양"(어떤 필드가 채워져 있는지) 별로 파라미터화된 jpql 을 한 번만 만들어 두고
+//이후 호출은 파라미터 바인딩만 한다
+//jpql 은 querydsl 로 Param 을 넣은 쿼리를 만들어 한 번 직렬화한 것이므로 like 의 escape 등 다른 querydsl 쿼리와 같은 문법이 된다
+//같은 jpql 문자열이 반복되므로 hibernate 의 query plan cache 도 모양 당 한 번만 파싱한다
+//템플릿 hit/miss 는 이 엔진의 값으로 member_search.template{result=hit|miss} 카운터로 노출한다
+//ex) /actuator/metrics/member_search.template?tag=result:miss
+//stats() 의 planCache hit/miss 는 애플리케이션 전체 hibernate query plan cache 의 값이다 (generate_statistics 가 꺼져 있으면 0)
+@Repository
+public class MemberSearchEngine {
+    static final int USERNAME = 1;
+    static final int AGE = 1 << 1;
+
+    private final EntityManager em;
+    private final QueryMetrics queryMetrics;
+    private static final Param<String> USERNAME_PARAM = new Param<>(String.class, "username");
+    private static final Param<Integer> AGE_PARAM = new Param<>(Integer.class, "age");
+
+    private final ConcurrentMap<Integer, Template> templates = new ConcurrentHashMap<>();
+    private final Counter templateHits;
+    private final Counter templateMisses;
+
+    public MemberSearchEngine(EntityManager em, QueryMetrics queryMetrics, MeterRegistry meterRegistry) {
+        this.em = em;
+        this.queryMetrics = queryMetrics;
+        this.templateHits = templateCounter(meterRegistry, "hit");
+        this.templateMisses = templateCounter(meterRegistry, "miss");
+    }
+
+    private static Counter templateCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("member_search.template")
+                .description("MemberSearchEngine jpql template lookups")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    public List<Member> search(MemberSearchCondition condition) {
+        return search(condition, Integer.MAX_VALUE);
+    }
+
+    public List<Member> search(MemberSearchCondition condition, int maxResults) {
+        int shape = shapeOf(condition);
+        Template template = template(shape);
+        TypedQuery<Member> query = em.createQuery(template.jpql, Member.class);
+        //usernameLike / ageGreaterEqThan 과 같은 조건
+        Map<ParamExpression<?>, Object> params = new HashMap<>();
+        if ((shape & USERNAME) != 0) {
+            params.put(USERNAME_PARAM, condition.getUsername());
+        }
+        if ((shape & AGE) != 0) {
+            params.put(AGE_PARAM, condition.getAge());
+        }
+        JPAUtil.setConstants(query, template.constants, params);
+
+        if (maxResults < Integer.MAX_VALUE) {
+            query.setMaxResults(maxResults);
+        }
+
+        long start = System.nanoTime();
+        List<Member> result = query.getResultList();
+        queryMetrics.record(template.jpql, System.nanoTime() - start, result.size(), em);
+        return result;
+    }
+
+    public Stats stats() {
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        return new Stats((long) templateHits.count(), (long) templateMisses.count(),
+                statistics.getQueryPlanCacheHitCount(), statistics.getQueryPlanCacheMissCount(), templates.size());
+    }
+
+    static int shapeOf(MemberSearchCondition condition) {
+        int shape = 0;
+        if (StringUtils.hasText(condition.getUsername())) {
+            shape |= USERNAME;
+        }
+        if (condition.getAge() != null) {
+            shape |= AGE;
+        }
+        return shape;
+    }
+
+    //동시에 처음 들어온 모양은 여러 번 만들 수 있지만 맵에 넣은 한 번만 miss 로 센다
+    private Template template(int shape) {
+        Template template = templates.get(shape);
+        if (template == null) {
+            Template compiled = compile(shape);
+            template = templates.putIfAbsent(shape, compiled);
+            if (template == null) {
+                templateMisses.increment();
+                return compiled;
+            }
+        }
+        templateHits.increment();
+        return template;
+    }
+
+    //hibernate 를 쓰므로 JPAQueryFactory 가 고르는 것과 같은 HQLTemplates 로 직렬화한다
+    private static Template compile(int shape) {
+        BooleanBuilder where = new BooleanBuilder();
+        if ((shape & USERNAME) != 0) {
+            where.and(member.username.like(USERNAME_PARAM));
+        }
+        if ((shape & AGE) != 0) {
+            where.and(member.age.goe(AGE_PARAM));
+        }
+        JPAQuery<Member> query = new JPAQuery<Member>().select(member).from(member).where(where);
+
+        JPQLSerializer serializer = new JPQLSerializer(HQLTemplates.DEFAULT);
+        serializer.serialize(query.getMetadata(), false, null);
+        return new Template(serializer.toString(), Collections.unmodifiableMap(new HashMap<>(serializer.getConstantToLabel())));
+    }
+
+    //직렬화된 jpql 과 Param -> 파라미터 라벨
+    @AllArgsConstructor
+    private static class Template {
+        private final String jpql;
+        private final Map<Object, String> constants;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Stats {
+        private final long templateHits;
+        private final long templateMisses;
+        private final long planCacheHits;
+        private final long planCacheMisses;
+        private final int shapes;
+    }
+}
@@ -0,0 +1,117 @@
+package com.irostub.learnquerydsl.repository;
+
+import com.irostub.learnquerydsl.config.SearchProperties;
+import com.irostub.learnquerydsl.dto.MemberDto;
+import com.irostub.learnquerydsl.dto.MemberDtoProjection;
+import com.irostub.learnquerydsl.repository.support.LikePattern;
+import com.irostub.learnquerydsl.repository.support.ReadOnlyQueryFactory;
+import com.irostub.learnquerydsl.support.search.UsernameIndex;
+import com.querydsl.core.Tuple;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.irostub.learnquerydsl.entity.QMember.member;
+
+//회원 이름 typeahead / 검색
+//- 접두어 검색은 startsWith(like 'abc%' escape '!') 로 idx_member_username_id 인덱스를 탄다
+//- 한 번에 반환하는 수는 app.search.max-results 로 제한한다
+//- 중간 일치/유사어 검색은 UsernameIndex 에서 후보 id 를 받아 id in (...) 으로 읽고 원래 조건으로 다시 거른다
+@Repository
+public class MemberUsernameSearch {
+    //유사어 검색에서 결과로 인정하는 최소 trigram 유사도
+    static final double SIMILARITY_THRESHOLD = 0.3;
+
+    private final ReadOnlyQueryFactory query;
+    private final UsernameIndex index;
+    private final int maxCandidates;
+    private final SearchProperties properties;
+
+    public MemberUsernameSearch(ReadOnlyQueryFactory query, UsernameIndex index,
+                                @Value("${app.username-search.max-candidates:1000}") int maxCandidates,
+                                SearchProperties properties) {
+        this.query = query;
+        this.index = index;
+        this.maxCandidates = maxCandidates;
+        this.properties = properties;
+    }
+
+    //입력한 문자열로 시작하는 회원, 이름 순
+    //입력에 섞인 % _ 는 querydsl 이 escape 하므로 문자 그대로 비교한다
+    public List<MemberDto> typeahead(String prefix, int size) {
+        return query
+                .select(new MemberDtoProjection(member.username, member.age))
+                .from(member)
+                .where(member.username.startsWith(prefix))
+                .orderBy(member.username.asc(), member.id.asc())
+                .limit(maxResults(size))
+                .fetch();
+    }
+
+    //like 패턴 검색
+    //후보가 maxCandidates 를 넘으면 in 절이 너무 커지므로 like 로 직접 찾는다 (limit 까지만 읽으므로 흔한 조각일수록 빨리 끝난다)
+    //중간 일치는 색인에 있는 id 만 찾으므로 색인에 반영되지 않은 벌크 이름 변경은 결과에서 빠진다 (UsernameIndex 참고)
+    public List<MemberDto> search(String pattern, int size) {
+        int limit = maxResults(size);
+        LikePattern like = LikePattern.parse(pattern);
+        if (like.getKind() == LikePattern.Kind.INFIX) {
+            Set<Long> candidates = index.candidates(like.getFragments());
+            if (candidates != null && candidates.isEmpty()) {
+                return Collections.emptyList();
+            }
+            if (candidates != null && candidates.size() <= maxCandidates) {
+                return query
+                        .select(new MemberDtoProjection(member.username, member.age))
+                        .from(member)
+                        .where(member.id.in(candidates), like.toPredicate(member.username))
+                        .orderBy(member.username.asc(), member.id.asc())
+                        .limit(limit)
+                        .fetch();
+            }
+        }
+        return query
+                .select(new MemberDtoProjection(member.username, member.age))
+                .from(member)
+                .where(like.toPredicate(member.username))
+                .orderBy(member.username.asc(), member.id.asc())
+                .limit(limit)
+                .fetch();
+    }
+
+    //오타를 허용하는 검색, 유사도가 높은 순
+    public List<MemberDto> fuzzy(String term, int size) {
+        List<Long> ids = index.similar(term, SIMILARITY_THRESHOLD, maxResults(size));
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Map<Long, MemberDto> found = new HashMap<>();
+        for (Tuple row : query
+                .select(member.id, member.username, member.age)
+                .from(member)
+                .where(member.id.in(ids))
+                .fetch()) {
+            found.put(row.get(member.id), new MemberDto(row.get(member.username), row.get(member.age)));
+        }
+
+        //색인에만 남은(벌크 삭제된) id 는 건너뛴다
+        List<MemberDto> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            MemberDto dto = found.get(id);
+            if (dto != null) {
+                result.add(dto);
+            }
+        }
+        return result;
+    }
+
+    private int maxResults(int size) {
+        return Math.min(Math.max(size, 1), properties.getMaxResults());
+    }
+}
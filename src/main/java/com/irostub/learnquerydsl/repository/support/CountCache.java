@@ -0,0 +1,55 @@
+package com.irostub.learnquerydsl.repository.support;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongSupplier;
+
+//페이징 count 결과를 조건(key) 별로 ttl 동안 재사용하는 캐시
+//count 는 정확할 필요가 없는 목록 화면에서만 사용한다
+public class CountCache {
+    private static final int DEFAULT_MAX_ENTRIES = 1024;
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+    private final int maxEntries;
+
+    public CountCache(Duration ttl) {
+        this(ttl, DEFAULT_MAX_ENTRIES);
+    }
+
+    public CountCache(Duration ttl, int maxEntries) {
+        this.ttlNanos = ttl.toNanos();
+        this.maxEntries = maxEntries;
+    }
+
+    public long get(String key, LongSupplier loader) {
+        long now = System.nanoTime();
+        Entry entry = entries.get(key);
+        if (entry != null && now - entry.loadedAt < ttlNanos) {
+            return entry.count;
+        }
+
+        long count = loader.getAsLong();
+        //조건 조합이 폭발하는 경우 메모리가 무한히 늘어나지 않도록 통째로 비운다
+        if (entries.size() >= maxEntries) {
+            entries.clear();
+        }
+        entries.put(key, new Entry(count, now));
+        return count;
+    }
+
+    public void evictAll() {
+        entries.clear();
+    }
+
+    private static final class Entry {
+        private final long count;
+        private final long loadedAt;
+
+        private Entry(long count, long loadedAt) {
+            this.count = count;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.irostub.learnquerydsl.repository.support;
+
+//페이지 total 을 구하는 방법
+public enum CountMode {
+    //최적화한 count 쿼리를 매번 실행
+    EXACT,
+    //같은 조건의 count 는 ttl 동안 재사용
+    CACHED,
+    //조건이 없는 전체 count 는 db 통계(RowCountEstimator)를 사용하고, 조건이 있으면 CACHED 와 같다
+    //통계를 읽을 수 없는 db 에서는 EXACT 와 같다
+    APPROXIMATE
+}
@@ -0,0 +1,156 @@
+package com.irostub.learnquerydsl.repository.support;
+
+import com.querydsl.core.JoinExpression;
+import com.querydsl.core.JoinType;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import javax.persistence.EntityManager;
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.ManagedType;
+import javax.persistence.metamodel.SingularAttribute;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+//fetchResults()/fetchCount() 는 원본 쿼리의 join, fetch join 을 그대로 둔 채 count 쿼리를 만든다
+//여기서는 원본 쿼리의 from/join/where 만 복사해 최소한의 count 쿼리를 만든다
+//- order by, offset/limit, fetch join 플래그는 복사하지 않는다
+//- 행 수에 영향을 주지 않는 to-one join 은 where/다른 join 에서 참조하지 않으면 제거한다
+//  left join 은 항상 행 수를 유지하고, inner join 은 optional = false 인 연관관계이고 on 조건이 없을 때만 유지한다
+//  (Member.team 은 optional 이므로 join(member.team, team) 은 팀이 없는 회원을 걸러내 제거할 수 없다)
+//- to-many join 은 행 수를 바꾸므로 제거하지 않는다
+//group by/having 이 있는 쿼리는 그룹 수를 세야 하므로 최적화하지 않고 원본 쿼리의 fetchCount() 를 사용한다
+public class CountQueryOptimizer {
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+
+    public CountQueryOptimizer(EntityManager em, JPAQueryFactory queryFactory) {
+        this.em = em;
+        this.queryFactory = queryFactory;
+    }
+
+    public long count(JPAQuery<?> query) {
+        JPAQuery<Long> countQuery = toCountQuery(query);
+        if (countQuery == null) {
+            return query.fetchCount();
+        }
+        Long count = countQuery.fetchOne();
+        return count != null ? count : 0L;
+    }
+
+    //최적화할 수 없는 쿼리면 null
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public JPAQuery<Long> toCountQuery(JPAQuery<?> query) {
+        QueryMetadata metadata = query.getMetadata();
+        List<JoinExpression> joins = metadata.getJoins();
+        if (joins.isEmpty() || !metadata.getGroupBy().isEmpty() || metadata.getHaving() != null) {
+            return null;
+        }
+
+        Expression<Long> count;
+        if (metadata.isDistinct()) {
+            Expression<?> projection = metadata.getProjection();
+            if (!(projection instanceof Path)) {
+                return null;
+            }
+            count = Expressions.numberOperation(Long.class, Ops.AggOps.COUNT_DISTINCT_AGG, projection);
+        } else {
+            count = ExpressionUtils.count(joins.get(0).getTarget());
+        }
+
+        JPAQuery<Long> countQuery = queryFactory.select(count);
+        QueryMetadata countMetadata = countQuery.getMetadata();
+        for (JoinExpression join : requiredJoins(metadata)) {
+            countMetadata.addJoin(join.getType(), join.getTarget());
+            if (join.getCondition() != null) {
+                countMetadata.addJoinCondition(join.getCondition());
+            }
+        }
+        if (metadata.getWhere() != null) {
+            countMetadata.addWhere(metadata.getWhere());
+        }
+        for (Map.Entry<ParamExpression<?>, Object> param : metadata.getParams().entrySet()) {
+            countMetadata.setParam((ParamExpression) param.getKey(), param.getValue());
+        }
+        return countQuery;
+    }
+
+    //뒤의 join 부터 보면서 참조되지 않는 join 을 제거한다
+    //남는 join 의 대상/조건이 참조하는 alias 도 필요하므로 앞쪽 join 을 판단할 때 반영된다
+    private List<JoinExpression> requiredJoins(QueryMetadata metadata) {
+        List<JoinExpression> joins = metadata.getJoins();
+        Set<Path<?>> referenced = PathCollector.roots(metadata.getWhere());
+        if (metadata.isDistinct()) {
+            PathCollector.collect(metadata.getProjection(), referenced);
+        }
+
+        List<JoinExpression> required = new ArrayList<>();
+        for (int i = joins.size() - 1; i >= 0; i--) {
+            JoinExpression join = joins.get(i);
+            Path<?> alias = aliasOf(join);
+            if (i > 0 && alias != null && !referenced.contains(alias) && preservesRowCount(join)) {
+                continue;
+            }
+            required.add(0, join);
+            PathCollector.collect(join.getTarget(), referenced);
+            PathCollector.collect(join.getCondition(), referenced);
+        }
+        return required;
+    }
+
+    private boolean preservesRowCount(JoinExpression join) {
+        SingularAttribute<?, ?> attribute = toOneAttribute(join);
+        if (attribute == null) {
+            return false;
+        }
+        if (join.getType() == JoinType.LEFTJOIN) {
+            return true;
+        }
+        boolean inner = join.getType() == JoinType.JOIN || join.getType() == JoinType.INNERJOIN;
+        return inner && join.getCondition() == null && !attribute.isOptional();
+    }
+
+    //join(member.team, team) 의 대상은 alias(member.team, team) 연산이다
+    static Path<?> aliasOf(JoinExpression join) {
+        Expression<?> target = join.getTarget();
+        if (target instanceof Operation && ((Operation<?>) target).getOperator() == Ops.ALIAS) {
+            return (Path<?>) ((Operation<?>) target).getArg(1);
+        }
+        return target instanceof Path ? (Path<?>) target : null;
+    }
+
+    private SingularAttribute<?, ?> toOneAttribute(JoinExpression join) {
+        Expression<?> target = join.getTarget();
+        if (!(target instanceof Operation) || ((Operation<?>) target).getOperator() != Ops.ALIAS) {
+            return null;
+        }
+        Expression<?> association = ((Operation<?>) target).getArg(0);
+        if (!(association instanceof Path) || ((Path<?>) association).getMetadata().getParent() == null) {
+            return null;
+        }
+
+        Path<?> path = (Path<?>) association;
+        ManagedType<?> owner;
+        try {
+            owner = em.getMetamodel().managedType(path.getMetadata().getParent().getType());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        Attribute<?, ?> attribute = owner.getAttribute(path.getMetadata().getName());
+        Attribute.PersistentAttributeType type = attribute.getPersistentAttributeType();
+        if (type != Attribute.PersistentAttributeType.MANY_TO_ONE && type != Attribute.PersistentAttributeType.ONE_TO_ONE) {
+            return null;
+        }
+        return (SingularAttribute<?, ?>) attribute;
+    }
+}
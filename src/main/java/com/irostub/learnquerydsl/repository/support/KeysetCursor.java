@@ -0,0 +1,44 @@
+package com.irostub.learnquerydsl.repository.support;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+//(정렬, 방향, id, 정렬 key) 를 base64 로 감싼 불투명 cursor
+//key 에 구분자가 들어가도 되도록 key 를 마지막에 둔다
+@Getter
+@AllArgsConstructor
+public class KeysetCursor {
+    private static final String DELIMITER = "|";
+
+    private final String sort;
+    private final boolean backward;
+    private final Long id;
+    private final String key;
+
+    public String encode() {
+        String raw = sort + DELIMITER + (backward ? "P" : "N") + DELIMITER + id + DELIMITER + key;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static KeysetCursor decode(String cursor) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("invalid cursor: " + cursor, e);
+        }
+
+        String[] parts = raw.split("\\|", 4);
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("invalid cursor: " + cursor);
+        }
+        try {
+            return new KeysetCursor(parts[0], "P".equals(parts[1]), Long.valueOf(parts[2]), parts[3]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid cursor: " + cursor, e);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.irostub.learnquerydsl.repository.support;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+//keyset 페이징 결과, cursor 는 클라이언트에게 그대로 전달되는 불투명 문자열
+//total 은 count 를 요청하지 않은 경우 null
+@Getter
+@AllArgsConstructor
+public class KeysetPage<T> {
+    private final List<T> content;
+    private final String nextCursor;
+    private final String prevCursor;
+    private final Long total;
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    public boolean hasPrev() {
+        return prevCursor != null;
+    }
+}
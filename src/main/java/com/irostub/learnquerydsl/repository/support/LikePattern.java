@@ -0,0 +1,87 @@
+package com.irostub.learnquerydsl.repository.support;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.StringExpression;
+import com.querydsl.jpa.JPQLTemplates;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+//사용자가 입력한 like 패턴을 분류한다
+//- 와일드카드 없음 -> eq
+//- 끝에만 % -> like 그대로, h2 는 바인딩된 like ? 의 접두어로도 인덱스 범위를 정한다 (query-plans.properties 의 usernameLikePrefix)
+//- 그 외(중간 일치, _ 포함) -> like 그대로, 와일드카드 사이의 문자열 조각(fragments)은 trigram 후보 검색에 사용한다
+//!%, !_, !! 는 문자 그대로의 %, _, ! 이고, literal 과 fragments 에는 escape 를 푼 값을 담는다
+@Getter
+public class LikePattern {
+    public enum Kind {EXACT, PREFIX, INFIX}
+
+    //querydsl 은 모든 like 를 like ? escape '!' 로 렌더링한다
+    private static final char ESCAPE = JPQLTemplates.DEFAULT_ESCAPE;
+
+    private final String pattern;
+    private final Kind kind;
+    private final String literal;
+    private final List<String> fragments;
+
+    private LikePattern(String pattern, Kind kind, String literal, List<String> fragments) {
+        this.pattern = pattern;
+        this.kind = kind;
+        this.literal = literal;
+        this.fragments = fragments;
+    }
+
+    public static LikePattern parse(String pattern) {
+        List<String> fragments = new ArrayList<>();
+        StringBuilder fragment = new StringBuilder();
+        //첫 와일드카드 앞까지의 문자열, escape 를 푼 값이다
+        StringBuilder literal = new StringBuilder();
+        int firstWildcard = -1;
+        boolean onlyTrailingPercent = true;
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            boolean escaped = c == ESCAPE;
+            if (escaped) {
+                if (i + 1 == pattern.length()) {
+                    //끝에 홀로 남은 escape 는 분류하지 않고 like 그대로 실행한다
+                    return new LikePattern(pattern, Kind.INFIX, null, Collections.emptyList());
+                }
+                c = pattern.charAt(++i);
+            }
+            if (!escaped && (c == '%' || c == '_')) {
+                if (firstWildcard < 0) {
+                    firstWildcard = i;
+                }
+                onlyTrailingPercent &= c == '%';
+                if (fragment.length() > 0) {
+                    fragments.add(fragment.toString());
+                    fragment.setLength(0);
+                }
+            } else {
+                if (firstWildcard >= 0) {
+                    onlyTrailingPercent = false;
+                } else {
+                    literal.append(c);
+                }
+                fragment.append(c);
+            }
+        }
+        if (fragment.length() > 0) {
+            fragments.add(fragment.toString());
+        }
+
+        if (firstWildcard < 0) {
+            return new LikePattern(pattern, Kind.EXACT, literal.toString(), fragments);
+        }
+        if (onlyTrailingPercent && literal.length() > 0) {
+            return new LikePattern(pattern, Kind.PREFIX, literal.toString(), fragments);
+        }
+        return new LikePattern(pattern, Kind.INFIX, null, fragments);
+    }
+
+    public BooleanExpression toPredicate(StringExpression path) {
+        return kind == Kind.EXACT ? path.eq(literal) : path.like(pattern);
+    }
+}
@@ -0,0 +1,95 @@
+package com.irostub.learnquerydsl.repository.support;
+
+import com.querydsl.core.JoinExpression;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.SubQueryExpression;
+import com.querydsl.core.types.TemplateExpression;
+import com.querydsl.core.types.Visitor;
+
+import java.util.HashSet;
+import java.util.Set;
+
+//식에서 참조하는 path 의 root(from/join alias) 를 모은다, 서브쿼리 내부도 포함한다
+//ex) member.team.name -> member, team.name -> team
+public final class PathCollector implements Visitor<Void, Set<Path<?>>> {
+    private static final PathCollector INSTANCE = new PathCollector();
+
+    private PathCollector() {
+    }
+
+    public static Set<Path<?>> roots(Expression<?>... expressions) {
+        Set<Path<?>> roots = new HashSet<>();
+        for (Expression<?> expression : expressions) {
+            collect(expression, roots);
+        }
+        return roots;
+    }
+
+    public static void collect(Expression<?> expression, Set<Path<?>> roots) {
+        if (expression != null) {
+            expression.accept(INSTANCE, roots);
+        }
+    }
+
+    @Override
+    public Void visit(Constant<?> expr, Set<Path<?>> roots) {
+        return null;
+    }
+
+    @Override
+    public Void visit(FactoryExpression<?> expr, Set<Path<?>> roots) {
+        expr.getArgs().forEach(arg -> collect(arg, roots));
+        return null;
+    }
+
+    @Override
+    public Void visit(Operation<?> expr, Set<Path<?>> roots) {
+        expr.getArgs().forEach(arg -> collect(arg, roots));
+        return null;
+    }
+
+    @Override
+    public Void visit(ParamExpression<?> expr, Set<Path<?>> roots) {
+        return null;
+    }
+
+    @Override
+    public Void visit(Path<?> expr, Set<Path<?>> roots) {
+        roots.add(expr.getRoot());
+        return null;
+    }
+
+    @Override
+    public Void visit(SubQueryExpression<?> expr, Set<Path<?>> roots) {
+        QueryMetadata metadata = expr.getMetadata();
+        for (JoinExpression join : metadata.getJoins()) {
+            collect(join.getTarget(), roots);
+            collect(join.getCondition(), roots);
+        }
+        collect(metadata.getProjection(), roots);
+        collect(metadata.getWhere(), roots);
+        collect(metadata.getHaving(), roots);
+        metadata.getGroupBy().forEach(group -> collect(group, roots));
+        for (OrderSpecifier<?> order : metadata.getOrderBy()) {
+            collect(order.getTarget(), roots);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(TemplateExpression<?> expr, Set<Path<?>> roots) {
+        for (Object arg : expr.getArgs()) {
+            if (arg instanceof Expression) {
+                collect((Expression<?>) arg, roots);
+            }
+        }
+        return null;
+    }
+}
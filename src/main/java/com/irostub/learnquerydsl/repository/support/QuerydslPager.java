@@ -0,0 +1,97 @@
+package com.irostub.learnquerydsl.repository.support;
+
+import com.querydsl.core.JoinExpression;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+//offset 페이징 + count 를 fetchResults() 대신 처리한다
+//- count 쿼리는 CountQueryOptimizer 로 order by, fetch join, 불필요한 join 을 제거해 만든다
+//- 첫 페이지 결과가 page size 보다 작거나 마지막 페이지인 경우 count 쿼리를 실행하지 않는다 (PageableExecutionUtils)
+//- CountMode 로 count 결과를 캐시하거나 근사값을 사용할 수 있다
+@Component
+public class QuerydslPager {
+    private final EntityManager em;
+    private final CountQueryOptimizer countOptimizer;
+    private final CountCache countCache;
+
+    public QuerydslPager(EntityManager em, JPAQueryFactory queryFactory,
+                         @Value("${app.paging.count-cache-ttl:1m}") Duration countCacheTtl) {
+        this.em = em;
+        this.countOptimizer = new CountQueryOptimizer(em, queryFactory);
+        this.countCache = new CountCache(countCacheTtl);
+    }
+
+    //query 에 offset/limit 을 적용하므로 정렬(orderBy)까지 지정한 쿼리를 넘긴다
+    public <T> Page<T> fetchPage(JPAQuery<T> query, Pageable pageable) {
+        return fetchPage(query, pageable, CountMode.EXACT);
+    }
+
+    public <T> Page<T> fetchPage(JPAQuery<T> query, Pageable pageable, CountMode mode) {
+        //offset/limit 을 적용하기 전에 count 쿼리를 만든다
+        JPAQuery<Long> countQuery = countOptimizer.toCountQuery(query);
+        LongSupplier count = countSupplier(query, countQuery, mode);
+
+        if (pageable.isPaged()) {
+            query.offset(pageable.getOffset()).limit(pageable.getPageSize());
+        }
+        List<T> content = query.fetch();
+        return PageableExecutionUtils.getPage(content, pageable, count);
+    }
+
+    public void evictCountCache() {
+        countCache.evictAll();
+    }
+
+    private LongSupplier countSupplier(JPAQuery<?> query, JPAQuery<Long> countQuery, CountMode mode) {
+        //최적화할 수 없는 쿼리는 offset/limit 이 적용되기 전의 복사본으로 fetchCount 한다
+        JPAQuery<?> original = countQuery == null ? query.clone() : null;
+        LongSupplier exact = () -> {
+            if (countQuery == null) {
+                return original.fetchCount();
+            }
+            Long count = countQuery.fetchOne();
+            return count != null ? count : 0L;
+        };
+
+        if (mode == CountMode.EXACT || countQuery == null) {
+            return exact;
+        }
+        QueryMetadata metadata = countQuery.getMetadata();
+        if (mode == CountMode.APPROXIMATE && metadata.getWhere() == null && metadata.getJoins().size() == 1) {
+            return () -> {
+                Long estimate = estimateRowCount(metadata.getJoins().get(0));
+                return estimate != null ? estimate : exact.getAsLong();
+            };
+        }
+        //constant 는 jpql 에 ?1 로 직렬화되므로 값이 포함된 식 자체를 key 로 사용한다
+        String key = metadata.getJoins() + " where " + metadata.getWhere();
+        return () -> countCache.get(key, exact);
+    }
+
+    //dialect 에 맞는 db 통계 값으로 전체 행 수를 추정한다, 테이블을 스캔하지 않는다
+    //추정할 수 없는 db 이거나 통계가 없으면 null 을 반환하고 EXACT 로 count 한다
+    private Long estimateRowCount(JoinExpression root) {
+        SessionFactoryImplementor sessionFactory = (SessionFactoryImplementor) em.getEntityManagerFactory().unwrap(SessionFactory.class);
+        RowCountEstimator estimator = RowCountEstimator.forDialect(sessionFactory.getJdbcServices().getDialect());
+        if (estimator == null) {
+            return null;
+        }
+        EntityPersister persister = sessionFactory.getMetamodel().entityPersister(root.getTarget().getType());
+        return estimator.estimate(em, ((AbstractEntityPersister) persister).getTableName());
+    }
+}
@@ -0,0 +1,26 @@
+package com.irostub.learnquerydsl.repository.support;
+
+import com.irostub.learnquerydsl.support.metrics.InstrumentedJPAQueryFactory;
+import com.irostub.learnquerydsl.support.metrics.QueryMetrics;
+import com.querydsl.jpa.impl.JPAQuery;
+import org.hibernate.FlushMode;
+import org.hibernate.annotations.QueryHints;
+
+import javax.persistence.EntityManager;
+
+//조회 전용 API 용 JPAQueryFactory
+//조회한 엔티티를 read-only 로 올려 dirty checking 스냅샷을 만들지 않고, 쿼리 실행 전 auto flush 도 하지 않는다
+//dto 프로젝션과 함께 쓰면 영속성 컨텍스트를 아예 거치지 않는다
+public class ReadOnlyQueryFactory extends InstrumentedJPAQueryFactory {
+
+    public ReadOnlyQueryFactory(EntityManager em, QueryMetrics metrics) {
+        super(em, metrics);
+    }
+
+    @Override
+    public JPAQuery<?> query() {
+        return super.query()
+                .setHint(QueryHints.READ_ONLY, true)
+                .setHint(QueryHints.FLUSH_MODE, FlushMode.MANUAL);
+    }
+}
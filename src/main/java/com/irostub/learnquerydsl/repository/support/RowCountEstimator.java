@@ -0,0 +1,47 @@
+package com.irostub.learnquerydsl.repository.support;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.dialect.PostgreSQL81Dialect;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+//CountMode.APPROXIMATE 가 테이블을 스캔하지 않고 db 통계로 전체 행 수를 추정하는 방법, db 마다 통계를 읽는 sql 이 다르다
+//지원하지 않는 db 는 forDialect 가 null 을 반환하고 QuerydslPager 는 EXACT 로 count 한다
+@RequiredArgsConstructor
+public enum RowCountEstimator {
+    H2(H2Dialect.class, "select ROW_COUNT_ESTIMATE from INFORMATION_SCHEMA.TABLES"
+            + " where TABLE_SCHEMA = SCHEMA() and TABLE_NAME = upper(?1)"),
+    //한 번도 analyze 되지 않은 테이블은 reltuples 가 -1 이다
+    POSTGRESQL(PostgreSQL81Dialect.class, "select cast(reltuples as bigint) from pg_class where oid = to_regclass(?1)"),
+    //MariaDBDialect 도 MySQLDialect 를 상속한다
+    MYSQL(MySQLDialect.class, "select TABLE_ROWS from INFORMATION_SCHEMA.TABLES"
+            + " where TABLE_SCHEMA = database() and TABLE_NAME = ?1");
+
+    private final Class<? extends Dialect> dialect;
+    private final String sql;
+
+    public static RowCountEstimator forDialect(Dialect dialect) {
+        for (RowCountEstimator estimator : values()) {
+            if (estimator.dialect.isInstance(dialect)) {
+                return estimator;
+            }
+        }
+        return null;
+    }
+
+    //통계가 없으면(테이블을 찾지 못했거나 아직 수집되지 않음) null
+    public Long estimate(EntityManager em, String table) {
+        List<?> result = em.createNativeQuery(sql)
+                .setParameter(1, table)
+                .getResultList();
+        if (result.isEmpty() || result.get(0) == null) {
+            return null;
+        }
+        long estimate = ((Number) result.get(0)).longValue();
+        return estimate >= 0 ? estimate : null;
+    }
+}
@@ -0,0 +1,288 @@
+package com.irostub.learnquerydsl.repository.support;
+
+import com.querydsl.core.JoinExpression;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.support.ReplaceVisitor;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Operator;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.SubQueryExpression;
+import com.querydsl.core.types.SubQueryExpressionImpl;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.jpa.impl.JPAQuery;
+
+import javax.persistence.EntityManager;
+import javax.persistence.metamodel.EntityType;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+//where/select 의 서브쿼리를 db 가 처리하기 쉬운 형태로 바꾼 쿼리를 만든다
+//- 상관관계 없는 집계 서브쿼리(select avg(s.age) from Member s)는 미리 한 번 실행해 비교 대상 타입의 상수로 바인딩한다
+//  ex) member.age.loe(select(subMember.age.avg()).from(subMember)) -> member.age <= ?
+//- x in (select s.id from 같은엔티티 s where W(s)) 는 자기 자신과의 semi-join 이므로 W(x) 로 바꾼다
+//  ex) member.id.in(select(subMember.id).from(subMember)) -> 조건 없음
+//- 그 외의 x in (select s.p from S s where W) 는 exists (select 1 from S s where W and s.p = x) 로 바꿔
+//  s.p 인덱스로 행마다 한 건만 확인하게 한다
+//in 변환은 where 의 and/or 로만 이어진 위치에서만 한다 (not 아래에서는 null 처리 차이가 있으므로 그대로 둔다)
+//상수로 바꾸는 서브쿼리는 optimize 호출 시점에 실행된다
+public class SubQueryOptimizer {
+    private static final Set<Ops> COMPARISON_OPERATORS = EnumSet.of(
+            Ops.EQ, Ops.NE, Ops.LT, Ops.LOE, Ops.GT, Ops.GOE, Ops.BETWEEN);
+    private static final Set<Ops> ARITHMETIC_OPERATORS = EnumSet.of(Ops.ADD, Ops.SUB, Ops.MULT, Ops.DIV);
+    private static final Set<Ops.AggOps> AGGREGATES = EnumSet.of(
+            Ops.AggOps.AVG_AGG, Ops.AggOps.MAX_AGG, Ops.AggOps.MIN_AGG, Ops.AggOps.SUM_AGG,
+            Ops.AggOps.COUNT_AGG, Ops.AggOps.COUNT_DISTINCT_AGG);
+    private static final Predicate ALWAYS_TRUE = Expressions.booleanTemplate("1 = 1");
+    //서브쿼리와 중첩 서브쿼리의 from/join alias 를 모은다
+    private static final ReplaceVisitor<Set<Path<?>>> DECLARED_ALIASES = new ReplaceVisitor<Set<Path<?>>>() {
+        @Override
+        public Expression<?> visit(SubQueryExpression<?> expr, Set<Path<?>> declared) {
+            for (JoinExpression join : expr.getMetadata().getJoins()) {
+                Path<?> alias = CountQueryOptimizer.aliasOf(join);
+                if (alias != null) {
+                    declared.add(alias);
+                }
+            }
+            return super.visit(expr, declared);
+        }
+    };
+
+    private final EntityManager em;
+
+    public SubQueryOptimizer(EntityManager em) {
+        this.em = em;
+    }
+
+    public <T> JPAQuery<T> optimize(JPAQuery<T> query) {
+        JPAQuery<T> optimized = query.clone();
+        QueryMetadata metadata = optimized.getMetadata();
+        Rewriter rewriter = new Rewriter();
+
+        Predicate where = metadata.getWhere();
+        if (where != null) {
+            metadata.clearWhere();
+            metadata.addWhere((Predicate) where.accept(rewriter, true));
+        }
+        Expression<?> projection = metadata.getProjection();
+        if (projection != null) {
+            metadata.setProjection(projection.accept(rewriter, false));
+        }
+        return optimized;
+    }
+
+    //positive: where 의 최상위부터 and/or 로만 이어진 위치인지
+    private class Rewriter extends ReplaceVisitor<Boolean> {
+        @Override
+        public Expression<?> visit(Operation<?> expr, Boolean positive) {
+            Operator operator = expr.getOperator();
+            if (operator == Ops.IN && expr.getArg(1) instanceof SubQueryExpression) {
+                Predicate rewritten = positive ? rewriteIn(expr.getArg(0), (SubQueryExpression<?>) expr.getArg(1)) : null;
+                return rewritten != null ? rewritten.accept(this, positive) : expr;
+            }
+
+            boolean childPositive = positive && (operator == Ops.AND || operator == Ops.OR);
+            boolean scalarContext = operator instanceof Ops
+                    && (COMPARISON_OPERATORS.contains(operator) || ARITHMETIC_OPERATORS.contains(operator));
+            List<Expression<?>> args = new ArrayList<>(expr.getArgs().size());
+            boolean changed = false;
+            for (int i = 0; i < expr.getArgs().size(); i++) {
+                Expression<?> arg = expr.getArg(i);
+                Expression<?> rewritten = scalarContext && arg instanceof SubQueryExpression
+                        ? evaluateScalar(expr, i)
+                        : arg.accept(this, childPositive);
+                args.add(rewritten);
+                changed |= rewritten != arg;
+            }
+            if (!changed) {
+                return expr;
+            }
+            Expression<?>[] array = args.toArray(new Expression<?>[0]);
+            if (expr instanceof Predicate) {
+                return ExpressionUtils.predicate(operator, array);
+            }
+            return ExpressionUtils.operation(expr.getType(), operator, array);
+        }
+    }
+
+    //집계 함수만 select 하고 group by 가 없으면 항상 한 행이다
+    //비교 연산의 결과는 비교 대상의 타입으로 바꿔서 바인딩한다 (member.age 에 avg 의 Double 을 그대로 넘기면 hibernate 가 거부한다)
+    private Expression<?> evaluateScalar(Operation<?> operation, int index) {
+        SubQueryExpression<?> subQuery = (SubQueryExpression<?>) operation.getArg(index);
+        QueryMetadata metadata = subQuery.getMetadata();
+        Expression<?> projection = metadata.getProjection();
+        //select(subMember.age.avg()) 는 NumberConversion(avg(...)) 으로 감싸져 있다
+        if (projection instanceof FactoryExpression && ((FactoryExpression<?>) projection).getArgs().size() == 1) {
+            projection = ((FactoryExpression<?>) projection).getArgs().get(0);
+        }
+        boolean aggregate = projection instanceof Operation
+                && AGGREGATES.contains(((Operation<?>) projection).getOperator());
+        if (!aggregate || !metadata.getGroupBy().isEmpty() || metadata.getHaving() != null || isCorrelated(subQuery)) {
+            return subQuery;
+        }
+        Object value = new JPAQuery<>(em, metadata.clone()).fetchOne();
+        //결과가 null(빈 테이블의 avg 등)이면 비교 결과가 같도록 서브쿼리를 그대로 둔다
+        if (value == null) {
+            return subQuery;
+        }
+        Class<?> operandType = operandType(operation, index);
+        //산술 연산에서는 타입을 바꾸면 결과가 달라진다 (age / 19.0 -> age / 19 는 정수 나눗셈)
+        //hibernate 는 파라미터를 다른 피연산자 타입으로 검사하므로 타입이 같을 때만 바인딩한다
+        if (ARITHMETIC_OPERATORS.contains(operation.getOperator())) {
+            return operandType.isInstance(value) ? Expressions.constant(value) : subQuery;
+        }
+        Object coerced = coerce(value, operandType, rounding((Ops) operation.getOperator(), index));
+        //정수 컬럼과 같을 수 없는 소수(eq 19.5 등)는 서브쿼리를 그대로 둔다
+        return coerced != null ? Expressions.constant(coerced) : subQuery;
+    }
+
+    //between 은 (x, from, to), 나머지는 이항 연산
+    private static Class<?> operandType(Operation<?> operation, int index) {
+        if (operation.getOperator() == Ops.BETWEEN && index > 0) {
+            return operation.getArg(0).getType();
+        }
+        return operation.getArg(index == 0 ? 1 : 0).getType();
+    }
+
+    //정수 컬럼과의 비교에서 결과가 같도록 소수를 올리거나 내린다
+    //ex) age >= 19.5 -> age >= 20, age > 19.5 -> age > 19, age <= 19.5 -> age <= 19, age < 19.5 -> age < 20
+    //서브쿼리가 왼쪽에 있으면(avg >= age) 방향이 반대다
+    private static RoundingMode rounding(Ops operator, int index) {
+        switch (operator) {
+            case GOE:
+            case LT:
+                return index == 0 ? RoundingMode.FLOOR : RoundingMode.CEILING;
+            case GT:
+            case LOE:
+                return index == 0 ? RoundingMode.CEILING : RoundingMode.FLOOR;
+            case BETWEEN:
+                return index == 1 ? RoundingMode.CEILING : index == 2 ? RoundingMode.FLOOR : RoundingMode.UNNECESSARY;
+            default:
+                return RoundingMode.UNNECESSARY;
+        }
+    }
+
+    //type 으로 표현할 수 없으면 (정수가 아닌 값의 eq, 범위 초과) null
+    private static Object coerce(Object value, Class<?> type, RoundingMode rounding) {
+        if (!(value instanceof Number) || type.isInstance(value) || !Number.class.isAssignableFrom(type)) {
+            return value;
+        }
+        BigDecimal decimal = new BigDecimal(value.toString());
+        try {
+            if (type == Integer.class) {
+                return decimal.setScale(0, rounding).intValueExact();
+            }
+            if (type == Long.class) {
+                return decimal.setScale(0, rounding).longValueExact();
+            }
+            if (type == Short.class) {
+                return decimal.setScale(0, rounding).shortValueExact();
+            }
+            if (type == Byte.class) {
+                return decimal.setScale(0, rounding).byteValueExact();
+            }
+            if (type == BigInteger.class) {
+                return decimal.setScale(0, rounding).toBigIntegerExact();
+            }
+        } catch (ArithmeticException e) {
+            return null;
+        }
+        if (type == Double.class) {
+            return decimal.doubleValue();
+        }
+        if (type == Float.class) {
+            return decimal.floatValue();
+        }
+        if (type == BigDecimal.class) {
+            return decimal;
+        }
+        return value;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Predicate rewriteIn(Expression<?> left, SubQueryExpression<?> subQuery) {
+        QueryMetadata metadata = subQuery.getMetadata();
+        if (!metadata.getGroupBy().isEmpty() || metadata.getHaving() != null || metadata.getModifiers().isRestricting()
+                || !(metadata.getProjection() instanceof Path)) {
+            return null;
+        }
+        Path<?> selected = (Path<?>) metadata.getProjection();
+
+        Path<?> selfJoinAlias = selfJoinAlias(left, metadata, selected);
+        if (selfJoinAlias != null) {
+            Predicate where = metadata.getWhere();
+            if (where == null) {
+                return ALWAYS_TRUE;
+            }
+            Path<?> outer = ((Path<?>) left).getMetadata().getParent();
+            return (Predicate) where.accept(new AliasReplacer(selfJoinAlias, outer), null);
+        }
+
+        QueryMetadata exists = metadata.clone();
+        exists.setProjection(Expressions.ONE);
+        exists.addWhere(ExpressionUtils.eq((Expression) selected, (Expression) left));
+        return Expressions.predicate(Ops.EXISTS, new SubQueryExpressionImpl<>(Integer.class, exists));
+    }
+
+    //outer.id in (select s.id from Outer s ...) 인 경우 s
+    private Path<?> selfJoinAlias(Expression<?> left, QueryMetadata metadata, Path<?> selected) {
+        if (!(left instanceof Path) || metadata.getJoins().size() != 1) {
+            return null;
+        }
+        JoinExpression from = metadata.getJoins().get(0);
+        Path<?> alias = CountQueryOptimizer.aliasOf(from);
+        Path<?> outer = ((Path<?>) left).getMetadata().getParent();
+        if (alias == null || from.getCondition() != null || outer == null || !outer.getMetadata().isRoot()
+                || !alias.equals(selected.getMetadata().getParent()) || !outer.getType().equals(alias.getType())) {
+            return null;
+        }
+        String property = ((Path<?>) left).getMetadata().getName();
+        if (!property.equals(selected.getMetadata().getName()) || !isId(alias.getType(), property)) {
+            return null;
+        }
+        return alias;
+    }
+
+    private boolean isId(Class<?> type, String property) {
+        try {
+            EntityType<?> entity = em.getMetamodel().entity(type);
+            return entity.hasSingleIdAttribute() && entity.getId(entity.getIdType().getJavaType()).getName().equals(property);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    //서브쿼리(중첩 포함)가 선언하지 않은 alias 를 참조하면 바깥 쿼리와 상관관계가 있다
+    private static boolean isCorrelated(SubQueryExpression<?> subQuery) {
+        Set<Path<?>> declared = new HashSet<>();
+        subQuery.accept(DECLARED_ALIASES, declared);
+        Set<Path<?>> referenced = PathCollector.roots(subQuery);
+        referenced.removeAll(declared);
+        return !referenced.isEmpty();
+    }
+
+    private static class AliasReplacer extends ReplaceVisitor<Void> {
+        private final Path<?> from;
+        private final Path<?> to;
+
+        AliasReplacer(Path<?> from, Path<?> to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public Expression<?> visit(Path<?> expr, Void context) {
+            return expr.equals(from) ? to : super.visit(expr, context);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.irostub.learnquerydsl.service;
+
+//청크 처리 중 실패, 이미 커밋된 청크는 되돌리지 않는다
+public class BulkOperationException extends RuntimeException {
+    private final BulkProgress completed;
+
+    public BulkOperationException(BulkProgress completed, Throwable cause) {
+        super("bulk operation failed after " + completed, cause);
+        this.completed = completed;
+    }
+
+    public BulkProgress getCompleted() {
+        return completed;
+    }
+}
@@ -0,0 +1,37 @@
+package com.irostub.learnquerydsl.service;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+//청크 단위 벌크 연산의 진행 상황, 마지막 진행 상황이 결과가 된다
+@Getter
+public class BulkProgress {
+    private final String operation;
+    private final long completedChunks;
+    private final long totalChunks;
+    private final long rows;
+    private final Duration elapsed;
+
+    public BulkProgress(String operation, long completedChunks, long totalChunks, long rows, Duration elapsed) {
+        this.operation = operation;
+        this.completedChunks = completedChunks;
+        this.totalChunks = totalChunks;
+        this.rows = rows;
+        this.elapsed = elapsed;
+    }
+
+    public boolean isDone() {
+        return completedChunks == totalChunks;
+    }
+
+    public double getRowsPerSecond() {
+        long nanos = elapsed.toNanos();
+        return nanos > 0 ? rows * 1_000_000_000d / nanos : 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s %d/%d chunks, %d rows, %.0f rows/s", operation, completedChunks, totalChunks, rows, getRowsPerSecond());
+    }
+}
@@ -0,0 +1,7 @@
+package com.irostub.learnquerydsl.service;
+
+//청크가 커밋될 때마다 호출된다, 병렬 처리 시 여러 스레드에서 호출될 수 있다
+@FunctionalInterface
+public interface BulkProgressListener {
+    void onProgress(BulkProgress progress);
+}
@@ -0,0 +1,78 @@
+package com.irostub.learnquerydsl.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.io.Writer;
+
+@Getter
+@RequiredArgsConstructor
+public enum ExportFormat {
+    NDJSON("application/x-ndjson") {
+        @Override
+        public RowWriter open(Writer writer, ObjectMapper objectMapper, String... columns) throws IOException {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(writer);
+            generator.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+            //루트 값 사이에 기본으로 넣는 공백 대신 줄바꿈만 쓴다
+            generator.setRootValueSeparator(null);
+            return new RowWriter() {
+                @Override
+                public void write(Object... values) throws IOException {
+                    generator.writeStartObject();
+                    for (int i = 0; i < columns.length; i++) {
+                        generator.writeObjectField(columns[i], values[i]);
+                    }
+                    generator.writeEndObject();
+                    generator.writeRaw('\n');
+                }
+
+                @Override
+                public void flush() throws IOException {
+                    generator.flush();
+                }
+            };
+        }
+    },
+    CSV("text/csv") {
+        @Override
+        public RowWriter open(Writer writer, ObjectMapper objectMapper, String... columns) throws IOException {
+            writer.write(String.join(",", columns));
+            writer.write('\n');
+            return new RowWriter() {
+                @Override
+                public void write(Object... values) throws IOException {
+                    for (int i = 0; i < values.length; i++) {
+                        if (i > 0) {
+                            writer.write(',');
+                        }
+                        writer.write(escape(values[i]));
+                    }
+                    writer.write('\n');
+                }
+
+                @Override
+                public void flush() throws IOException {
+                    writer.flush();
+                }
+            };
+        }
+    };
+
+    private final String contentType;
+
+    public abstract RowWriter open(Writer writer, ObjectMapper objectMapper, String... columns) throws IOException;
+
+    private static String escape(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
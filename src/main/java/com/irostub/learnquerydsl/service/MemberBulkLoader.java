@@ -0,0 +1,49 @@
+package com.irostub.learnquerydsl.service;
+
+import com.irostub.learnquerydsl.config.BulkLoadProperties;
+import com.irostub.learnquerydsl.dto.MemberDto;
+import com.irostub.learnquerydsl.entity.Member;
+import com.irostub.learnquerydsl.entity.Team;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.Map;
+
+//팀과 회원을 대량으로 적재한다
+//pooled 시퀀스로 id 를 메모리에서 할당하고, hibernate jdbc batch(order_inserts) 로 insert 를 묶으며
+//chunkSize 마다 flush/clear 하여 영속성 컨텍스트가 커지지 않도록 한다
+@Service
+public class MemberBulkLoader {
+    private final EntityManager em;
+    private final int chunkSize;
+
+    public MemberBulkLoader(EntityManager em, BulkLoadProperties properties) {
+        this.em = em;
+        this.chunkSize = properties.getChunkSize();
+    }
+
+    //팀 이름 별 회원 목록을 적재하고 적재한 회원 수를 반환
+    @Transactional
+    public long load(Map<String, ? extends Iterable<MemberDto>> membersByTeam) {
+        long count = 0;
+        for (Map.Entry<String, ? extends Iterable<MemberDto>> entry : membersByTeam.entrySet()) {
+            Team team = Team.createTeam(entry.getKey());
+            em.persist(team);
+            Long teamId = team.getId();
+
+            for (MemberDto dto : entry.getValue()) {
+                em.persist(Member.createMember(dto.getUsername(), dto.getAge(), team));
+                if (++count % chunkSize == 0) {
+                    em.flush();
+                    em.clear();
+                    //clear 이후에는 준영속 team 대신 프록시를 사용
+                    team = em.getReference(Team.class, teamId);
+                }
+            }
+        }
+        em.flush();
+        em.clear();
+        return count;
+    }
+}
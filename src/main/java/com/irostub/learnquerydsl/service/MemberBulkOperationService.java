@@ -0,0 +1,284 @@
+package com.irostub.learnquerydsl.service;
+
+import com.irostub.learnquerydsl.config.BulkOperationProperties;
+import com.irostub.learnquerydsl.entity.Member;
+import com.irostub.learnquerydsl.support.search.UsernameIndex;
+import com.irostub.learnquerydsl.support.stats.TeamStatsMaintainer;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.PersistenceContext;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToLongFunction;
+import java.util.function.UnaryOperator;
+
+import static com.irostub.learnquerydsl.entity.QMember.member;
+
+//update(member)/delete(member) 를 한 문장으로 실행하지 않고 id 범위 청크로 나눠 청크마다 커밋한다
+//- 락은 청크 하나의 행에 대해서만, 청크 트랜잭션 동안만 잡힌다
+//- 청크 안에서는 대상 id 를 먼저 select ... for update 로 잠그고, 그 id 로만 update/delete 한다
+//- em.clear() 대신 호출자 영속성 컨텍스트에 있는 영향받은 Member 만 detach 한다
+//  시작할 때 컨텍스트에 있던 Member id 만 확인하므로 대상이 수백만 행이어도 모으는 id 는 컨텍스트 크기를 넘지 않는다
+//벌크 jpql 은 엔티티 이벤트가 발생하지 않으므로 청크마다 변경 전/후 (team, age) 를 읽어 team_stats 증감분을 직접 넘기고
+//커밋 후 변경된 username 을 UsernameIndex 에 반영한다
+//hibernate 의 벌크 jpql 은 실행될 때마다 Member 2차 캐시 region 과 쿼리 캐시 timestamps 를 스스로 무효화하므로
+//2차 캐시는 별도로 정리하지 않는다
+//청크는 REQUIRES_NEW 로 커밋되므로 호출자 트랜잭션이 이미 flush 했거나 잠근 Member 행을 대상으로 하면
+//청크가 호출자 트랜잭션의 커밋을 기다리고 호출자는 청크를 기다려 멈춘다 (락 타임아웃까지)
+//호출자 트랜잭션 안에서 부를 때는 대상 행을 먼저 수정하거나 잠그지 않아야 한다
+@Slf4j
+@Service
+public class MemberBulkOperationService {
+    private final EntityManager em;
+    private final JPAQueryFactory query;
+    private final BulkOperationProperties properties;
+    private final TeamStatsMaintainer teamStats;
+    private final UsernameIndex usernameIndex;
+    private final TransactionTemplate chunkTransaction;
+
+    public MemberBulkOperationService(EntityManager em, JPAQueryFactory query, BulkOperationProperties properties,
+                                      TeamStatsMaintainer teamStats, UsernameIndex usernameIndex,
+                                      PlatformTransactionManager transactionManager) {
+        this.em = em;
+        this.query = query;
+        this.properties = properties;
+        this.teamStats = teamStats;
+        this.usernameIndex = usernameIndex;
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    //ex) update(member.age.lt(10), update -> update.set(member.age, member.age.add(1)))
+    public BulkProgress update(Predicate where, UnaryOperator<JPAUpdateClause> set) {
+        return update(where, set, progress -> log.info("{}", progress));
+    }
+
+    public BulkProgress update(Predicate where, UnaryOperator<JPAUpdateClause> set, BulkProgressListener listener) {
+        return execute("update", where, ids -> set.apply(query.update(member)).where(member.id.in(ids)).execute(), listener);
+    }
+
+    public BulkProgress delete(Predicate where) {
+        return delete(where, progress -> log.info("{}", progress));
+    }
+
+    public BulkProgress delete(Predicate where, BulkProgressListener listener) {
+        return execute("delete", where, ids -> query.delete(member).where(member.id.in(ids)).execute(), listener);
+    }
+
+    private BulkProgress execute(String operation, Predicate where, ToLongFunction<List<Long>> statement, BulkProgressListener listener) {
+        long start = System.nanoTime();
+        Tuple range = chunkTransaction.execute(status -> query
+                .select(member.id.min(), member.id.max())
+                .from(member)
+                .where(where)
+                .fetchOne());
+        Long minId = range != null ? range.get(member.id.min()) : null;
+        if (minId == null) {
+            return new BulkProgress(operation, 0, 0, 0, Duration.ofNanos(System.nanoTime() - start));
+        }
+        long maxId = range.get(member.id.max());
+        int chunkSize = properties.getChunkSize();
+        long totalChunks = (maxId - minId) / chunkSize + 1;
+
+        //호출자 트랜잭션이 없으면 영속성 컨텍스트도 없으므로 영향받은 id 를 모으지 않는다
+        Set<Long> managed = TransactionSynchronizationManager.isActualTransactionActive() ? managedMemberIds() : Collections.emptySet();
+        Queue<Long> affected = new ConcurrentLinkedQueue<>();
+        AtomicLong nextChunk = new AtomicLong();
+        AtomicLong completedChunks = new AtomicLong();
+        AtomicLong rows = new AtomicLong();
+        //한 청크가 실패하면 다른 스레드도 새 청크를 가져가지 않는다
+        AtomicBoolean failed = new AtomicBoolean();
+
+        Runnable worker = () -> {
+            long chunk;
+            while (!failed.get() && (chunk = nextChunk.getAndIncrement()) < totalChunks) {
+                long from = minId + chunk * chunkSize;
+                long to = Math.min(from + chunkSize - 1, maxId);
+                try {
+                    long affectedRows = chunkTransaction.execute(status -> {
+                        List<Tuple> before = query
+                                .select(member.id, member.team.id, member.age)
+                                .from(member)
+                                .where(where, member.id.between(from, to))
+                                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                                .fetch();
+                        if (before.isEmpty()) {
+                            return 0L;
+                        }
+                        List<Long> ids = new ArrayList<>(before.size());
+                        for (Tuple row : before) {
+                            ids.add(row.get(member.id));
+                        }
+                        if (!managed.isEmpty()) {
+                            for (Long id : ids) {
+                                if (managed.contains(id)) {
+                                    affected.add(id);
+                                }
+                            }
+                        }
+                        long rowCount = statement.applyAsLong(ids);
+                        List<Tuple> after = query
+                                .select(member.id, member.team.id, member.age, member.username)
+                                .from(member)
+                                .where(member.id.in(ids))
+                                .fetch();
+                        recordTeamStats(before, after);
+                        refreshUsernameIndex(ids, after);
+                        return rowCount;
+                    });
+                    listener.onProgress(new BulkProgress(operation, completedChunks.incrementAndGet(), totalChunks,
+                            rows.addAndGet(affectedRows), Duration.ofNanos(System.nanoTime() - start)));
+                } catch (RuntimeException e) {
+                    failed.set(true);
+                    throw e;
+                }
+            }
+        };
+
+        try {
+            run(worker, (int) Math.min(properties.getParallelism(), totalChunks), failed);
+        } catch (RuntimeException e) {
+            throw new BulkOperationException(new BulkProgress(operation, completedChunks.get(), totalChunks, rows.get(),
+                    Duration.ofNanos(System.nanoTime() - start)), e);
+        } finally {
+            if (!affected.isEmpty()) {
+                detach(affected);
+            }
+        }
+        return new BulkProgress(operation, completedChunks.get(), totalChunks, rows.get(), Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    //변경 전 값은 빼고, 남아있는 행의 변경 후 값은 더한다 (delete 면 남은 행이 없다)
+    private void recordTeamStats(List<Tuple> before, List<Tuple> after) {
+        for (Tuple row : before) {
+            teamStats.record(em, row.get(member.team.id), -1, -row.get(member.age));
+        }
+        for (Tuple row : after) {
+            teamStats.record(em, row.get(member.team.id), 1, row.get(member.age));
+        }
+    }
+
+    //벌크 jpql 은 UsernameIndexListener 를 거치지 않으므로 청크가 커밋된 뒤 변경 후 이름으로 색인을 고친다
+    //남아있지 않은 id 는 삭제된 것이다
+    private void refreshUsernameIndex(List<Long> ids, List<Tuple> after) {
+        Map<Long, String> usernames = new HashMap<>(after.size() * 2);
+        for (Tuple row : after) {
+            usernames.put(row.get(member.id), row.get(member.username));
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                for (Long id : ids) {
+                    String username = usernames.get(id);
+                    if (username != null) {
+                        usernameIndex.put(id, username);
+                    } else {
+                        usernameIndex.remove(id);
+                    }
+                }
+            }
+        });
+    }
+
+    //청크 트랜잭션은 각 스레드에서 REQUIRES_NEW 로 시작되므로 호출자 트랜잭션과 섞이지 않는다
+    private static void run(Runnable worker, int parallelism, AtomicBoolean failed) {
+        if (parallelism <= 1) {
+            worker.run();
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < parallelism; i++) {
+                futures.add(executor.submit(worker));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            failed.set(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new IllegalStateException(e.getCause());
+        } finally {
+            //jdbc 호출은 인터럽트에 반응하지 않으므로 진행 중인 청크가 끝날 때까지 기다린 뒤 진행 상황을 만든다
+            executor.shutdown();
+            awaitTermination(executor);
+        }
+    }
+
+    private static void awaitTermination(ExecutorService executor) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                if (executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                    break;
+                }
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    //호출 스레드에서 청크를 시작하기 전에 읽고, 청크 스레드는 읽기만 한다
+    private Set<Long> managedMemberIds() {
+        PersistenceContext context = em.unwrap(SessionImplementor.class).getPersistenceContext();
+        Set<Long> ids = new HashSet<>();
+        for (Map.Entry<Object, EntityEntry> entry : context.reentrantSafeEntityEntries()) {
+            if (entry.getKey() instanceof Member) {
+                ids.add((Long) entry.getValue().getId());
+            }
+        }
+        return ids;
+    }
+
+    //EntityManager 는 스레드에 안전하지 않으므로 모든 청크가 끝난 뒤 호출 스레드에서 정리한다
+    //영속성 컨텍스트에 이미 있는 엔티티만 찾고, 없는 엔티티를 로딩하지 않는다
+    private void detach(Collection<Long> ids) {
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        EntityPersister persister = session.getFactory().getMetamodel().entityPersister(Member.class);
+        PersistenceContext context = session.getPersistenceContext();
+        for (Long id : ids) {
+            Object entity = context.getEntity(session.generateEntityKey(id, persister));
+            if (entity != null) {
+                em.detach(entity);
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.irostub.learnquerydsl.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.irostub.learnquerydsl.config.ExportProperties;
+import com.irostub.learnquerydsl.dto.MemberDto;
+import com.irostub.learnquerydsl.dto.MemberDtoProjection;
+import com.irostub.learnquerydsl.entity.Member;
+import com.mysema.commons.lang.CloseableIterator;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.annotations.QueryHints;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import static com.irostub.learnquerydsl.entity.QMember.member;
+
+//fetch() 로 전체 결과를 메모리에 올리지 않고 forward-only cursor(iterate) 로 한 행씩 읽어 바로 출력한다
+//hibernate 에서 JPAQuery.iterate() 는 ScrollMode.FORWARD_ONLY 로 scroll 한다
+@Service
+public class MemberExportService {
+    private final EntityManager em;
+    private final JPAQueryFactory query;
+    private final ExportProperties properties;
+    private final ObjectMapper objectMapper;
+
+    public MemberExportService(EntityManager em, JPAQueryFactory query, ExportProperties properties, ObjectMapper objectMapper) {
+        this.em = em;
+        this.query = query;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+    }
+
+    //엔티티는 영속성 컨텍스트에 쌓이므로 clearInterval 마다 비워 메모리를 일정하게 유지한다
+    @Transactional(readOnly = true)
+    public long exportMembers(Predicate where, ExportFormat format, OutputStream out) {
+        JPAQuery<Member> members = streaming(query.selectFrom(member).where(where));
+        int clearInterval = properties.getClearInterval();
+
+        return export(members, format, out, new String[]{"id", "username", "age"}, (writer, row, count) -> {
+            writer.write(row.getId(), row.getUsername(), row.getAge());
+            if (count % clearInterval == 0) {
+                em.clear();
+            }
+        });
+    }
+
+    //dto 프로젝션은 영속성 컨텍스트를 거치지 않으므로 clear 가 필요없다
+    //QMemberDto(ConstructorExpression) 는 행마다 Constructor.newInstance 를 호출하므로 생성된 MemberDtoProjection 을 사용한다
+    @Transactional(readOnly = true)
+    public long exportMemberDtos(Predicate where, ExportFormat format, OutputStream out) {
+        JPAQuery<MemberDto> dtos = streaming(query
+                .select(new MemberDtoProjection(member.username, member.age))
+                .from(member)
+                .where(where));
+
+        return export(dtos, format, out, new String[]{"username", "age"},
+                (writer, row, count) -> writer.write(row.getUsername(), row.getAge()));
+    }
+
+    private <T> JPAQuery<T> streaming(JPAQuery<T> query) {
+        return query
+                .setHint(QueryHints.FETCH_SIZE, properties.getFetchSize())
+                .setHint(QueryHints.READ_ONLY, true);
+    }
+
+    private <T> long export(JPAQuery<T> source, ExportFormat format, OutputStream out, String[] columns, RowHandler<T> handler) {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        long count = 0;
+        try (CloseableIterator<T> rows = source.iterate()) {
+            RowWriter rowWriter = format.open(writer, objectMapper, columns);
+            while (rows.hasNext()) {
+                handler.handle(rowWriter, rows.next(), ++count);
+            }
+            rowWriter.flush();
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return count;
+    }
+
+    @FunctionalInterface
+    private interface RowHandler<T> {
+        void handle(RowWriter writer, T row, long count) throws IOException;
+    }
+}
@@ -0,0 +1,44 @@
+package com.irostub.learnquerydsl.service;
+
+import com.irostub.learnquerydsl.config.SearchProperties;
+import com.irostub.learnquerydsl.dto.MemberDto;
+import com.irostub.learnquerydsl.entity.MemberSearchCondition;
+import com.irostub.learnquerydsl.repository.MemberSearchEngine;
+import com.irostub.learnquerydsl.support.async.BoundedQueryExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+//검색 쿼리를 BoundedQueryExecutor 에서 읽기 전용 트랜잭션으로 실행한다
+//요청 스레드는 CompletableFuture 를 반환하고 바로 풀로 돌아가므로 대기 중인 검색 요청이 요청 스레드를 점유하지 않는다
+@Service
+public class MemberSearchService {
+    private final MemberSearchEngine searchEngine;
+    private final BoundedQueryExecutor executor;
+    private final SearchProperties properties;
+    private final TransactionTemplate readOnly;
+
+    public MemberSearchService(MemberSearchEngine searchEngine, BoundedQueryExecutor executor,
+                               SearchProperties properties, PlatformTransactionManager transactionManager) {
+        this.searchEngine = searchEngine;
+        this.executor = executor;
+        this.properties = properties;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        //트랜잭션 timeout 은 쿼리 timeout 으로도 적용되어, 응답이 504 로 끝난 뒤에도 쿼리가 커넥션을 오래 잡고 있지 않는다
+        this.readOnly.setTimeout((int) Math.max(1, properties.getTimeout().toSeconds()));
+    }
+
+    public CompletableFuture<List<MemberDto>> search(MemberSearchCondition condition, int size) {
+        int maxResults = Math.min(Math.max(size, 1), properties.getMaxResults());
+        //엔티티는 트랜잭션 안에서 dto 로 변환해 지연 로딩이 트랜잭션 밖으로 새지 않도록 한다
+        return executor.submit(() -> readOnly.execute(status -> searchEngine.search(condition, maxResults)
+                .stream()
+                .map(m -> new MemberDto(m.getUsername(), m.getAge()))
+                .collect(Collectors.toList())), properties.getTimeout());
+    }
+}
@@ -0,0 +1,10 @@
+package com.irostub.learnquerydsl.service;
+
+import java.io.IOException;
+
+//export 한 행을 출력 형식에 맞게 써 내려가는 writer
+public interface RowWriter {
+    void write(Object... values) throws IOException;
+
+    void flush() throws IOException;
+}
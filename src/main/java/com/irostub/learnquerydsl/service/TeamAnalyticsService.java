@@ -0,0 +1,86 @@
+package com.irostub.learnquerydsl.service;
+
+import com.irostub.learnquerydsl.dto.TeamAnalytics;
+import com.irostub.learnquerydsl.support.analytics.TeamAgeAggregator;
+import com.irostub.learnquerydsl.support.analytics.TeamAgeColumns;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+//대시보드의 팀 별 나이 통계를 db 의 group by 대신 메모리에서 계산한다
+//(team_id, age) 두 컬럼만 jdbc 로 원시 배열에 읽어 snapshotTtl 동안 재사용하므로
+//같은 대시보드를 반복해서 요청해도 group by 쿼리가 반복되지 않는다
+@Service
+public class TeamAnalyticsService {
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration snapshotTtl;
+    private final boolean parallel;
+    private volatile Snapshot snapshot;
+
+    public TeamAnalyticsService(DataSource dataSource,
+                                @Value("${app.analytics.fetch-size:10000}") int fetchSize,
+                                @Value("${app.analytics.snapshot-ttl:30s}") Duration snapshotTtl,
+                                @Value("${app.analytics.parallel:true}") boolean parallel) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.snapshotTtl = snapshotTtl;
+        this.parallel = parallel;
+    }
+
+    public TeamAnalytics analyze(double[] percentiles, int bucketWidth) {
+        Snapshot current = snapshot();
+        return new TeamAnalytics(current.loadedAt, current.columns.rowCount(), current.columns.sizeInBytes(),
+                percentiles.clone(), current.teamNames,
+                Arrays.asList(TeamAgeAggregator.summarize(current.columns, percentiles, bucketWidth, parallel)));
+    }
+
+    //데이터 변경을 바로 반영해야 할 때
+    public void refresh() {
+        snapshot = load();
+    }
+
+    private Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current != null && current.loadedAt.plus(snapshotTtl).isAfter(Instant.now())) {
+            return current;
+        }
+        //만료 시 동시에 들어온 요청이 모두 다시 읽지 않도록 한 스레드만 읽는다
+        synchronized (this) {
+            current = snapshot;
+            if (current == null || !current.loadedAt.plus(snapshotTtl).isAfter(Instant.now())) {
+                current = load();
+                snapshot = current;
+            }
+            return current;
+        }
+    }
+
+    private Snapshot load() {
+        Instant loadedAt = Instant.now();
+        TeamAgeColumns columns = TeamAgeColumns.read(jdbcTemplate);
+        Map<Long, String> teamNames = new HashMap<>();
+        jdbcTemplate.query("select id, name from team", rs -> {
+            teamNames.put(rs.getLong(1), rs.getString(2));
+        });
+        return new Snapshot(loadedAt, columns, teamNames);
+    }
+
+    private static class Snapshot {
+        private final Instant loadedAt;
+        private final TeamAgeColumns columns;
+        private final Map<Long, String> teamNames;
+
+        Snapshot(Instant loadedAt, TeamAgeColumns columns, Map<Long, String> teamNames) {
+            this.loadedAt = loadedAt;
+            this.columns = columns;
+            this.teamNames = teamNames;
+        }
+    }
+}
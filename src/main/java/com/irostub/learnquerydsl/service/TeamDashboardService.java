@@ -0,0 +1,52 @@
+package com.irostub.learnquerydsl.service;
+
+import com.irostub.learnquerydsl.config.SearchProperties;
+import com.irostub.learnquerydsl.dto.MemberDto;
+import com.irostub.learnquerydsl.dto.MemberDtoProjection;
+import com.irostub.learnquerydsl.dto.TeamDashboard;
+import com.irostub.learnquerydsl.dto.TeamStatsDto;
+import com.irostub.learnquerydsl.support.async.QueryBatch;
+import com.irostub.learnquerydsl.support.async.QueryFanOut;
+import com.irostub.learnquerydsl.support.async.QueryKey;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static com.irostub.learnquerydsl.entity.QMember.member;
+
+//대시보드 통계를 한 번에 만든다
+//- 팀 별 회원 수/평균 나이는 member 를 group by 하지 않고 미리 집계된 team_stats 를 팀 수만큼 읽는다
+//- 서로 의존하지 않는 나머지 쿼리는 QueryFanOut 으로 동시에 실행한다
+@Service
+public class TeamDashboardService {
+    private final QueryFanOut fanOut;
+    private final TeamStatsService statsService;
+    private final SearchProperties properties;
+
+    public TeamDashboardService(QueryFanOut fanOut, TeamStatsService statsService, SearchProperties properties) {
+        this.fanOut = fanOut;
+        this.statsService = statsService;
+        this.properties = properties;
+    }
+
+    public CompletableFuture<TeamDashboard> dashboard(int size) {
+        int limit = Math.min(Math.max(size, 1), properties.getMaxResults());
+
+        QueryBatch batch = new QueryBatch();
+        QueryKey<Long> total = batch.add("totalMembers", q -> q
+                .select(member.count())
+                .from(member)
+                .fetchOne());
+        QueryKey<List<TeamStatsDto>> teams = batch.add("teamStats", statsService::findAll);
+        QueryKey<List<MemberDto>> youngest = batch.add("youngestMembers", q -> q
+                .select(new MemberDtoProjection(member.username, member.age))
+                .from(member)
+                .orderBy(member.age.asc(), member.id.asc())
+                .limit(limit)
+                .fetch());
+
+        return fanOut.execute(batch, properties.getTimeout())
+                .thenApply(bundle -> new TeamDashboard(bundle.get(total), bundle.get(teams), bundle.get(youngest)));
+    }
+}
@@ -0,0 +1,150 @@
+package com.irostub.learnquerydsl.service;
+
+import com.irostub.learnquerydsl.dto.TeamStatsDto;
+import com.irostub.learnquerydsl.dto.TeamStatsDtoProjection;
+import com.irostub.learnquerydsl.entity.TeamStats;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.irostub.learnquerydsl.entity.QMember.member;
+import static com.irostub.learnquerydsl.entity.QTeam.team;
+import static com.irostub.learnquerydsl.entity.QTeamStats.teamStats;
+
+//팀 별 회원 수/평균 나이는 group by 대신 team_stats 를 팀 수만큼 읽는다
+//@Scheduled 는 생성된 빈에만 등록되므로 lazy-initialization(fast 프로필)에서도 즉시 생성한다
+@Slf4j
+@Lazy(false)
+@Service
+public class TeamStatsService {
+    private final EntityManager em;
+    private final JPAQueryFactory query;
+    private final Counter drift;
+    private final TransactionTemplate batchTransaction;
+    private final int batchSize;
+
+    public TeamStatsService(EntityManager em, JPAQueryFactory query, MeterRegistry meterRegistry,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${app.team-stats.reconcile-batch-size:500}") int batchSize) {
+        this.em = em;
+        this.query = query;
+        this.batchTransaction = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.drift = Counter.builder("team_stats.drift")
+                .description("team_stats rows corrected by reconciliation")
+                .register(meterRegistry);
+    }
+
+    @Transactional(readOnly = true)
+    public List<TeamStatsDto> findAll() {
+        return findAll(query);
+    }
+
+    //대시보드처럼 다른 스레드의 EntityManager 로 실행할 때 사용한다
+    public List<TeamStatsDto> findAll(JPAQueryFactory query) {
+        return query
+                .select(new TeamStatsDtoProjection(team.id, team.name, teamStats.memberCount, teamStats.ageSum))
+                .from(teamStats)
+                .join(team).on(team.id.eq(teamStats.teamId))
+                .orderBy(team.name.asc())
+                .fetch();
+    }
+
+    //member 테이블에서 다시 집계한 값과 비교해 어긋난 행을 바로잡고, 바로잡은 행 수를 반환한다
+    //팀 id 순으로 batchSize 개씩 나눠 배치마다 커밋하고, 배치의 team_stats 행만 먼저 잠그므로
+    //다른 팀의 증감분 반영은 기다리지 않는다
+    @Scheduled(fixedDelayString = "${app.team-stats.reconcile-interval:PT10M}",
+            initialDelayString = "${app.team-stats.reconcile-interval:PT10M}")
+    public int reconcile() {
+        List<String> corrected = new ArrayList<>();
+        long lastTeamId = Long.MIN_VALUE;
+        while (true) {
+            long from = lastTeamId;
+            List<Long> teamIds = batchTransaction.execute(status -> query
+                    .select(team.id)
+                    .from(team)
+                    .where(team.id.gt(from))
+                    .orderBy(team.id.asc())
+                    .limit(batchSize)
+                    .fetch());
+            //마지막 배치는 끝까지 열어 두어 삭제된 팀의 team_stats 행도 정리한다
+            boolean last = teamIds.size() < batchSize;
+            Long to = last ? null : teamIds.get(teamIds.size() - 1);
+            batchTransaction.executeWithoutResult(status -> corrected.addAll(reconcile(from, to)));
+            if (last) {
+                break;
+            }
+            lastTeamId = to;
+        }
+
+        if (!corrected.isEmpty()) {
+            log.warn("team_stats drift corrected: {}", corrected);
+            drift.increment(corrected.size());
+        }
+        return corrected.size();
+    }
+
+    //팀 id 가 (from, to] 인 팀, to 가 null 이면 from 이후 전부
+    private List<String> reconcile(long from, Long to) {
+        BooleanExpression statsRange = to != null ? teamStats.teamId.gt(from).and(teamStats.teamId.loe(to)) : teamStats.teamId.gt(from);
+        BooleanExpression teamRange = to != null ? team.id.gt(from).and(team.id.loe(to)) : team.id.gt(from);
+
+        Map<Long, TeamStats> stored = new HashMap<>();
+        for (TeamStats stats : query
+                .selectFrom(teamStats)
+                .where(statsRange)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .fetch()) {
+            stored.put(stats.getTeamId(), stats);
+        }
+
+        List<Tuple> actual = query
+                .select(team.id, member.count(), member.age.sum())
+                .from(team)
+                .leftJoin(team.members, member)
+                .where(teamRange)
+                .groupBy(team.id)
+                .fetch();
+
+        List<String> corrected = new ArrayList<>();
+        for (Tuple row : actual) {
+            //jpql 의 sum(integer) 는 Long 이므로 Number 로 읽는다
+            Object[] values = row.toArray();
+            Long teamId = (Long) values[0];
+            long memberCount = ((Number) values[1]).longValue();
+            long sum = values[2] != null ? ((Number) values[2]).longValue() : 0;
+
+            TeamStats stats = stored.remove(teamId);
+            if (stats == null) {
+                em.persist(TeamStats.createTeamStats(teamId, memberCount, sum));
+                corrected.add(teamId + " (missing)");
+            } else if (stats.getMemberCount() != memberCount || stats.getAgeSum() != sum) {
+                corrected.add(stats + " -> (" + memberCount + ", " + sum + ")");
+                stats.reset(memberCount, sum);
+            }
+        }
+        //jpql 로 삭제된 팀
+        for (TeamStats orphan : stored.values()) {
+            em.remove(orphan);
+            corrected.add(orphan + " (team removed)");
+        }
+        return corrected;
+    }
+}
@@ -0,0 +1,57 @@
+package com.irostub.learnquerydsl.support.analytics;
+
+import java.util.stream.IntStream;
+
+//TeamAgeColumns 에서 팀 별 count/sum/avg/min/max/백분위/히스토그램을 계산한다
+//팀 안의 나이는 이미 정렬되어 있으므로 min/max/백분위는 위치로 바로 읽고, 한 번의 순회로 합계와 히스토그램을 만든다
+//팀 단위로 나눠 병렬로 계산하며 행 단위로는 박싱이 없다
+public final class TeamAgeAggregator {
+
+    private TeamAgeAggregator() {
+    }
+
+    //percentiles 는 0 ~ 100, nearest-rank 방식
+    //histogram 은 팀의 최소 나이가 속한 구간부터 bucketWidth 간격
+    public static TeamAgeSummary[] summarize(TeamAgeColumns columns, double[] percentiles, int bucketWidth, boolean parallel) {
+        if (bucketWidth < 1) {
+            throw new IllegalArgumentException("bucket width must be positive: " + bucketWidth);
+        }
+        for (double percentile : percentiles) {
+            if (percentile < 0 || percentile > 100) {
+                throw new IllegalArgumentException("percentile must be between 0 and 100: " + percentile);
+            }
+        }
+
+        TeamAgeSummary[] summaries = new TeamAgeSummary[columns.teamCount()];
+        IntStream teams = IntStream.range(0, columns.teamCount());
+        (parallel ? teams.parallel() : teams)
+                .forEach(team -> summaries[team] = summarize(columns, team, percentiles, bucketWidth));
+        return summaries;
+    }
+
+    private static TeamAgeSummary summarize(TeamAgeColumns columns, int team, double[] percentiles, int bucketWidth) {
+        int from = columns.from(team);
+        int to = columns.to(team);
+        int count = to - from;
+        int min = columns.age(from);
+        int max = columns.age(to - 1);
+
+        int histogramStart = Math.floorDiv(min, bucketWidth) * bucketWidth;
+        int[] histogram = new int[Math.floorDiv(max - histogramStart, bucketWidth) + 1];
+        long sum = 0;
+        for (int row = from; row < to; row++) {
+            int age = columns.age(row);
+            sum += age;
+            histogram[(age - histogramStart) / bucketWidth]++;
+        }
+
+        int[] percentileValues = new int[percentiles.length];
+        for (int i = 0; i < percentiles.length; i++) {
+            int rank = (int) Math.ceil(percentiles[i] / 100 * count);
+            percentileValues[i] = columns.age(from + Math.max(rank, 1) - 1);
+        }
+
+        return new TeamAgeSummary(columns.teamId(team), count, sum, (double) sum / count, min, max,
+                percentileValues, histogramStart, bucketWidth, histogram);
+    }
+}
@@ -0,0 +1,95 @@
+package com.irostub.learnquerydsl.support.analytics;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.util.Arrays;
+
+//member 의 (team_id, age) 를 팀 순, 팀 안에서는 나이 순으로 정렬해 원시 배열에 담는다
+//- ages: 행 당 4바이트, 팀 별로 연속된 구간에 정렬되어 있다
+//- teamIds/offsets: 팀 당 12바이트, i 번째 팀의 나이는 ages[offsets[i], offsets[i + 1])
+//행 마다 Member/Tuple/Integer 객체를 만들지 않으므로 gc 대상이 배열 몇 개 뿐이다
+public class TeamAgeColumns {
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final long[] teamIds;
+    private final int[] offsets;
+    private final int[] ages;
+
+    TeamAgeColumns(long[] teamIds, int[] offsets, int[] ages) {
+        this.teamIds = teamIds;
+        this.offsets = offsets;
+        this.ages = ages;
+    }
+
+    //order by team_id, age 는 idx_member_team_age 인덱스 순서이므로 정렬 없이 읽는다
+    //팀이 없는 회원은 팀 별 통계 대상이 아니므로 제외한다
+    public static TeamAgeColumns read(JdbcTemplate jdbcTemplate) {
+        Loader loader = new Loader();
+        jdbcTemplate.query("select team_id, age from member where team_id is not null order by team_id, age",
+                (RowCallbackHandler) rs -> loader.add(rs.getLong(1), rs.getInt(2)));
+        return loader.build();
+    }
+
+    public int teamCount() {
+        return teamIds.length;
+    }
+
+    public int rowCount() {
+        return ages.length;
+    }
+
+    public long teamId(int team) {
+        return teamIds[team];
+    }
+
+    public int from(int team) {
+        return offsets[team];
+    }
+
+    public int to(int team) {
+        return offsets[team + 1];
+    }
+
+    public int age(int row) {
+        return ages[row];
+    }
+
+    //배열만 계산, jvm 객체 헤더 제외
+    public long sizeInBytes() {
+        return (long) teamIds.length * Long.BYTES + (long) offsets.length * Integer.BYTES + (long) ages.length * Integer.BYTES;
+    }
+
+    //RowCallbackHandler 에서 한 행씩 받아 배열을 두 배씩 늘려가며 채운다
+    static class Loader {
+        private long[] teamIds = new long[16];
+        private int[] offsets = new int[17];
+        private int[] ages = new int[INITIAL_CAPACITY];
+        private int teams;
+        private int rows;
+
+        void add(long teamId, int age) {
+            if (teams == 0 || teamIds[teams - 1] != teamId) {
+                if (teams > 0 && teamIds[teams - 1] > teamId) {
+                    throw new IllegalStateException("rows must be ordered by team_id");
+                }
+                if (teams == teamIds.length) {
+                    teamIds = Arrays.copyOf(teamIds, teams * 2);
+                    offsets = Arrays.copyOf(offsets, teams * 2 + 1);
+                }
+                teamIds[teams] = teamId;
+                offsets[teams] = rows;
+                teams++;
+            }
+            if (rows == ages.length) {
+                ages = Arrays.copyOf(ages, rows * 2);
+            }
+            ages[rows++] = age;
+        }
+
+        TeamAgeColumns build() {
+            offsets[teams] = rows;
+            return new TeamAgeColumns(Arrays.copyOf(teamIds, teams), Arrays.copyOf(offsets, teams + 1), Arrays.copyOf(ages, rows));
+        }
+    }
+}
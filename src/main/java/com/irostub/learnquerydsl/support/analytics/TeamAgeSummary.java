@@ -0,0 +1,23 @@
+package com.irostub.learnquerydsl.support.analytics;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+//팀 하나의 나이 통계, percentiles 는 요청한 백분위 순서대로
+//histogram[i] 는 [histogramStart + i * bucketWidth, histogramStart + (i + 1) * bucketWidth) 구간의 회원 수
+@Getter
+@ToString
+@AllArgsConstructor
+public class TeamAgeSummary {
+    private final long teamId;
+    private final long memberCount;
+    private final long ageSum;
+    private final double ageAvg;
+    private final int ageMin;
+    private final int ageMax;
+    private final int[] percentiles;
+    private final int histogramStart;
+    private final int bucketWidth;
+    private final int[] histogram;
+}
@@ -0,0 +1,125 @@
+package com.irostub.learnquerydsl.support.async;
+
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+//blocking jpa 쿼리를 요청 스레드가 아닌 전용 executor 에서 실행하고 CompletableFuture 로 돌려준다
+//- 동시에 실행되는 쿼리 수는 semaphore(maxConcurrency, 커넥션 풀 크기) 로 제한해 커넥션 대기로 풀이 고갈되지 않도록 한다
+//- 대기 + 실행 중인 작업 수가 maxPending 을 넘으면 큐에 쌓지 않고 바로 RejectedExecutionException 으로 실패시킨다
+//- timeout 이 지난 작업은 permit 을 얻은 뒤에도 쿼리를 실행하지 않는다
+//virtual thread 를 지원하는 jdk(21+) 에서는 작업 당 virtual thread 를, 아니면 maxConcurrency 크기의 고정 스레드 풀을 사용한다
+//taskDecorator 는 submit 을 호출한 스레드에서 작업을 감싸므로 요청 스레드의 ThreadLocal 상태를 작업 스레드로 넘길 수 있다
+public class BoundedQueryExecutor {
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final int maxConcurrency;
+    private final int maxPending;
+    private final AtomicInteger pending = new AtomicInteger();
+    private final boolean virtualThreads;
+    private final TaskDecorator taskDecorator;
+
+    public BoundedQueryExecutor(int maxConcurrency, int maxPending) {
+        this(maxConcurrency, maxPending, task -> task);
+    }
+
+    public BoundedQueryExecutor(int maxConcurrency, int maxPending, TaskDecorator taskDecorator) {
+        if (maxConcurrency < 1 || maxPending < maxConcurrency) {
+            throw new IllegalArgumentException("invalid bounds: maxConcurrency=" + maxConcurrency + ", maxPending=" + maxPending);
+        }
+        this.maxConcurrency = maxConcurrency;
+        this.maxPending = maxPending;
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.taskDecorator = taskDecorator;
+
+        ExecutorService virtual = newVirtualThreadPerTaskExecutor();
+        this.virtualThreads = virtual != null;
+        this.executor = virtual != null ? virtual : Executors.newFixedThreadPool(maxConcurrency, threadFactory());
+    }
+
+    public <T> CompletableFuture<T> submit(Supplier<T> task, Duration timeout) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        if (pending.incrementAndGet() > maxPending) {
+            pending.decrementAndGet();
+            result.completeExceptionally(new RejectedExecutionException("too many pending queries: " + maxPending));
+            return result;
+        }
+        try {
+            executor.execute(taskDecorator.decorate(() -> run(task, result)));
+        } catch (RejectedExecutionException e) {
+            pending.decrementAndGet();
+            result.completeExceptionally(e);
+            return result;
+        }
+        return result.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private <T> void run(Supplier<T> task, CompletableFuture<T> result) {
+        try {
+            if (result.isDone()) {
+                return;
+            }
+            permits.acquire();
+            try {
+                if (!result.isDone()) {
+                    result.complete(task.get());
+                }
+            } finally {
+                permits.release();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.completeExceptionally(e);
+        } catch (Throwable e) {
+            result.completeExceptionally(e);
+        } finally {
+            pending.decrementAndGet();
+        }
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public int getPending() {
+        return pending.get();
+    }
+
+    public int getActive() {
+        return maxConcurrency - permits.availablePermits();
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    //컴파일 타겟이 java 11 이므로 런타임에 메서드가 있을 때만 리플렉션으로 호출한다
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static CustomizableThreadFactory threadFactory() {
+        CustomizableThreadFactory factory = new CustomizableThreadFactory("query-");
+        factory.setDaemon(true);
+        return factory;
+    }
+}
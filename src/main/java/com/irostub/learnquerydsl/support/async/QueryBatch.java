@@ -0,0 +1,32 @@
+package com.irostub.learnquerydsl.support.async;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+//서로 의존하지 않는 쿼리 묶음
+//ex)
+//QueryBatch batch = new QueryBatch();
+//QueryKey<Long> count = batch.add("count", q -> q.select(member.count()).from(member).fetchOne());
+//QueryBundle bundle = queryFanOut.execute(batch, timeout).join();
+//Long total = bundle.get(count);
+public class QueryBatch {
+    private final Map<QueryKey<?>, Function<JPAQueryFactory, ?>> queries = new LinkedHashMap<>();
+
+    public <T> QueryKey<T> add(String name, Function<JPAQueryFactory, T> query) {
+        QueryKey<T> key = new QueryKey<>(name);
+        queries.put(key, query);
+        return key;
+    }
+
+    public int size() {
+        return queries.size();
+    }
+
+    Map<QueryKey<?>, Function<JPAQueryFactory, ?>> getQueries() {
+        return Collections.unmodifiableMap(queries);
+    }
+}
@@ -0,0 +1,21 @@
+package com.irostub.learnquerydsl.support.async;
+
+import java.util.Map;
+
+//QueryBatch 의 모든 쿼리 결과
+public class QueryBundle {
+    private final Map<QueryKey<?>, Object> results;
+
+    QueryBundle(Map<QueryKey<?>, Object> results) {
+        this.results = results;
+    }
+
+    //QueryKey<T> 는 QueryBatch.add 에서 T 를 반환하는 쿼리와 함께만 만들어지므로 안전하다
+    @SuppressWarnings("unchecked")
+    public <T> T get(QueryKey<T> key) {
+        if (!results.containsKey(key)) {
+            throw new IllegalArgumentException("unknown query key: " + key);
+        }
+        return (T) results.get(key);
+    }
+}
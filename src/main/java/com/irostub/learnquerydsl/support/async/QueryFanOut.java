@@ -0,0 +1,59 @@
+package com.irostub.learnquerydsl.support.async;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+//QueryBatch 의 쿼리를 BoundedQueryExecutor 에서 동시에 실행한다
+//쿼리마다 별도 읽기 전용 트랜잭션(= 별도 EntityManager, 커넥션)을 사용하므로
+//전체 지연시간은 쿼리 지연시간의 합이 아니라 가장 느린 쿼리에 가깝다
+//하나라도 실패하면 아직 시작하지 않은 나머지 쿼리는 취소하고 그 예외로 실패한다
+@Component
+public class QueryFanOut {
+    private final BoundedQueryExecutor executor;
+    private final JPAQueryFactory query;
+    private final TransactionTemplate readOnly;
+
+    public QueryFanOut(BoundedQueryExecutor executor, JPAQueryFactory query, PlatformTransactionManager transactionManager) {
+        this.executor = executor;
+        this.query = query;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+    }
+
+    public CompletableFuture<QueryBundle> execute(QueryBatch batch, Duration timeout) {
+        Map<QueryKey<?>, CompletableFuture<?>> futures = new LinkedHashMap<>();
+        for (Map.Entry<QueryKey<?>, Function<JPAQueryFactory, ?>> entry : batch.getQueries().entrySet()) {
+            Function<JPAQueryFactory, ?> task = entry.getValue();
+            futures.put(entry.getKey(), executor.submit(() -> readOnly.execute(status -> task.apply(query)), timeout));
+        }
+
+        CompletableFuture<QueryBundle> bundle = new CompletableFuture<>();
+        for (CompletableFuture<?> future : futures.values()) {
+            future.whenComplete((result, e) -> {
+                if (e != null && bundle.completeExceptionally(unwrap(e))) {
+                    futures.values().forEach(other -> other.cancel(false));
+                }
+            });
+        }
+        CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[0])).thenRun(() -> {
+            Map<QueryKey<?>, Object> results = new HashMap<>();
+            futures.forEach((key, future) -> results.put(key, future.join()));
+            bundle.complete(new QueryBundle(results));
+        });
+        return bundle;
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+}
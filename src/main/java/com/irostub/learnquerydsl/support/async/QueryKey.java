@@ -0,0 +1,20 @@
+package com.irostub.learnquerydsl.support.async;
+
+//QueryBatch 에 추가한 쿼리의 결과를 QueryBundle 에서 타입 안전하게 꺼내기 위한 key
+//같은 이름이라도 add 할 때마다 다른 key 이다
+public final class QueryKey<T> {
+    private final String name;
+
+    QueryKey(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return "QueryKey(" + name + ")";
+    }
+}
@@ -0,0 +1,127 @@
+package com.irostub.learnquerydsl.support.metrics;
+
+import com.mysema.commons.lang.CloseableIterator;
+import com.querydsl.core.QueryResults;
+import com.querydsl.jpa.impl.JPAQuery;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.Map;
+
+//fetch 계열 호출의 실행 시간과 결과 행 수를 QueryMetrics 에 기록하는 JPAQuery
+//select()/from() 등은 같은 인스턴스를 반환하므로 JPAQueryFactory 로 만든 쿼리 전체에 적용된다
+//쿼리 모양(jpql)은 createQuery 가 한 번 직렬화해 logQuery 로 넘기는 문자열을 그대로 쓰므로 다시 직렬화하지 않는다
+//fetchCount 는 count jpql 이 그대로 기록되므로 같은 조건의 목록 조회와 모양이 구분된다
+public class InstrumentedJPAQuery<T> extends JPAQuery<T> {
+    private final EntityManager em;
+    private final QueryMetrics metrics;
+    private String jpql;
+
+    public InstrumentedJPAQuery(EntityManager em, QueryMetrics metrics) {
+        super(em);
+        this.em = em;
+        this.metrics = metrics;
+    }
+
+    @Override
+    protected void logQuery(String queryString, Map<Object, String> parameters) {
+        this.jpql = queryString;
+        super.logQuery(queryString, parameters);
+    }
+
+    @Override
+    public List<T> fetch() {
+        long start = System.nanoTime();
+        List<T> result = super.fetch();
+        metrics.record(jpql, System.nanoTime() - start, result.size(), em);
+        return result;
+    }
+
+    @Override
+    public T fetchOne() {
+        long start = System.nanoTime();
+        T result = super.fetchOne();
+        metrics.record(jpql, System.nanoTime() - start, result != null ? 1 : 0, em);
+        return result;
+    }
+
+    //count 와 목록 두 쿼리를 실행하지만 마지막으로 만든 쿼리(결과가 있으면 목록)의 모양으로 한 번 기록한다
+    @Override
+    public QueryResults<T> fetchResults() {
+        long start = System.nanoTime();
+        QueryResults<T> result = super.fetchResults();
+        metrics.record(jpql, System.nanoTime() - start, result.getResults().size(), em);
+        return result;
+    }
+
+    @Override
+    public long fetchCount() {
+        long start = System.nanoTime();
+        long count = super.fetchCount();
+        metrics.record(jpql, System.nanoTime() - start, 1, em);
+        return count;
+    }
+
+    //결과를 끝까지 읽거나 close 할 때 실행부터 그때까지의 시간과 읽은 행 수를 기록한다
+    @Override
+    public CloseableIterator<T> iterate() {
+        long start = System.nanoTime();
+        CloseableIterator<T> iterator = super.iterate();
+        return new RecordingIterator<>(iterator, jpql, start, metrics, em);
+    }
+
+    private static final class RecordingIterator<T> implements CloseableIterator<T> {
+        private final CloseableIterator<T> delegate;
+        private final String jpql;
+        private final long start;
+        private final QueryMetrics metrics;
+        private final EntityManager em;
+        private int rows;
+        private boolean recorded;
+
+        RecordingIterator(CloseableIterator<T> delegate, String jpql, long start, QueryMetrics metrics, EntityManager em) {
+            this.delegate = delegate;
+            this.jpql = jpql;
+            this.start = start;
+            this.metrics = metrics;
+            this.em = em;
+        }
+
+        @Override
+        public boolean hasNext() {
+            boolean hasNext = delegate.hasNext();
+            if (!hasNext) {
+                record();
+            }
+            return hasNext;
+        }
+
+        @Override
+        public T next() {
+            T next = delegate.next();
+            rows++;
+            return next;
+        }
+
+        @Override
+        public void remove() {
+            delegate.remove();
+        }
+
+        @Override
+        public void close() {
+            try {
+                delegate.close();
+            } finally {
+                record();
+            }
+        }
+
+        private void record() {
+            if (!recorded) {
+                recorded = true;
+                metrics.record(jpql, System.nanoTime() - start, rows, em);
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.irostub.learnquerydsl.support.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+//쿼리 모양(jpql) 별 지연시간 histogram, 반환 행 수, 영속성 컨텍스트 크기를 micrometer 로 기록한다
+//querydsl 은 상수를 파라미터(?1)로 직렬화하므로 같은 모양의 쿼리는 같은 jpql, 같은 fingerprint 를 갖는다
+//sql 로그를 끄고도 어떤 쿼리가 느린지 /actuator/metrics/querydsl.query?tag=shape:{fingerprint} 로 확인할 수 있다
+@Component
+public class QueryMetrics {
+    static final String OVERFLOW = "overflow";
+
+    private final MeterRegistry registry;
+    private final int maxShapes;
+    private final ConcurrentMap<String, Shape> shapes = new ConcurrentHashMap<>();
+
+    public QueryMetrics(MeterRegistry registry, @Value("${app.query-metrics.max-shapes:500}") int maxShapes) {
+        this.registry = registry;
+        this.maxShapes = maxShapes;
+    }
+
+    public void record(String jpql, long elapsedNanos, int rows, EntityManager em) {
+        Shape shape = shapes.get(jpql);
+        if (shape == null) {
+            //쿼리 모양이 무한히 늘어나 meter 태그가 폭발하지 않도록 상한을 둔다
+            shape = shapes.size() < maxShapes
+                    ? shapes.computeIfAbsent(jpql, this::register)
+                    : shapes.computeIfAbsent(OVERFLOW, this::register);
+        }
+        shape.timer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        shape.rows.record(rows);
+
+        //트랜잭션 밖에서는 공유 EntityManager 가 호출마다 새로 만들어지므로 의미가 없다
+        if (em != null && TransactionSynchronizationManager.isActualTransactionActive()) {
+            shape.persistenceContext.record(em.unwrap(Session.class).getStatistics().getEntityCount());
+        }
+    }
+
+    public Collection<Shape> shapes() {
+        return new ArrayList<>(shapes.values());
+    }
+
+    private Shape register(String jpql) {
+        String fingerprint = OVERFLOW.equals(jpql) ? OVERFLOW : fingerprint(jpql);
+        return new Shape(fingerprint, jpql,
+                Timer.builder("querydsl.query")
+                        .description("QueryDSL query latency by query shape")
+                        .tag("shape", fingerprint)
+                        .publishPercentileHistogram()
+                        .register(registry),
+                DistributionSummary.builder("querydsl.query.rows")
+                        .description("Rows returned by query shape")
+                        .tag("shape", fingerprint)
+                        .register(registry),
+                DistributionSummary.builder("querydsl.persistence.context.entities")
+                        .description("Managed entities in the persistence context after the query")
+                        .tag("shape", fingerprint)
+                        .register(registry));
+    }
+
+    //공백 차이를 무시한 jpql 의 sha-256 앞 12자리, 재기동/서버가 달라도 같은 값
+    static String fingerprint(String jpql) {
+        String normalized = jpql.replaceAll("\\s+", " ").trim();
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(normalized.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (int i = 0; i < 6; i++) {
+                hex.append(String.format("%02x", digest[i]));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Getter
+    public static class Shape {
+        private final String fingerprint;
+        private final String jpql;
+        private final Timer timer;
+        private final DistributionSummary rows;
+        private final DistributionSummary persistenceContext;
+
+        Shape(String fingerprint, String jpql, Timer timer, DistributionSummary rows, DistributionSummary persistenceContext) {
+            this.fingerprint = fingerprint;
+            this.jpql = jpql;
+            this.timer = timer;
+            this.rows = rows;
+            this.persistenceContext = persistenceContext;
+        }
+    }
+}
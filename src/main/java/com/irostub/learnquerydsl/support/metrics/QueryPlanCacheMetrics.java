@@ -0,0 +1,37 @@
+package com.irostub.learnquerydsl.support.metrics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+
+//hibernate query plan cache(jpql -> sql 변환 결과) hit ratio 를 micrometer 로 노출한다
+//hit, miss 횟수는 spring boot 의 hibernate 지표(hibernate.cache.query.plan?tag=result:hit)를 사용한다
+//커넥션 풀 지표는 spring boot 가 hikaricp.connections.* 로 노출한다
+//ex) /actuator/metrics/hibernate.query.plan.cache.hit.ratio
+@Component
+public class QueryPlanCacheMetrics implements MeterBinder {
+    private final EntityManagerFactory emf;
+
+    //fast 프로필은 EntityManagerFactory 를 백그라운드에서 만들므로 Statistics 는 값을 읽을 때 꺼낸다
+    public QueryPlanCacheMetrics(EntityManagerFactory emf) {
+        this.emf = emf;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("hibernate.query.plan.cache.hit.ratio", this, QueryPlanCacheMetrics::hitRatio)
+                .register(registry);
+    }
+
+    public double hitRatio() {
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        long hits = statistics.getQueryPlanCacheHitCount();
+        long lookups = hits + statistics.getQueryPlanCacheMissCount();
+        return lookups == 0 ? Double.NaN : (double) hits / lookups;
+    }
+}
@@ -0,0 +1,41 @@
+package com.irostub.learnquerydsl.support.metrics;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+//fingerprint 와 jpql 을 매핑해서 보여주는 actuator endpoint (/actuator/queryshapes)
+//누적 시간이 큰 순서로 정렬
+@Component
+@Endpoint(id = "queryshapes")
+public class QueryShapesEndpoint {
+    private final QueryMetrics metrics;
+
+    public QueryShapesEndpoint(QueryMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @ReadOperation
+    public List<Map<String, Object>> shapes() {
+        return metrics.shapes().stream()
+                .sorted(Comparator.comparingDouble((QueryMetrics.Shape shape) -> shape.getTimer().totalTime(TimeUnit.MILLISECONDS)).reversed())
+                .map(shape -> {
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    row.put("fingerprint", shape.getFingerprint());
+                    row.put("jpql", shape.getJpql());
+                    row.put("count", shape.getTimer().count());
+                    row.put("totalMs", shape.getTimer().totalTime(TimeUnit.MILLISECONDS));
+                    row.put("maxMs", shape.getTimer().max(TimeUnit.MILLISECONDS));
+                    row.put("meanRows", shape.getRows().mean());
+                    return row;
+                })
+                .collect(Collectors.toList());
+    }
+}
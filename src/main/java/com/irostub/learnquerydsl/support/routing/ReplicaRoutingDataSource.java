@@ -0,0 +1,44 @@
+package com.irostub.learnquerydsl.support.routing;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.Map;
+
+//read-only 트랜잭션은 replica 로, 그 외(쓰기 트랜잭션, 트랜잭션 밖의 flyway/ddl 등)는 primary 로 보낸다
+//트랜잭션 시작 시점에는 read-only 여부가 아직 동기화되지 않으므로 LazyConnectionDataSourceProxy 로 감싸
+//첫 문장을 실행할 때 커넥션을 고르도록 해야 한다
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    static final String PRIMARY = "primary";
+
+    private final ReplicaSet replicaSet;
+    private final WriteStickiness stickiness;
+
+    public ReplicaRoutingDataSource(ReplicaSet replicaSet, WriteStickiness stickiness) {
+        this.replicaSet = replicaSet;
+        this.stickiness = stickiness;
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, replicaSet.getPrimary());
+        for (ReplicaSet.Replica replica : replicaSet.getReplicas()) {
+            targets.put(replica.getKey(), replica.getDataSource());
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(replicaSet.getPrimary());
+        setLenientFallback(false);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            stickiness.onWriteTransaction();
+            return PRIMARY;
+        }
+        if (stickiness.isSticky()) {
+            return PRIMARY;
+        }
+        ReplicaSet.Replica replica = replicaSet.next();
+        return replica != null ? replica.getKey() : PRIMARY;
+    }
+}
@@ -0,0 +1,114 @@
+package com.irostub.learnquerydsl.support.routing;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//primary 와 replica 커넥션 풀을 갖고, replica 마다 연결 가능 여부와 복제 지연을 주기적으로 확인한다
+//연결할 수 없거나 지연이 maxLag 보다 큰 replica 는 건너뛰고, 남은 replica 를 돌아가며 고른다
+@Slf4j
+public class ReplicaSet implements Closeable {
+    @Getter
+    private final HikariDataSource primary;
+    @Getter
+    private final List<Replica> replicas;
+    private final Duration maxLag;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaSet(HikariDataSource primary, List<Replica> replicas, Duration maxLag) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.maxLag = maxLag;
+    }
+
+    //보낼 수 있는 replica 가 없으면 null, 호출자는 primary 를 사용한다
+    public Replica next() {
+        int size = replicas.size();
+        if (size == 0) {
+            return null;
+        }
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.isAvailable(maxLag)) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    //사용 가능한 replica 중 가장 큰 복제 지연
+    public Duration maxObservedLag() {
+        Duration max = Duration.ZERO;
+        for (Replica replica : replicas) {
+            if (replica.isAvailable(maxLag) && replica.lag.compareTo(max) > 0) {
+                max = replica.lag;
+            }
+        }
+        return max;
+    }
+
+    @Scheduled(fixedDelayString = "${app.routing.health-check-interval:PT5S}")
+    public void check() {
+        for (Replica replica : replicas) {
+            replica.check();
+        }
+    }
+
+    @Override
+    public void close() {
+        for (Replica replica : replicas) {
+            replica.dataSource.close();
+        }
+        primary.close();
+    }
+
+    @Getter
+    public static class Replica {
+        private final String key;
+        private final HikariDataSource dataSource;
+        private final String lagQuery;
+        private volatile boolean healthy = true;
+        private volatile Duration lag = Duration.ZERO;
+
+        public Replica(String key, HikariDataSource dataSource, String lagQuery) {
+            this.key = key;
+            this.dataSource = dataSource;
+            this.lagQuery = lagQuery;
+        }
+
+        boolean isAvailable(Duration maxLag) {
+            return healthy && lag.compareTo(maxLag) <= 0;
+        }
+
+        void check() {
+            try (Connection connection = dataSource.getConnection()) {
+                if (lagQuery == null) {
+                    healthy = connection.isValid(1);
+                    lag = Duration.ZERO;
+                    return;
+                }
+                try (Statement statement = connection.createStatement();
+                     ResultSet rs = statement.executeQuery(lagQuery)) {
+                    lag = rs.next() ? Duration.ofMillis((long) (rs.getDouble(1) * 1000)) : Duration.ZERO;
+                    healthy = true;
+                }
+            } catch (SQLException e) {
+                if (healthy) {
+                    log.warn("replica {} is unavailable", key, e);
+                }
+                healthy = false;
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.irostub.learnquerydsl.support.routing;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.WebUtils;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+//쓰기 후 primary 유지 시한을 쿠키로 다음 요청에 넘긴다
+//쿠키는 커밋 직후(afterCommit) 추가하므로 응답 본문을 쓰기 전이다
+//쿠키는 클라이언트가 바꿀 수 있으므로 지난 시한은 버리고, 먼 미래의 시한은 지금부터 window 까지로 줄인다
+public class RoutingStickinessFilter extends OncePerRequestFilter {
+    static final String COOKIE = "primary-until";
+
+    private final WriteStickiness stickiness;
+
+    public RoutingStickinessFilter(WriteStickiness stickiness) {
+        this.stickiness = stickiness;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        stickiness.bind(primaryUntil(request, stickiness), until -> {
+            Cookie cookie = new Cookie(COOKIE, Long.toString(until));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) Math.max(1, (until - System.currentTimeMillis() + 999) / 1000));
+            response.addCookie(cookie);
+        });
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            stickiness.unbind();
+        }
+    }
+
+    static Long primaryUntil(HttpServletRequest request, WriteStickiness stickiness) {
+        Cookie cookie = WebUtils.getCookie(request, COOKIE);
+        if (cookie == null) {
+            return null;
+        }
+        long until;
+        try {
+            until = Long.parseLong(cookie.getValue());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        if (until <= now) {
+            return null;
+        }
+        return Math.min(until, now + stickiness.window().toMillis());
+    }
+}
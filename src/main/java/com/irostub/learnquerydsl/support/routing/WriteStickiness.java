@@ -0,0 +1,106 @@
+package com.irostub.learnquerydsl.support.routing;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.function.LongConsumer;
+
+//쓰기 트랜잭션이 커밋된 뒤 replica 에 반영되기 전까지 같은 사용자의 조회를 primary 로 보낸다 (read-your-writes)
+//primary 유지 시한은 스레드에 두고, 웹 요청 사이에서는 RoutingStickinessFilter 가 쿠키로 이어준다
+//executor 작업 스레드로는 propagate 로 감싼 작업이 요청 스레드와 같은 시한을 공유한다
+public class WriteStickiness {
+    private final ThreadLocal<Binding> binding = new ThreadLocal<>();
+    private final Duration stickyWindow;
+    private final ReplicaSet replicaSet;
+
+    public WriteStickiness(Duration stickyWindow, ReplicaSet replicaSet) {
+        this.stickyWindow = stickyWindow;
+        this.replicaSet = replicaSet;
+    }
+
+    public boolean isSticky() {
+        Binding current = binding.get();
+        return current != null && current.primaryUntil > System.currentTimeMillis();
+    }
+
+    //측정된 복제 지연이 설정값보다 길면 그만큼 더 primary 를 유지한다
+    public Duration window() {
+        Duration lag = replicaSet.maxObservedLag();
+        return lag.compareTo(stickyWindow) > 0 ? lag : stickyWindow;
+    }
+
+    //primary 커넥션을 잡은 쓰기 트랜잭션마다 한 번, 커밋된 경우에만 시한을 늘린다
+    void onWriteTransaction() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive() || TransactionSynchronizationManager.hasResource(this)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                Binding current = binding.get();
+                if (current == null) {
+                    current = new Binding(null, null);
+                    binding.set(current);
+                }
+                current.extend(System.currentTimeMillis() + window().toMillis());
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(WriteStickiness.this);
+            }
+        });
+    }
+
+    //요청 시작 시 이전 요청에서 넘어온 시한을 복원하고, 이번 요청에서 시한이 늘어나면 listener 로 알린다
+    public void bind(Long until, LongConsumer onExtended) {
+        binding.set(new Binding(until, onExtended));
+    }
+
+    //풀링된 스레드에 다른 사용자의 시한이 남지 않도록 요청이 끝나면 지운다
+    public void unbind() {
+        binding.remove();
+    }
+
+    //submit 하는 스레드의 시한을 작업 스레드에서 그대로 쓰고, 작업 안의 커밋도 같은 시한과 listener 에 반영한다
+    //호출한 스레드에 시한이 없으면 작업마다 새로 만들어 작업 스레드에 다른 작업의 시한이 남지 않도록 한다
+    public Runnable propagate(Runnable task) {
+        Binding captured = binding.get();
+        return () -> {
+            Binding previous = binding.get();
+            binding.set(captured != null ? captured : new Binding(null, null));
+            try {
+                task.run();
+            } finally {
+                if (previous != null) {
+                    binding.set(previous);
+                } else {
+                    binding.remove();
+                }
+            }
+        };
+    }
+
+    //요청 스레드와 fan-out 작업 스레드가 함께 쓰므로 시한은 volatile 로, 연장과 알림은 한 번에 하나씩 한다
+    private static class Binding {
+        private final LongConsumer listener;
+        private volatile long primaryUntil;
+
+        private Binding(Long primaryUntil, LongConsumer listener) {
+            this.primaryUntil = primaryUntil != null ? primaryUntil : 0L;
+            this.listener = listener;
+        }
+
+        private synchronized void extend(long until) {
+            if (until <= primaryUntil) {
+                return;
+            }
+            primaryUntil = until;
+            if (listener != null) {
+                listener.accept(until);
+            }
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.irostub.learnquerydsl.support.search;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+//문자열을 3글자 조각(trigram)으로 나눠 조각 -> id 목록을 메모리에 유지하는 역색인
+//like '%abc%' 같은 중간 일치는 b-tree 인덱스를 쓸 수 없으므로, 여기서 후보 id 를 먼저 좁히고 db 에서 원래 조건으로 다시 확인한다
+//대소문자를 구분하지 않으므로 후보는 실제 결과의 상위 집합이다
+public class TrigramIndex {
+    static final int GRAM = 3;
+
+    private final Map<String, Set<Long>> postings = new HashMap<>();
+    private final Map<Long, String> documents = new HashMap<>();
+    //유사도 계산용 문서 별 (경계 포함) 조각 수
+    private final Map<Long, Integer> gramCounts = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public void put(long id, String text) {
+        String normalized = normalize(text);
+        lock.writeLock().lock();
+        try {
+            String previous = documents.put(id, normalized);
+            if (normalized.equals(previous)) {
+                return;
+            }
+            if (previous != null) {
+                unindex(id, previous);
+            }
+            Set<String> grams = trigrams(normalized, true);
+            for (String gram : grams) {
+                postings.computeIfAbsent(gram, g -> new HashSet<>()).add(id);
+            }
+            gramCounts.put(id, grams.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            String previous = documents.remove(id);
+            if (previous != null) {
+                unindex(id, previous);
+            }
+            gramCounts.remove(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            gramCounts.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //모든 fragment 를 포함하는 후보 id
+    //3글자 이상인 fragment 가 없으면 후보를 좁힐 수 없으므로 null
+    public Set<Long> candidates(Collection<String> fragments) {
+        List<String> grams = new ArrayList<>();
+        for (String fragment : fragments) {
+            grams.addAll(trigrams(normalize(fragment), false));
+        }
+        if (grams.isEmpty()) {
+            return null;
+        }
+
+        lock.readLock().lock();
+        try {
+            //가장 짧은 목록부터 교집합
+            grams.sort(Comparator.comparingInt(gram -> postings.getOrDefault(gram, Collections.emptySet()).size()));
+            Set<Long> result = null;
+            for (String gram : grams) {
+                Set<Long> ids = postings.get(gram);
+                if (ids == null) {
+                    return Collections.emptySet();
+                }
+                if (result == null) {
+                    result = new HashSet<>(ids);
+                } else {
+                    result.retainAll(ids);
+                }
+                if (result.isEmpty()) {
+                    break;
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //오타가 섞인 입력을 위해 trigram 자카드 유사도가 threshold 이상인 id 를 유사도 순으로 반환
+    //유사도가 threshold 이상이면 공유 조각이 threshold * |grams| 개 이상이므로 (prefix filtering)
+    //가장 드문 조각 |grams| - minShared + 1 개의 목록에서만 후보를 모은다
+    //앞 경계 조각처럼 거의 모든 문서에 있는 조각의 목록은 훑지 않고 후보 확인에만 쓴다
+    public List<Long> similar(String term, double threshold, int limit) {
+        Set<String> grams = trigrams(normalize(term), true);
+        if (grams.isEmpty()) {
+            return Collections.emptyList();
+        }
+        int minShared = Math.max(1, (int) Math.ceil(threshold * grams.size()));
+
+        List<Map.Entry<Long, Double>> scored = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            List<Set<Long>> lists = new ArrayList<>(grams.size());
+            for (String gram : grams) {
+                lists.add(postings.getOrDefault(gram, Collections.emptySet()));
+            }
+            lists.sort(Comparator.comparingInt(Set::size));
+
+            Set<Long> candidates = new HashSet<>();
+            for (int i = 0; i < lists.size() - minShared + 1; i++) {
+                candidates.addAll(lists.get(i));
+            }
+            for (Long id : candidates) {
+                int shared = 0;
+                for (Set<Long> ids : lists) {
+                    if (ids.contains(id)) {
+                        shared++;
+                    }
+                }
+                double similarity = (double) shared / (grams.size() + gramCounts.get(id) - shared);
+                if (similarity >= threshold) {
+                    scored.add(Map.entry(id, similarity));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        scored.sort(Map.Entry.<Long, Double>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < scored.size() && i < limit; i++) {
+            ids.add(scored.get(i).getKey());
+        }
+        return ids;
+    }
+
+    private void unindex(long id, String text) {
+        for (String gram : trigrams(text, true)) {
+            Set<Long> ids = postings.get(gram);
+            if (ids != null && ids.remove(id) && ids.isEmpty()) {
+                postings.remove(gram);
+            }
+        }
+    }
+
+    //padded 는 앞뒤 경계를 포함한 조각도 만든다 (저장, 유사도용)
+    //중간 일치 fragment 는 경계를 알 수 없으므로 padded = false 로 내부 조각만 사용한다
+    static Set<String> trigrams(String text, boolean padded) {
+        String source = padded ? "  " + text + " " : text;
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM <= source.length(); i++) {
+            grams.add(source.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,59 @@
+package com.irostub.learnquerydsl.support.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+//Member.username trigram 색인
+//기동 시 member 테이블로 한 번 채우고, 이후는 UsernameIndexListener 가 커밋된 변경만 반영한다
+//벌크 jpql(update/delete) 은 엔티티 콜백을 거치지 않는다
+//- 색인에 남은 옛 이름/삭제된 id 는 db 에서 원래 조건으로 다시 거르므로 결과에 섞이지 않는다
+//- 바뀐 새 이름은 색인에 없으므로 중간 일치 검색에서 빠진다
+//  MemberBulkOperationService 는 청크 커밋 후 직접 반영하고, 그 밖에서 username 을 벌크로 바꾸면 rebuild() 를 호출해야 한다
+@Slf4j
+@Component
+public class UsernameIndex {
+    private final TrigramIndex index = new TrigramIndex();
+    private final JdbcTemplate jdbcTemplate;
+
+    //엔티티 리스너가 EntityManagerFactory 생성 중에 만들어지므로 EntityManager 대신 jdbc 로 읽어 순환 의존을 피한다
+    public UsernameIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.nanoTime();
+        index.clear();
+        jdbcTemplate.query("select id, username from member", rs -> {
+            index.put(rs.getLong(1), rs.getString(2));
+        });
+        log.info("username index rebuilt: {} members in {} ms", index.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public void put(long id, String username) {
+        index.put(id, username);
+    }
+
+    public void remove(long id) {
+        index.remove(id);
+    }
+
+    public Set<Long> candidates(Collection<String> fragments) {
+        return index.candidates(fragments);
+    }
+
+    public List<Long> similar(String term, double threshold, int limit) {
+        return index.similar(term, threshold, limit);
+    }
+
+    public int size() {
+        return index.size();
+    }
+}
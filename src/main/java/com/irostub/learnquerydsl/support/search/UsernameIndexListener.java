@@ -0,0 +1,48 @@
+package com.irostub.learnquerydsl.support.search;
+
+import com.irostub.learnquerydsl.entity.Member;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+//spring boot 가 hibernate 에 SpringBeanContainer 를 등록하므로 엔티티 리스너도 스프링 빈으로 생성된다
+//롤백된 변경이 색인에 남지 않도록 트랜잭션이 있으면 커밋 후에 반영한다
+@Component
+public class UsernameIndexListener {
+    private final UsernameIndex index;
+
+    public UsernameIndexListener(UsernameIndex index) {
+        this.index = index;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void index(Member member) {
+        Long id = member.getId();
+        String username = member.getUsername();
+        afterCommit(() -> index.put(id, username));
+    }
+
+    @PostRemove
+    public void remove(Member member) {
+        Long id = member.getId();
+        afterCommit(() -> index.remove(id));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
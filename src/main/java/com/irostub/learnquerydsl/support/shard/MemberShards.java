@@ -0,0 +1,63 @@
+package com.irostub.learnquerydsl.support.shard;
+
+import org.flywaydb.core.Flyway;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+//member 를 team_id 해시로 나눠 저장하는 shard 스키마 목록과 분배 함수
+//팀과 그 팀의 회원은 항상 같은 shard 에 있고, 팀이 없는 회원은 0 번 shard 에 있다
+public class MemberShards {
+    //모든 shard 의 team, member id 를 할당하는 public 스키마의 시퀀스
+    static final String SEQUENCE = "member_shard_seq";
+    private static final long GOLDEN_RATIO = 0x9E3779B97F4A7C15L;
+
+    private final List<String> schemas;
+
+    public MemberShards(int shards, String schemaPrefix) {
+        if (shards < 1) {
+            throw new IllegalArgumentException("shards must be positive: " + shards);
+        }
+        List<String> names = new ArrayList<>(shards);
+        for (int i = 0; i < shards; i++) {
+            names.add((schemaPrefix + i).toUpperCase());
+        }
+        this.schemas = Collections.unmodifiableList(names);
+    }
+
+    public int count() {
+        return schemas.size();
+    }
+
+    public String schema(int shard) {
+        return schemas.get(shard);
+    }
+
+    public List<String> schemas() {
+        return schemas;
+    }
+
+    //연속된 id 가 한 shard 에 몰리지 않도록 섞은 뒤 나눈다
+    public int shardOf(Long teamId) {
+        if (teamId == null) {
+            return 0;
+        }
+        return Math.floorMod(Long.hashCode(teamId * GOLDEN_RATIO), schemas.size());
+    }
+
+    //shard 마다 db/shard 마이그레이션을 적용하고 id 시퀀스를 만든다
+    public void migrate(DataSource dataSource) {
+        for (String schema : schemas) {
+            Flyway.configure()
+                    .dataSource(dataSource)
+                    .schemas(schema)
+                    .locations("classpath:db/shard")
+                    .load()
+                    .migrate();
+        }
+        new JdbcTemplate(dataSource).execute("create sequence if not exists " + SEQUENCE + " start with 1 increment by 1");
+    }
+}
@@ -0,0 +1,143 @@
+package com.irostub.learnquerydsl.support.shard;
+
+import com.irostub.learnquerydsl.entity.Team;
+import com.querydsl.core.JoinExpression;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Path;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static com.irostub.learnquerydsl.entity.QMember.member;
+
+//where 절에서 member.team 을 상수로 고정하는 조건을 찾아 조회할 shard 만 남긴다
+//- member.team.id.eq(1L), member.team.id.in(...), member.team.eq(team), member.team.isNull()
+//- join(member.team, team) 으로 만든 별칭의 team.id 조건도 같은 의미로 본다
+//- and 는 교집합, or 는 합집합, 그 외 조건은 shard 를 좁히지 못하므로 전체로 본다
+final class ShardPruner {
+    private final MemberShards shards;
+
+    ShardPruner(MemberShards shards) {
+        this.shards = shards;
+    }
+
+    Set<Integer> prune(QueryMetadata metadata) {
+        Set<Integer> pruned = visit(metadata.getWhere(), teamPaths(metadata));
+        return pruned != null ? pruned : all();
+    }
+
+    //팀은 한 shard 에만 있으므로 group by 에 member.team(.id) 가 있으면 각 그룹이 한 shard 안에서 끝난다
+    boolean groupsByTeam(QueryMetadata metadata) {
+        List<Path<?>> teamPaths = teamPaths(metadata);
+        for (Expression<?> group : metadata.getGroupBy()) {
+            if (isTeam(group, teamPaths)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<Path<?>> teamPaths(QueryMetadata metadata) {
+        List<Path<?>> teamPaths = new ArrayList<>();
+        teamPaths.add(member.team);
+        for (JoinExpression join : metadata.getJoins()) {
+            if (join.getTarget() instanceof Operation) {
+                Operation<?> alias = (Operation<?>) join.getTarget();
+                if (alias.getOperator() == Ops.ALIAS && member.team.equals(alias.getArg(0))) {
+                    teamPaths.add((Path<?>) alias.getArg(1));
+                }
+            }
+        }
+        return teamPaths;
+    }
+
+    //null 은 shard 를 좁히지 못했다는 의미
+    private Set<Integer> visit(Expression<?> expression, List<Path<?>> teamPaths) {
+        if (!(expression instanceof Operation)) {
+            return null;
+        }
+        Operation<?> operation = (Operation<?>) expression;
+        if (operation.getOperator() == Ops.AND) {
+            Set<Integer> left = visit(operation.getArg(0), teamPaths);
+            Set<Integer> right = visit(operation.getArg(1), teamPaths);
+            if (left == null) {
+                return right;
+            }
+            if (right != null) {
+                left.retainAll(right);
+            }
+            return left;
+        }
+        if (operation.getOperator() == Ops.OR) {
+            Set<Integer> left = visit(operation.getArg(0), teamPaths);
+            Set<Integer> right = visit(operation.getArg(1), teamPaths);
+            if (left == null || right == null) {
+                return null;
+            }
+            left.addAll(right);
+            return left;
+        }
+        if (operation.getOperator() == Ops.IS_NULL && isTeam(operation.getArg(0), teamPaths)) {
+            return shardsOf(null);
+        }
+        if (operation.getOperator() == Ops.EQ || operation.getOperator() == Ops.IN) {
+            Expression<?> left = operation.getArg(0);
+            Expression<?> right = operation.getArg(1);
+            if (isTeam(left, teamPaths) && right instanceof Constant) {
+                return shardsOf(((Constant<?>) right).getConstant());
+            }
+            if (operation.getOperator() == Ops.EQ && isTeam(right, teamPaths) && left instanceof Constant) {
+                return shardsOf(((Constant<?>) left).getConstant());
+            }
+        }
+        return null;
+    }
+
+    //member.team 또는 member.team.id (별칭 포함)
+    private static boolean isTeam(Expression<?> expression, List<Path<?>> teamPaths) {
+        if (!(expression instanceof Path)) {
+            return false;
+        }
+        for (Path<?> teamPath : teamPaths) {
+            if (teamPath.equals(expression) || ExpressionUtils.path(Long.class, teamPath, "id").equals(expression)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Set<Integer> shardsOf(Object value) {
+        Set<Integer> result = new TreeSet<>();
+        if (value instanceof Collection) {
+            for (Object element : (Collection<?>) value) {
+                result.add(shards.shardOf(teamId(element)));
+            }
+        } else {
+            result.add(shards.shardOf(teamId(value)));
+        }
+        return result;
+    }
+
+    private static Long teamId(Object value) {
+        if (value instanceof Team) {
+            return ((Team) value).getId();
+        }
+        return value != null ? ((Number) value).longValue() : null;
+    }
+
+    private Set<Integer> all() {
+        Set<Integer> result = new TreeSet<>();
+        for (int i = 0; i < shards.count(); i++) {
+            result.add(i);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,218 @@
+package com.irostub.learnquerydsl.support.shard;
+
+import com.irostub.learnquerydsl.support.async.BoundedQueryExecutor;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.QueryModifiers;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.jpa.impl.JPAQuery;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityTransaction;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+//member shard 에 대한 querydsl 조회
+//query() 로 EntityManager 없이 쿼리를 만들고 fetch 에 넘기면 shard 마다 clone(em) 해서 실행한다
+//- where 가 member.team 을 고정하면 그 팀의 shard 만 조회한다 (ShardPruner)
+//- 그 외에는 BoundedQueryExecutor 에서 shard 별로 동시에 실행하고 결과를 합친다
+//- 집계는 shard 안에서만 계산되므로 여러 shard 에 걸치면 group by 에 member.team.id 가 있어야 한다
+//  팀은 한 shard 에만 있어 그룹이 shard 를 넘지 않으므로 결과를 이어 붙이면 된다, 팀 이름 등 다른 값으로만 묶으면 같은 그룹이 shard 마다 나온다
+//  group by 없는 집계(count, avg 등)는 shard 별 부분값이 되므로 거절한다, 전체 건수는 fetchCount 를 사용한다
+//- fan-out 은 검색과 다른 전용 executor 에서 실행해 검색/대시보드 작업 안에서 호출해도 permit 을 서로 기다리지 않는다
+//shard 쿼리는 스키마만 바꾼 별도 EntityManager 에서 실행한다
+//shard 마다 id 가 public 스키마의 엔티티와 겹칠 수 있으므로 2차 캐시를 사용하지 않고, 엔티티는 read-only 로 읽는다
+//EntityManager 는 쿼리 직후 닫히므로 지연 로딩 대신 fetch join 이나 dto 프로젝션을 사용한다
+public class ShardedMemberQueries {
+    private final MemberShards shards;
+    private final ShardPruner pruner;
+    private final EntityManagerFactory emf;
+    private final BoundedQueryExecutor executor;
+    private final Duration timeout;
+
+    public ShardedMemberQueries(MemberShards shards, EntityManagerFactory emf, BoundedQueryExecutor executor, Duration timeout) {
+        this.shards = shards;
+        this.pruner = new ShardPruner(shards);
+        this.emf = emf;
+        this.executor = executor;
+        this.timeout = timeout;
+    }
+
+    //ex) shardedQueries.fetch(shardedQueries.query().select(member.username).from(member).where(member.team.id.eq(teamId)))
+    public JPAQuery<?> query() {
+        return new JPAQuery<Void>();
+    }
+
+    public Set<Integer> shardsOf(JPAQuery<?> query) {
+        return pruner.prune(query.getMetadata());
+    }
+
+    //정렬 없이 shard 결과를 이어 붙인다, 여러 shard 에 걸치면 offset/limit 을 적용할 수 없다
+    public <T> List<T> fetch(JPAQuery<T> query) {
+        Set<Integer> targets = shardsOf(query);
+        checkAggregates(query, targets);
+        if (targets.size() > 1 && !isUnrestricted(query.getMetadata().getModifiers())) {
+            throw new IllegalArgumentException("offset/limit across shards needs an order, use fetch(query, order)");
+        }
+        List<T> result = new ArrayList<>();
+        for (List<T> rows : fanOut(targets, em -> query.clone(em).fetch())) {
+            result.addAll(rows);
+        }
+        return result;
+    }
+
+    //order 는 query 의 orderBy 와 같은 순서여야 한다
+    //shard 마다 offset + limit 행까지 정렬된 상태로 읽고 병합한 뒤 전체 기준으로 offset, limit 을 적용한다
+    public <T> List<T> fetch(JPAQuery<T> query, Comparator<? super T> order) {
+        Set<Integer> targets = shardsOf(query);
+        if (targets.size() == 1) {
+            return fanOut(targets, em -> query.clone(em).fetch()).get(0);
+        }
+        checkAggregates(query, targets);
+
+        QueryModifiers modifiers = query.getMetadata().getModifiers();
+        long offset = modifiers.getOffset() != null ? modifiers.getOffset() : 0;
+        Long limit = modifiers.getLimit();
+        QueryModifiers perShard = new QueryModifiers(limit != null ? limit + offset : null, null);
+        List<List<T>> sorted = fanOut(targets, em -> query.clone(em).restrict(perShard).fetch());
+        return merge(sorted, order, offset, limit);
+    }
+
+    public long fetchCount(JPAQuery<?> query) {
+        Set<Integer> targets = shardsOf(query);
+        checkAggregates(query, targets);
+        long count = 0;
+        for (Long shardCount : fanOut(targets, em -> query.clone(em).fetchCount())) {
+            count += shardCount;
+        }
+        return count;
+    }
+
+    //shard 가 하나면 호출 스레드에서 바로 실행한다
+    private <R> List<R> fanOut(Set<Integer> targets, Function<EntityManager, R> work) {
+        List<R> results = new ArrayList<>(targets.size());
+        if (targets.size() == 1) {
+            results.add(inShard(targets.iterator().next(), work));
+            return results;
+        }
+
+        List<CompletableFuture<R>> futures = new ArrayList<>(targets.size());
+        for (int shard : targets) {
+            futures.add(executor.submit(() -> inShard(shard, work), timeout));
+        }
+        try {
+            for (CompletableFuture<R> future : futures) {
+                results.add(future.join());
+            }
+        } catch (CompletionException e) {
+            futures.forEach(future -> future.cancel(false));
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+        return results;
+    }
+
+    //커넥션은 풀로 돌아가므로 끝나면 원래 스키마로 되돌린다
+    private <R> R inShard(int shard, Function<EntityManager, R> work) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            Session session = em.unwrap(Session.class);
+            session.setCacheMode(CacheMode.IGNORE);
+            session.setDefaultReadOnly(true);
+            EntityTransaction transaction = em.getTransaction();
+            transaction.begin();
+            String original = session.doReturningWork(Connection::getSchema);
+            try {
+                session.doWork(connection -> connection.setSchema(shards.schema(shard)));
+                return work.apply(em);
+            } finally {
+                session.doWork(connection -> connection.setSchema(original));
+                transaction.rollback();
+            }
+        } finally {
+            em.close();
+        }
+    }
+
+    //shard 별로 정렬된 결과를 k-way 병합
+    private static <T> List<T> merge(List<List<T>> sorted, Comparator<? super T> order, long offset, Long limit) {
+        PriorityQueue<Head<T>> heads = new PriorityQueue<>((a, b) -> order.compare(a.value, b.value));
+        for (List<T> rows : sorted) {
+            Iterator<T> iterator = rows.iterator();
+            if (iterator.hasNext()) {
+                heads.add(new Head<>(iterator.next(), iterator));
+            }
+        }
+
+        List<T> result = new ArrayList<>();
+        long skipped = 0;
+        while (!heads.isEmpty() && (limit == null || result.size() < limit)) {
+            Head<T> head = heads.poll();
+            if (skipped < offset) {
+                skipped++;
+            } else {
+                result.add(head.value);
+            }
+            if (head.rest.hasNext()) {
+                heads.add(new Head<>(head.rest.next(), head.rest));
+            }
+        }
+        return result;
+    }
+
+    private void checkAggregates(JPAQuery<?> query, Set<Integer> targets) {
+        if (targets.size() < 2) {
+            return;
+        }
+        QueryMetadata metadata = query.getMetadata();
+        if (!metadata.getGroupBy().isEmpty()) {
+            if (!pruner.groupsByTeam(metadata)) {
+                throw new IllegalArgumentException("group by across shards must include member.team.id");
+            }
+        } else if (metadata.getHaving() != null || hasAggregate(metadata.getProjection())) {
+            throw new IllegalArgumentException("aggregate across shards needs member.team pinned or group by member.team.id");
+        }
+    }
+
+    //서브쿼리 안의 집계는 그 서브쿼리의 결과이므로 보지 않는다
+    private static boolean hasAggregate(Expression<?> expression) {
+        if (expression instanceof Operation) {
+            Operation<?> operation = (Operation<?>) expression;
+            if (operation.getOperator() instanceof Ops.AggOps) {
+                return true;
+            }
+            return operation.getArgs().stream().anyMatch(ShardedMemberQueries::hasAggregate);
+        }
+        if (expression instanceof FactoryExpression) {
+            return ((FactoryExpression<?>) expression).getArgs().stream().anyMatch(ShardedMemberQueries::hasAggregate);
+        }
+        return false;
+    }
+
+    private static boolean isUnrestricted(QueryModifiers modifiers) {
+        return modifiers.getLimit() == null && modifiers.getOffset() == null;
+    }
+
+    private static final class Head<T> {
+        final T value;
+        final Iterator<T> rest;
+
+        Head(T value, Iterator<T> rest) {
+            this.value = value;
+            this.rest = rest;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.irostub.learnquerydsl.support.shard;
+
+import com.irostub.learnquerydsl.dto.MemberDto;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Types;
+import java.util.List;
+import java.util.Map;
+
+//member shard 쓰기
+//팀을 만들 때 id 로 shard 를 정하고, 그 팀의 회원은 같은 shard 에 넣는다
+//엔티티 리스너(team_stats, username 인덱스)는 public 스키마의 member 만 대상으로 하므로 jpa 를 거치지 않고 jdbc batch 로 쓴다
+public class ShardedMemberStore {
+    private final MemberShards shards;
+    private final JdbcTemplate jdbcTemplate;
+
+    public ShardedMemberStore(MemberShards shards, JdbcTemplate jdbcTemplate) {
+        this.shards = shards;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public Long createTeam(String name) {
+        Long teamId = jdbcTemplate.queryForObject("select next value for " + MemberShards.SEQUENCE, Long.class);
+        jdbcTemplate.update("insert into " + table(teamId, "team") + " (id, name) values (?, ?)", teamId, name);
+        return teamId;
+    }
+
+    //teamId 가 null 이면 팀이 없는 회원으로 0 번 shard 에 넣는다
+    public int addMembers(Long teamId, List<MemberDto> members) {
+        if (members.isEmpty()) {
+            return 0;
+        }
+        jdbcTemplate.batchUpdate("insert into " + table(teamId, "member")
+                        + " (id, age, username, team_id) values (next value for " + MemberShards.SEQUENCE + ", ?, ?, ?)",
+                members, 1000, (ps, dto) -> {
+                    ps.setInt(1, dto.getAge());
+                    ps.setString(2, dto.getUsername());
+                    if (teamId != null) {
+                        ps.setLong(3, teamId);
+                    } else {
+                        ps.setNull(3, Types.BIGINT);
+                    }
+                });
+        return members.size();
+    }
+
+    //MemberBulkLoader.load 와 같은 입력 (팀 이름 별 회원 목록)
+    @Transactional
+    public long load(Map<String, List<MemberDto>> membersByTeam) {
+        long count = 0;
+        for (Map.Entry<String, List<MemberDto>> entry : membersByTeam.entrySet()) {
+            count += addMembers(createTeam(entry.getKey()), entry.getValue());
+        }
+        return count;
+    }
+
+    private String table(Long teamId, String table) {
+        return shards.schema(shards.shardOf(teamId)) + "." + table;
+    }
+}
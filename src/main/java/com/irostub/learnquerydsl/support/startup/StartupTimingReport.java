@@ -0,0 +1,106 @@
+package com.irostub.learnquerydsl.support.startup;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.SessionFactoryObserver;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+//기동이 끝나면 단계별 소요 시간을 한 번 로그로 남긴다
+//- jvm 시작 ~ ready, 컨텍스트 refresh 단계(BufferingApplicationStartup 이 설정된 경우, actuator /actuator/startup 에서도 조회)
+//- hibernate 메타모델/SessionFactory 생성 시간, deferred 모드에서는 백그라운드 스레드에서 걸린 시간이다
+//HibernatePropertiesCustomizer 는 EntityManagerFactory 를 만들 때 조회되므로 lazy-initialization 에서도 생성된다
+@Slf4j
+@Component
+public class StartupTimingReport implements HibernatePropertiesCustomizer {
+    private static final int SLOWEST_BEANS = 5;
+
+    private volatile long jpaBootstrapStart;
+    private volatile Duration jpaBootstrap;
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put(AvailableSettings.SESSION_FACTORY_OBSERVER, new BootstrapObserver(this));
+        jpaBootstrapStart = System.nanoTime();
+    }
+
+    //EntityManagerFactory 생성이 끝나지 않았으면(deferred, lazy) null
+    public Duration getJpaBootstrap() {
+        return jpaBootstrap;
+    }
+
+    @EventListener
+    public void report(ApplicationReadyEvent event) {
+        StringBuilder report = new StringBuilder("startup timing");
+        report.append("\n  jvm start -> ready: ").append(ManagementFactory.getRuntimeMXBean().getUptime()).append(" ms");
+        report.append("\n  jpa bootstrap: ").append(jpaBootstrap != null ? jpaBootstrap.toMillis() + " ms" : "not finished yet");
+
+        ApplicationStartup startup = event.getApplicationContext().getApplicationStartup();
+        if (startup instanceof BufferingApplicationStartup) {
+            List<StartupTimeline.TimelineEvent> events = ((BufferingApplicationStartup) startup).getBufferedTimeline().getEvents();
+
+            //같은 이름의 단계는 합산, 빈 생성(spring.beans.instantiate)은 중첩되므로 가장 느린 빈만 따로 보여준다
+            Map<String, Duration> phases = new LinkedHashMap<>();
+            for (StartupTimeline.TimelineEvent timelineEvent : events) {
+                phases.merge(timelineEvent.getStartupStep().getName(), timelineEvent.getDuration(), Duration::plus);
+            }
+            phases.entrySet().stream()
+                    .filter(phase -> !phase.getKey().equals("spring.beans.instantiate"))
+                    .sorted(Map.Entry.<String, Duration>comparingByValue().reversed())
+                    .forEach(phase -> report.append("\n  ").append(phase.getKey()).append(": ").append(phase.getValue().toMillis()).append(" ms"));
+
+            String slowestBeans = events.stream()
+                    .filter(timelineEvent -> timelineEvent.getStartupStep().getName().equals("spring.beans.instantiate"))
+                    .sorted(Comparator.comparing(StartupTimeline.TimelineEvent::getDuration).reversed())
+                    .limit(SLOWEST_BEANS)
+                    .map(timelineEvent -> beanName(timelineEvent.getStartupStep()) + "=" + timelineEvent.getDuration().toMillis() + "ms")
+                    .collect(Collectors.joining(", "));
+            report.append("\n  slowest beans: ").append(slowestBeans);
+        }
+        log.info(report.toString());
+    }
+
+    private void finished() {
+        jpaBootstrap = Duration.ofNanos(System.nanoTime() - jpaBootstrapStart);
+    }
+
+    private static String beanName(StartupStep step) {
+        for (StartupStep.Tag tag : step.getTags()) {
+            if (tag.getKey().equals("beanName")) {
+                return tag.getValue();
+            }
+        }
+        return step.getName();
+    }
+
+    //SessionFactoryObserver 는 Serializable 이므로 리포트는 transient 로 참조한다
+    private static class BootstrapObserver implements SessionFactoryObserver {
+        private final transient StartupTimingReport report;
+
+        BootstrapObserver(StartupTimingReport report) {
+            this.report = report;
+        }
+
+        @Override
+        public void sessionFactoryCreated(SessionFactory factory) {
+            if (report != null) {
+                report.finished();
+            }
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.irostub.learnquerydsl.support.statement;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+//hibernate.session_factory.statement_inspector 로 등록되어 hibernate 가 준비하는 모든 sql 을 거친다
+public class CountingStatementInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        StatementCounter.record(sql);
+        return sql;
+    }
+}
@@ -0,0 +1,21 @@
+package com.irostub.learnquerydsl.support.statement;
+
+import java.util.List;
+import java.util.Map;
+
+public class NPlusOneDetectedException extends RuntimeException {
+
+    public NPlusOneDetectedException(List<String> repeated, Map<String, Integer> counts) {
+        super(message(repeated, counts));
+    }
+
+    private static String message(List<String> repeated, Map<String, Integer> counts) {
+        StringBuilder message = new StringBuilder("N+1 select detected");
+        for (String sql : repeated) {
+            message.append(System.lineSeparator())
+                    .append(counts.get(sql)).append("x ")
+                    .append(sql.replaceAll("\\s+", " ").trim());
+        }
+        return message.toString();
+    }
+}
@@ -0,0 +1,61 @@
+package com.irostub.learnquerydsl.support.statement;
+
+//현재 스레드에서 열린 StatementScope 에 실행된 sql 을 기록한다
+//scope 가 열려있지 않으면 아무 것도 하지 않으므로 비용이 거의 없다
+//executor 작업 스레드에서 실행된 sql 은 propagate 로 감싼 작업이 submit 한 스레드의 scope 에 기록한다
+public final class StatementCounter {
+    private static final ThreadLocal<StatementScope> CURRENT = new ThreadLocal<>();
+
+    private StatementCounter() {
+    }
+
+    public static StatementScope open() {
+        StatementScope scope = new StatementScope(CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    //submit 하는 스레드의 scope 를 작업이 실행되는 동안 작업 스레드에 연결한다
+    public static Runnable propagate(Runnable task) {
+        StatementScope captured = CURRENT.get();
+        if (captured == null) {
+            return task;
+        }
+        return () -> {
+            StatementScope previous = attach(captured);
+            try {
+                task.run();
+            } finally {
+                attach(previous);
+            }
+        };
+    }
+
+    //다른 스레드에서 연 scope 를 현재 스레드에 연결하고 이전 scope 를 돌려준다
+    static StatementScope attach(StatementScope scope) {
+        StatementScope previous = CURRENT.get();
+        if (scope != null) {
+            CURRENT.set(scope);
+        } else {
+            CURRENT.remove();
+        }
+        return previous;
+    }
+
+    static void record(String sql) {
+        StatementScope scope = CURRENT.get();
+        if (scope != null) {
+            scope.record(sql);
+        }
+    }
+
+    static void close(StatementScope scope) {
+        if (CURRENT.get() == scope) {
+            if (scope.getParent() != null) {
+                CURRENT.set(scope.getParent());
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+}
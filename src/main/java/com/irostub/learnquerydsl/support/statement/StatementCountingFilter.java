@@ -0,0 +1,88 @@
+package com.irostub.learnquerydsl.support.statement;
+
+import com.irostub.learnquerydsl.config.NPlusOneProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.WebUtils;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.List;
+
+//요청 단위로 실행된 sql 을 세어 N+1 패턴을 로그로 남기거나(LOG) 요청을 실패시킨다(FAIL)
+//비동기 요청(CompletableFuture, StreamingResponseBody)은 scope 를 request 속성으로 넘겨 마지막 dispatch 에서 판단한다
+//FAIL 모드는 판단 전에 응답이 커밋되지 않도록 본문을 버퍼링하므로 스트리밍 응답도 메모리에 모인다, 개발/테스트 용이다
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StatementCountingFilter extends OncePerRequestFilter {
+    private static final String SCOPE_ATTRIBUTE = StatementCountingFilter.class.getName() + ".scope";
+
+    private final NPlusOneProperties properties;
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (properties.getMode() == NPlusOneProperties.Mode.OFF) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        StatementScope scope = (StatementScope) request.getAttribute(SCOPE_ATTRIBUTE);
+        boolean initial = scope == null;
+        StatementScope previous = null;
+        if (initial) {
+            scope = StatementCounter.open();
+            request.setAttribute(SCOPE_ATTRIBUTE, scope);
+        } else {
+            previous = StatementCounter.attach(scope);
+        }
+
+        HttpServletResponse target = response;
+        if (properties.getMode() == NPlusOneProperties.Mode.FAIL && initial) {
+            target = new ContentCachingResponseWrapper(response);
+        }
+        try {
+            filterChain.doFilter(request, target);
+            if (isAsyncStarted(request)) {
+                return;
+            }
+            inspect(request, target, scope);
+        } finally {
+            if (initial) {
+                scope.close();
+            } else {
+                StatementCounter.attach(previous);
+            }
+        }
+    }
+
+    //FAIL 이면 버퍼링한 본문을 버리고 예외로 실패시켜 500 응답이 되도록 한다
+    private void inspect(HttpServletRequest request, HttpServletResponse response, StatementScope scope) throws IOException {
+        ContentCachingResponseWrapper buffered = properties.getMode() == NPlusOneProperties.Mode.FAIL
+                ? WebUtils.getNativeResponse(response, ContentCachingResponseWrapper.class) : null;
+        List<String> repeated = scope.findRepeatedSelects(properties.getThreshold());
+        if (!repeated.isEmpty()) {
+            NPlusOneDetectedException detected = new NPlusOneDetectedException(repeated, scope.getStatements());
+            if (buffered != null) {
+                buffered.resetBuffer();
+                throw detected;
+            }
+            log.warn("{} {}: {}", request.getMethod(), request.getRequestURI(), detected.getMessage());
+        }
+        if (buffered != null) {
+            buffered.copyBodyToResponse();
+        }
+    }
+}
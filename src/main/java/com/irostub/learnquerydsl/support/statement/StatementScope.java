@@ -0,0 +1,75 @@
+package com.irostub.learnquerydsl.support.statement;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+//요청, 테스트 등 하나의 작업 단위에서 실행된 sql 과 실행 횟수
+//같은 select 가 threshold 번 이상 반복되면 N+1 로 판단한다
+//fan-out 작업 스레드들이 동시에 기록할 수 있으므로 기록과 조회는 동기화한다
+public class StatementScope implements AutoCloseable {
+    @Getter(AccessLevel.PACKAGE)
+    private final StatementScope parent;
+    private final Map<String, Integer> counts = new LinkedHashMap<>();
+    private int total;
+
+    StatementScope(StatementScope parent) {
+        this.parent = parent;
+    }
+
+    synchronized void record(String sql) {
+        counts.merge(sql, 1, Integer::sum);
+        total++;
+        if (parent != null) {
+            parent.record(sql);
+        }
+    }
+
+    public synchronized int getCount() {
+        return total;
+    }
+
+    public synchronized Map<String, Integer> getStatements() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(counts));
+    }
+
+    public synchronized List<String> findRepeatedSelects(int threshold) {
+        List<String> repeated = new ArrayList<>();
+        counts.forEach((sql, count) -> {
+            if (count >= threshold && isSelect(sql)) {
+                repeated.add(sql);
+            }
+        });
+        return repeated;
+    }
+
+    public void assertNoNPlusOne(int threshold) {
+        List<String> repeated = findRepeatedSelects(threshold);
+        if (!repeated.isEmpty()) {
+            throw new NPlusOneDetectedException(repeated, getStatements());
+        }
+    }
+
+    @Override
+    public void close() {
+        StatementCounter.close(this);
+    }
+
+    //use_sql_comments 로 붙는 주석을 건너뛰고 select 여부를 판단
+    private static boolean isSelect(String sql) {
+        String trimmed = sql.trim();
+        while (trimmed.startsWith("/*")) {
+            int end = trimmed.indexOf("*/");
+            if (end < 0) {
+                return false;
+            }
+            trimmed = trimmed.substring(end + 2).trim();
+        }
+        return trimmed.regionMatches(true, 0, "select", 0, "select".length());
+    }
+}
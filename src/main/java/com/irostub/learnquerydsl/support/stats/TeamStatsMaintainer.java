@@ -0,0 +1,205 @@
+package com.irostub.learnquerydsl.support.stats;
+
+import com.irostub.learnquerydsl.entity.Member;
+import com.irostub.learnquerydsl.entity.Team;
+import org.hibernate.boot.Metadata;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.jpa.boot.internal.EntityManagerFactoryBuilderImpl;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+import java.sql.PreparedStatement;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+//Member 의 insert/update/delete 를 hibernate 이벤트로 받아 팀 별 (회원 수, 나이 합계) 증감분을 세션 단위로 모으고
+//트랜잭션 커밋 직전(flush 이후) 팀 당 한 번의 update team_stats set ... = ... + ? 로 반영한다
+//- 증감분을 더하는 update 이므로 동시에 커밋하는 트랜잭션끼리 값을 덮어쓰지 않는다
+//- 롤백되면 반영 전이므로 아무것도 남지 않는다
+//- 벌크 jpql 은 이벤트가 발생하지 않으므로 호출하는 쪽에서 record 로 직접 증감분을 넘긴다
+//리스너는 Integrator 로 SessionFactory 생성 시 등록하므로 EntityManagerFactory 를 기다리지 않는다(deferred bootstrap)
+@Component
+public class TeamStatsMaintainer implements HibernatePropertiesCustomizer,
+        PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+    private static final String UPDATE = "update team_stats set member_count = member_count + ?, age_sum = age_sum + ? where team_id = ?";
+    private static final String INSERT = "insert into team_stats (team_id, member_count, age_sum) values (?, ?, ?)";
+    private static final String DELETE = "delete from team_stats where team_id = ?";
+
+    private final Map<SessionImplementor, Deltas> pending = new ConcurrentHashMap<>();
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put(EntityManagerFactoryBuilderImpl.INTEGRATOR_PROVIDER,
+                (IntegratorProvider) () -> Collections.singletonList(new ListenerIntegrator(this)));
+    }
+
+    //벌크 연산용, 현재 트랜잭션의 세션에 증감분을 더한다
+    public void record(EntityManager em, Long teamId, long members, long ageSum) {
+        if (teamId != null) {
+            deltas(em.unwrap(SessionImplementor.class)).add(teamId, members, ageSum);
+        }
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Member) {
+            Object[] state = event.getState();
+            deltas(event.getSession()).add(teamId(state, event.getPersister()), 1, age(state, event.getPersister()));
+        } else if (event.getEntity() instanceof Team) {
+            //새 팀의 행은 팀을 만든 트랜잭션에서 만들어 두고, 이후에는 update 만 한다
+            deltas(event.getSession()).create((Long) event.getId());
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        //oldState 가 없으면(merge 가 아닌 update(detached)) 이전 값을 알 수 없으므로 reconcile 에 맡긴다
+        if (!(event.getEntity() instanceof Member) || event.getOldState() == null) {
+            return;
+        }
+        EntityPersister persister = event.getPersister();
+        Long oldTeamId = teamId(event.getOldState(), persister);
+        Long newTeamId = teamId(event.getState(), persister);
+        int oldAge = age(event.getOldState(), persister);
+        int newAge = age(event.getState(), persister);
+        if (oldAge == newAge && Objects.equals(oldTeamId, newTeamId)) {
+            return;
+        }
+        Deltas deltas = deltas(event.getSession());
+        deltas.add(oldTeamId, -1, -oldAge);
+        deltas.add(newTeamId, 1, newAge);
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Member) {
+            Object[] state = event.getDeletedState();
+            deltas(event.getSession()).add(teamId(state, event.getPersister()), -1, -age(state, event.getPersister()));
+        } else if (event.getEntity() instanceof Team) {
+            deltas(event.getSession()).drop((Long) event.getId());
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    //세션 당 처음 한 번만 커밋 전/후 처리를 등록한다, 롤백돼도 after 에서 정리된다
+    private Deltas deltas(SessionImplementor session) {
+        return pending.computeIfAbsent(session, key -> {
+            Deltas deltas = new Deltas();
+            key.getActionQueue().registerProcess(s -> apply(s, deltas));
+            key.getActionQueue().registerProcess((success, s) -> pending.remove(key));
+            return deltas;
+        });
+    }
+
+    //팀 id 순으로 반영해 트랜잭션 사이의 락 순서를 같게 한다
+    private static void apply(SessionImplementor session, Deltas deltas) {
+        if (deltas.teams.isEmpty()) {
+            return;
+        }
+        session.doWork(connection -> {
+            try (PreparedStatement update = connection.prepareStatement(UPDATE);
+                 PreparedStatement insert = connection.prepareStatement(INSERT);
+                 PreparedStatement delete = connection.prepareStatement(DELETE)) {
+                for (Map.Entry<Long, long[]> entry : deltas.teams.entrySet()) {
+                    long[] delta = entry.getValue();
+                    if (delta[2] < 0) {
+                        delete.setLong(1, entry.getKey());
+                        delete.executeUpdate();
+                        continue;
+                    }
+                    if (delta[2] == 0 && delta[0] == 0 && delta[1] == 0) {
+                        continue;
+                    }
+                    update.setLong(1, delta[0]);
+                    update.setLong(2, delta[1]);
+                    update.setLong(3, entry.getKey());
+                    if (update.executeUpdate() == 0) {
+                        insert.setLong(1, entry.getKey());
+                        insert.setLong(2, delta[0]);
+                        insert.setLong(3, delta[1]);
+                        insert.executeUpdate();
+                    }
+                }
+            }
+        });
+    }
+
+    private static Long teamId(Object[] state, EntityPersister persister) {
+        Object team = state[persister.getEntityMetamodel().getPropertyIndex("team")];
+        if (team == null) {
+            return null;
+        }
+        if (team instanceof HibernateProxy) {
+            return (Long) ((HibernateProxy) team).getHibernateLazyInitializer().getIdentifier();
+        }
+        return ((Team) team).getId();
+    }
+
+    private static int age(Object[] state, EntityPersister persister) {
+        return (Integer) state[persister.getEntityMetamodel().getPropertyIndex("age")];
+    }
+
+    //팀 id -> {회원 수 증감, 나이 합계 증감, 상태(1 새 팀, -1 삭제된 팀)}
+    private static class Deltas {
+        private final Map<Long, long[]> teams = new TreeMap<>();
+
+        void add(Long teamId, long members, long ageSum) {
+            if (teamId == null) {
+                return;
+            }
+            long[] delta = teams.computeIfAbsent(teamId, id -> new long[3]);
+            delta[0] += members;
+            delta[1] += ageSum;
+        }
+
+        void create(Long teamId) {
+            teams.computeIfAbsent(teamId, id -> new long[3])[2] = 1;
+        }
+
+        void drop(Long teamId) {
+            teams.computeIfAbsent(teamId, id -> new long[3])[2] = -1;
+        }
+    }
+
+    private static class ListenerIntegrator implements Integrator {
+        private final TeamStatsMaintainer maintainer;
+
+        ListenerIntegrator(TeamStatsMaintainer maintainer) {
+            this.maintainer = maintainer;
+        }
+
+        @Override
+        public void integrate(Metadata metadata, SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+            EventListenerRegistry registry = serviceRegistry.getService(EventListenerRegistry.class);
+            registry.appendListeners(EventType.POST_INSERT, maintainer);
+            registry.appendListeners(EventType.POST_UPDATE, maintainer);
+            registry.appendListeners(EventType.POST_DELETE, maintainer);
+        }
+
+        @Override
+        public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+        }
+    }
+}
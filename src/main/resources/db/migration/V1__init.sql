@@ -0,0 +1,31 @@
+-- fast 프로필의 초기 스키마, 엔티티 매핑(ddl-auto: create 결과)과 같아야 한다
+-- 시퀀스 증가값은 hibernate.id.pooled_allocation_size 와 같다
+create sequence member_seq start with 1 increment by 100;
+create sequence team_seq start with 1 increment by 100;
+create sequence hello_seq start with 1 increment by 100;
+
+create table hello (
+    id bigint not null,
+    primary key (id)
+);
+
+create table team (
+    id   bigint not null,
+    name varchar(255),
+    primary key (id)
+);
+
+create table member (
+    id       bigint  not null,
+    age      integer not null,
+    username varchar(255),
+    team_id  bigint,
+    primary key (id)
+);
+
+alter table member add constraint fk_member_team foreign key (team_id) references team;
+
+create index idx_team_name on team (name);
+create index idx_member_username_id on member (username, id);
+create index idx_member_age_id on member (age, id);
+create index idx_member_team_age on member (team_id, age);
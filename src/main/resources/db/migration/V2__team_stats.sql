@@ -0,0 +1,16 @@
+-- 팀 별 회원 수/나이 합계, TeamStatsMaintainer 가 증감분을 반영한다
+-- default 프로필의 ddl-auto: create 는 TeamStats 엔티티로 이 테이블도 만들고, fast 프로필은 그 스키마를 V1 로 baseline 하므로
+-- 테이블과 행이 이미 있어도 실패하지 않게 만든다
+create table if not exists team_stats (
+    team_id      bigint not null,
+    age_sum      bigint not null,
+    member_count bigint not null,
+    primary key (team_id)
+);
+
+insert into team_stats (team_id, member_count, age_sum)
+select t.id, count(m.id), coalesce(sum(m.age), 0)
+from team t
+         left join member m on m.team_id = t.id
+where not exists (select 1 from team_stats s where s.team_id = t.id)
+group by t.id;
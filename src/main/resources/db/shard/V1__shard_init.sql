@@ -0,0 +1,23 @@
+-- member shard 스키마(app.sharding.schema-prefix + 번호)마다 적용된다
+-- 팀의 모든 회원은 그 팀과 같은 shard 에 있으므로 member -> team 조인과 팀 별 집계는 shard 안에서 끝난다
+-- id 는 public.member_shard_seq 에서 할당하므로 shard 에는 시퀀스가 없다
+create table team (
+    id   bigint not null,
+    name varchar(255),
+    primary key (id)
+);
+
+create table member (
+    id       bigint  not null,
+    age      integer not null,
+    username varchar(255),
+    team_id  bigint,
+    primary key (id)
+);
+
+alter table member add constraint fk_member_team foreign key (team_id) references team;
+
+create index idx_team_name on team (name);
+create index idx_member_username_id on member (username, id);
+create index idx_member_age_id on member (age, id);
+create index idx_member_team_age on member (team_id, age);
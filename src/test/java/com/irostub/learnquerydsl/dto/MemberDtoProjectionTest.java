@@ -0,0 +1,35 @@
+package com.irostub.learnquerydsl.dto;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static com.irostub.learnquerydsl.entity.QMember.member;
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class MemberDtoProjectionTest {
+
+    @Test
+    @DisplayName("생성된 프로젝션은 생성자 인자 순서대로 값을 받는다")
+    void newInstanceTest() {
+        MemberDtoProjection projection = new MemberDtoProjection(member.username, member.age);
+
+        MemberDto dto = projection.newInstance("member1", 10);
+
+        assertEquals("member1", dto.getUsername());
+        assertEquals(10, dto.getAge());
+        assertThat(projection.getArgs()).containsExactly(member.username, member.age);
+        assertEquals(MemberDto.class, projection.getType());
+    }
+
+    @Test
+    @DisplayName("primitive 파라미터에 null 이 오면 기본값으로 생성한다")
+    void nullPrimitiveTest() {
+        MemberDtoProjection projection = new MemberDtoProjection(member.username, member.age);
+
+        MemberDto dto = projection.newInstance("member1", null);
+
+        assertEquals("member1", dto.getUsername());
+        assertEquals(0, dto.getAge());
+    }
+}
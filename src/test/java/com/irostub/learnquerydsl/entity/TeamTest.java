@@ -9,7 +9,9 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
+import javax.persistence.PersistenceUnitUtil;
 
+import static org.assertj.core.api.Assertions.*;
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
@@ -17,10 +19,12 @@ class TeamTest {
     @Autowired
     EntityManager em;
     JPAQueryFactory query;
+    PersistenceUnitUtil persistenceUnitUtil;
 
     @BeforeEach
     void setUp() {
         query = new JPAQueryFactory(em);
+        persistenceUnitUtil = em.getEntityManagerFactory().getPersistenceUnitUtil();
     }
 
     @Test
@@ -31,4 +35,76 @@ class TeamTest {
         em.persist(team);
         assertNotNull(team.getId());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("팀 변경은 members 컬렉션을 초기화하지 않는다")
+    @Transactional
+    void changeTeamWithoutLoadingMembersTest() {
+        Team team = Team.createTeam("lazyTeam");
+        em.persist(team);
+        em.persist(Member.createMember("lazyMember1", 10, team));
+        em.flush();
+        em.clear();
+
+        Team found = em.find(Team.class, team.getId());
+        Member moved = Member.createMember("lazyMember2", 20);
+        moved.changeTeam(found);
+        em.persist(moved);
+
+        assertFalse(persistenceUnitUtil.isLoaded(found, "members"));
+        //flush 전에 읽어도 쌓아 둔 회원이 포함된다
+        assertThat(found.getMembers()).extracting(Member::getUsername)
+                .containsExactlyInAnyOrder("lazyMember1", "lazyMember2");
+    }
+
+    @Test
+    @DisplayName("초기화된 members 는 바로 반영하고 이전 팀에서는 제거한다")
+    @Transactional
+    void changeTeamWithLoadedMembersTest() {
+        Team teamA = Team.createTeam("loadedTeamA");
+        Team teamB = Team.createTeam("loadedTeamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        Member member = Member.createMember("loadedMember", 10);
+        member.changeTeam(teamA);
+        em.persist(member);
+        em.flush();
+        em.clear();
+
+        Member found = em.find(Member.class, member.getId());
+        Team foundA = em.find(Team.class, teamA.getId());
+        Team foundB = em.find(Team.class, teamB.getId());
+        assertThat(foundA.getMembers()).containsExactly(found);
+        assertThat(foundB.getMembers()).isEmpty();
+
+        found.changeTeam(foundB);
+
+        assertThat(foundA.getMembers()).isEmpty();
+        assertThat(foundB.getMembers()).containsExactly(found);
+        em.flush();
+        assertEquals(foundB.getId(), found.getTeam().getId());
+    }
+
+    @Test
+    @DisplayName("이전 팀이 초기화되지 않은 프록시여도 flush 전에 읽은 members 에서 제거된다")
+    @Transactional
+    void changeTeamFromProxyTeamTest() {
+        Team teamA = Team.createTeam("proxyTeamA");
+        Team teamB = Team.createTeam("proxyTeamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        Member member = Member.createMember("proxyMember", 10, teamA);
+        em.persist(member);
+        em.flush();
+        em.clear();
+
+        Member found = em.find(Member.class, member.getId());
+        Team previous = found.getTeam();
+        assertFalse(persistenceUnitUtil.isLoaded(previous));
+
+        found.changeTeam(em.find(Team.class, teamB.getId()));
+
+        assertThat(previous.getMembers()).doesNotContain(found);
+        assertThat(found.getTeam().getMembers()).containsExactly(found);
+    }
+}
@@ -0,0 +1,90 @@
+package com.irostub.learnquerydsl.repository;
+
+import com.irostub.learnquerydsl.entity.Member;
+import com.irostub.learnquerydsl.entity.Team;
+import com.irostub.learnquerydsl.repository.support.KeysetPage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+
+import static com.irostub.learnquerydsl.entity.QMember.member;
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class MemberKeysetPagerTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberKeysetPager pager;
+
+    @BeforeEach
+    void init() {
+        Team teamA = Team.createTeam("teamA");
+        em.persist(teamA);
+        int[] ages = {19, 20, 20, 30, 31};
+        for (int i = 0; i < ages.length; i++) {
+            Member newMember = Member.createMember("keyset" + i, ages[i]);
+            newMember.changeTeam(teamA);
+            em.persist(newMember);
+        }
+        pager.evictCountCache();
+    }
+
+    @Test
+    @DisplayName("나이 오름차순 다음 페이지 조회")
+    void ageAscNextTest() {
+        KeysetPage<Member> page1 = pager.fetchPage(member.username.startsWith("keyset"), MemberKeysetSort.AGE_ASC, null, 2);
+        assertThat(page1.getContent()).extracting(Member::getAge).containsExactly(19, 20);
+        assertTrue(page1.hasNext());
+        assertFalse(page1.hasPrev());
+
+        //동률(20) 이 페이지 경계에 걸쳐도 id 로 이어서 읽는다
+        KeysetPage<Member> page2 = pager.fetchPage(member.username.startsWith("keyset"), MemberKeysetSort.AGE_ASC, page1.getNextCursor(), 2);
+        assertThat(page2.getContent()).extracting(Member::getAge).containsExactly(20, 30);
+
+        KeysetPage<Member> page3 = pager.fetchPage(member.username.startsWith("keyset"), MemberKeysetSort.AGE_ASC, page2.getNextCursor(), 2);
+        assertThat(page3.getContent()).extracting(Member::getAge).containsExactly(31);
+        assertFalse(page3.hasNext());
+        assertTrue(page3.hasPrev());
+    }
+
+    @Test
+    @DisplayName("이전 페이지 cursor 로 되돌아가기")
+    void prevCursorTest() {
+        KeysetPage<Member> page1 = pager.fetchPage(member.username.startsWith("keyset"), MemberKeysetSort.USERNAME_DESC, null, 2);
+        KeysetPage<Member> page2 = pager.fetchPage(member.username.startsWith("keyset"), MemberKeysetSort.USERNAME_DESC, page1.getNextCursor(), 2);
+        assertThat(page2.getContent()).extracting(Member::getUsername).containsExactly("keyset2", "keyset1");
+
+        KeysetPage<Member> back = pager.fetchPage(member.username.startsWith("keyset"), MemberKeysetSort.USERNAME_DESC, page2.getPrevCursor(), 2);
+        assertThat(back.getContent()).extracting(Member::getUsername).containsExactly("keyset4", "keyset3");
+        assertFalse(back.hasPrev());
+        assertTrue(back.hasNext());
+    }
+
+    @Test
+    @DisplayName("count 는 요청한 경우에만 조회")
+    void optionalCountTest() {
+        KeysetPage<Member> withoutCount = pager.fetchPage(member.username.startsWith("keyset"), MemberKeysetSort.AGE_DESC, null, 2);
+        assertNull(withoutCount.getTotal());
+
+        KeysetPage<Member> withCount = pager.fetchPage(member.username.startsWith("keyset"), MemberKeysetSort.AGE_DESC, null, 2, true);
+        assertEquals(5L, withCount.getTotal());
+    }
+
+    @Test
+    @DisplayName("다른 정렬로 발급된 cursor 는 거부")
+    void sortMismatchTest() {
+        KeysetPage<Member> page1 = pager.fetchPage(null, MemberKeysetSort.AGE_ASC, null, 2);
+        assertThrows(IllegalArgumentException.class,
+                () -> pager.fetchPage(null, MemberKeysetSort.USERNAME_ASC, page1.getNextCursor(), 2));
+    }
+}
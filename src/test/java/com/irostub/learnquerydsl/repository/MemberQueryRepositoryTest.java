@@ -0,0 +1,146 @@
+package com.irostub.learnquerydsl.repository;
+
+import com.irostub.learnquerydsl.dto.MemberDto;
+import com.irostub.learnquerydsl.entity.Member;
+import com.irostub.learnquerydsl.entity.Team;
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+
+import static com.irostub.learnquerydsl.entity.QMember.member;
+import static com.irostub.learnquerydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+//2차 캐시는 커밋된 데이터를 기준으로 동작하므로 테스트 트랜잭션 롤백 대신 직접 커밋하고 정리한다
+@SpringBootTest
+class MemberQueryRepositoryTest {
+    private static final String USERNAME = "cachedMember";
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    MemberQueryRepository memberQueryRepository;
+
+    JPAQueryFactory query;
+    Statistics statistics;
+    Long teamId;
+
+    @BeforeEach
+    void init() {
+        query = new JPAQueryFactory(em);
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        teamId = transactionTemplate.execute(status -> {
+            Team cachedTeam = Team.createTeam("cachedTeam");
+            em.persist(cachedTeam);
+            em.persist(Member.createMember(USERNAME, 20, cachedTeam));
+            return cachedTeam.getId();
+        });
+    }
+
+    @AfterEach
+    void cleanUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            query.delete(member).where(member.username.eq(USERNAME)).execute();
+            query.delete(team).where(team.id.eq(teamId)).execute();
+        });
+    }
+
+    @Test
+    @DisplayName("쿼리 캐시 hit")
+    void queryCacheHitTest() {
+        memberQueryRepository.findByUsername(USERNAME);
+        long hitsBefore = statistics.getQueryCacheHitCount();
+
+        List<Member> cached = memberQueryRepository.findByUsername(USERNAME);
+
+        assertThat(cached).extracting(Member::getUsername).containsExactly(USERNAME);
+        assertEquals(hitsBefore + 1, statistics.getQueryCacheHitCount());
+    }
+
+    @Test
+    @DisplayName("bulk update 후 쿼리 캐시 자동 무효화")
+    void bulkUpdateInvalidatesQueryCacheTest() {
+        memberQueryRepository.findByUsername(USERNAME);
+
+        transactionTemplate.executeWithoutResult(status -> query
+                .update(member)
+                .set(member.age, member.age.add(1))
+                .where(member.username.eq(USERNAME))
+                .execute());
+
+        List<Member> result = memberQueryRepository.findByUsername(USERNAME);
+        assertThat(result).extracting(Member::getAge).containsExactly(21);
+    }
+
+    @Test
+    @DisplayName("팀은 2차 캐시에서 조회")
+    void teamSecondLevelCacheTest() {
+        transactionTemplate.executeWithoutResult(status -> em.find(Team.class, teamId));
+        long hitsBefore = statistics.getSecondLevelCacheHitCount();
+
+        Team cachedTeam = transactionTemplate.execute(status -> em.find(Team.class, teamId));
+
+        assertEquals("cachedTeam", cachedTeam.getName());
+        assertTrue(statistics.getSecondLevelCacheHitCount() > hitsBefore);
+    }
+
+    @Test
+    @DisplayName("read-only 조회 엔티티는 dirty checking 대상이 아니다")
+    void readOnlyEntityTest() {
+        Boolean readOnly = transactionTemplate.execute(status -> {
+            List<Member> result = memberQueryRepository.findReadOnly(member.username.eq(USERNAME));
+            assertThat(result).hasSize(1);
+            return em.unwrap(Session.class).isReadOnly(result.get(0));
+        });
+
+        assertTrue(readOnly);
+    }
+
+    @Test
+    @DisplayName("dto 프로젝션 조회")
+    void findDtosTest() {
+        List<MemberDto> result = memberQueryRepository.findDtos(member.username.eq(USERNAME));
+
+        assertThat(result).extracting(MemberDto::getUsername).containsExactly(USERNAME);
+        assertThat(result).extracting(MemberDto::getAge).containsExactly(20);
+    }
+
+    @Test
+    @DisplayName("팀 회원 dto 조회 - 공유 projection, join path")
+    void findTeamMemberDtosTest() {
+        List<MemberDto> result = memberQueryRepository.findTeamMemberDtos("cachedTeam");
+
+        assertThat(result).extracting(MemberDto::getUsername).containsExactly(USERNAME);
+    }
+
+    @Test
+    @DisplayName("나이 구분 조회 - 공유 case 문")
+    void findAgeGroupsTest() {
+        List<Tuple> first = memberQueryRepository.findAgeGroups(member.username.eq(USERNAME));
+        List<Tuple> second = memberQueryRepository.findAgeGroups(member.username.eq(USERNAME));
+
+        assertThat(first).extracting(tuple -> tuple.get(MemberQueryRepository.AGE_GROUP)).containsExactly("미만");
+        assertThat(second).extracting(tuple -> tuple.get(MemberQueryRepository.AGE_GROUP)).containsExactly("미만");
+    }
+}
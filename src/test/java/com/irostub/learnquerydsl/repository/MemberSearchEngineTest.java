@@ -0,0 +1,101 @@
+package com.irostub.learnquerydsl.repository;
+
+import com.irostub.learnquerydsl.entity.Member;
+import com.irostub.learnquerydsl.entity.MemberSearchCondition;
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.irostub.learnquerydsl.entity.QMember.member;
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class MemberSearchEngineTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberSearchEngine searchEngine;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    JPAQueryFactory query;
+
+    @BeforeEach
+    void init() {
+        query = new JPAQueryFactory(em);
+        em.persist(Member.createMember("testName1", 19));
+        em.persist(Member.createMember("testName2", 20));
+        em.persist(Member.createMember("testName3", 30));
+        em.persist(Member.createMember("testName4", 31));
+    }
+
+    @Test
+    @DisplayName("모양 별 템플릿 결과가 BooleanBuilder 동적 쿼리와 같다")
+    void sameResultAsBooleanBuilderTest() {
+        for (MemberSearchCondition condition : conditions()) {
+            BooleanBuilder builder = new BooleanBuilder();
+            if (StringUtils.hasText(condition.getUsername())) {
+                builder.and(member.username.like(condition.getUsername()));
+            }
+            if (condition.getAge() != null) {
+                builder.and(member.age.goe(condition.getAge()));
+            }
+            List<Member> expected = query.selectFrom(member).where(builder).fetch();
+
+            assertThat(searchEngine.search(condition)).containsExactlyInAnyOrderElementsOf(expected);
+        }
+    }
+
+    @Test
+    @DisplayName("같은 모양의 조건은 템플릿을 재사용")
+    void templateCacheHitTest() {
+        //네 가지 모양을 모두 한 번씩 실행해 템플릿을 만들어 둔다
+        //hibernate query plan cache 통계는 애플리케이션 전체 값이라 다른 쿼리와 섞이므로 엔진의 카운터만 본다
+        for (MemberSearchCondition condition : conditions()) {
+            searchEngine.search(condition);
+        }
+        MemberSearchEngine.Stats before = searchEngine.stats();
+        double hitsBefore = templateCount("hit");
+        double missesBefore = templateCount("miss");
+
+        searchEngine.search(new MemberSearchCondition("test%", 25));
+        searchEngine.search(new MemberSearchCondition("other%", 30));
+        searchEngine.search(new MemberSearchCondition("test%", null));
+
+        MemberSearchEngine.Stats after = searchEngine.stats();
+        assertEquals(4, after.getShapes());
+        assertEquals(before.getTemplateMisses(), after.getTemplateMisses());
+        assertEquals(3, after.getTemplateHits() - before.getTemplateHits());
+        assertEquals(missesBefore, templateCount("miss"));
+        assertEquals(3, templateCount("hit") - hitsBefore);
+    }
+
+    private double templateCount(String result) {
+        return meterRegistry.get("member_search.template").tag("result", result).counter().count();
+    }
+
+    private List<MemberSearchCondition> conditions() {
+        List<MemberSearchCondition> conditions = new ArrayList<>();
+        conditions.add(new MemberSearchCondition("testName%", 25));
+        conditions.add(new MemberSearchCondition("testName%", null));
+        conditions.add(new MemberSearchCondition(null, 25));
+        conditions.add(new MemberSearchCondition(null, null));
+        return conditions;
+    }
+}
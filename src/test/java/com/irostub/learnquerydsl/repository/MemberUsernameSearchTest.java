@@ -0,0 +1,172 @@
+package com.irostub.learnquerydsl.repository;
+
+import com.irostub.learnquerydsl.dto.MemberDto;
+import com.irostub.learnquerydsl.entity.Member;
+import com.irostub.learnquerydsl.repository.support.LikePattern;
+import com.irostub.learnquerydsl.support.search.UsernameIndex;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static com.irostub.learnquerydsl.entity.QMember.member;
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+//색인은 커밋 후에 반영되므로 테스트 트랜잭션 롤백 대신 직접 커밋하고 정리한다
+//크기 제한을 확인하도록 max-results 를 테스트 데이터(4명)보다 작게 둔다
+@SpringBootTest(properties = "app.search.max-results=3")
+class MemberUsernameSearchTest {
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    MemberUsernameSearch usernameSearch;
+
+    @Autowired
+    UsernameIndex usernameIndex;
+
+    JPAQueryFactory query;
+
+    @BeforeEach
+    void init() {
+        query = new JPAQueryFactory(em);
+        transactionTemplate.executeWithoutResult(status -> {
+            em.persist(Member.createMember("typeaheadAlice", 20));
+            em.persist(Member.createMember("typeaheadAlan", 30));
+            em.persist(Member.createMember("typeaheadBob", 40));
+            em.persist(Member.createMember("typeaheadMalice", 50));
+        });
+    }
+
+    @AfterEach
+    void cleanUp() {
+        transactionTemplate.executeWithoutResult(status ->
+                query.delete(member).where(member.username.startsWith("typeahead")).execute());
+    }
+
+    @Test
+    @DisplayName("접두어 검색은 이름 순, 입력의 와일드카드는 문자 그대로 비교")
+    void typeaheadTest() {
+        List<MemberDto> result = usernameSearch.typeahead("typeaheadAl", 10);
+
+        assertThat(result).extracting(MemberDto::getUsername).containsExactly("typeaheadAlan", "typeaheadAlice");
+        assertThat(usernameSearch.typeahead("typeahead%", 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("요청한 크기는 app.search.max-results 까지로 제한")
+    void sizeIsClampedTest() {
+        assertThat(usernameSearch.typeahead("typeahead", Integer.MAX_VALUE)).hasSize(3);
+        assertThat(usernameSearch.search("typeahead%", Integer.MAX_VALUE)).hasSize(3);
+        assertThat(usernameSearch.typeahead("typeahead", 0)).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("중간 일치 검색은 trigram 후보를 db 에서 다시 확인")
+    void infixSearchTest() {
+        List<MemberDto> result = usernameSearch.search("%lice%", 10);
+
+        assertThat(result).extracting(MemberDto::getUsername).containsExactly("typeaheadAlice", "typeaheadMalice");
+        //대소문자를 무시한 후보(ALICE 등)도 like 로 다시 거른다
+        assertThat(usernameSearch.search("%LICE%", 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("색인 후보가 없으면 db 를 조회하지 않는다")
+    void noCandidateTest() {
+        assertThat(usernameSearch.search("%zzzqqq%", 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("오타를 포함한 유사어 검색")
+    void fuzzyTest() {
+        List<MemberDto> result = usernameSearch.fuzzy("typeaheadAlise", 2);
+
+        assertThat(result).extracting(MemberDto::getUsername).first().isEqualTo("typeaheadAlice");
+    }
+
+    @Test
+    @DisplayName("이름 변경은 커밋 후 색인에 반영")
+    void updateTest() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Member alice = query.selectFrom(member).where(member.username.eq("typeaheadAlice")).fetchOne();
+            em.remove(alice);
+            em.persist(Member.createMember("typeaheadZelda", 60));
+        });
+
+        assertThat(usernameSearch.search("%elda%", 10)).extracting(MemberDto::getUsername).containsExactly("typeaheadZelda");
+        assertThat(usernameSearch.search("%lice%", 10)).extracting(MemberDto::getUsername).containsExactly("typeaheadMalice");
+    }
+
+    @Test
+    @DisplayName("롤백된 변경은 색인에 반영되지 않는다")
+    void rollbackTest() {
+        int before = usernameIndex.size();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            em.persist(Member.createMember("typeaheadRolledBack", 70));
+            em.flush();
+            status.setRollbackOnly();
+        });
+
+        assertEquals(before, usernameIndex.size());
+    }
+
+    @Test
+    @DisplayName("like 패턴 분류")
+    void likePatternTest() {
+        assertEquals(LikePattern.Kind.EXACT, LikePattern.parse("member1").getKind());
+        assertEquals(LikePattern.Kind.PREFIX, LikePattern.parse("member1%").getKind());
+        assertEquals("member1", LikePattern.parse("member1%%").getLiteral());
+        assertEquals(LikePattern.Kind.INFIX, LikePattern.parse("%member1").getKind());
+        assertEquals(LikePattern.Kind.INFIX, LikePattern.parse("mem_er1%").getKind());
+        assertThat(LikePattern.parse("%abc%de_fgh%").getFragments()).containsExactly("abc", "de", "fgh");
+    }
+
+    @Test
+    @DisplayName("like 패턴의 escape 는 querydsl 과 같은 '!', escape 를 푼 값으로 분류")
+    void likePatternEscapeTest() {
+        LikePattern escapedPercent = LikePattern.parse("a!%b%");
+        assertEquals(LikePattern.Kind.PREFIX, escapedPercent.getKind());
+        assertEquals("a%b", escapedPercent.getLiteral());
+        assertThat(escapedPercent.getFragments()).containsExactly("a%b");
+
+        LikePattern escapedLetter = LikePattern.parse("a!b");
+        assertEquals(LikePattern.Kind.EXACT, escapedLetter.getKind());
+        assertEquals("ab", escapedLetter.getLiteral());
+
+        LikePattern backslash = LikePattern.parse("a\\b");
+        assertEquals(LikePattern.Kind.EXACT, backslash.getKind());
+        assertEquals("a\\b", backslash.getLiteral());
+
+        assertThat(LikePattern.parse("%ab!_cd%e\\f%").getFragments()).containsExactly("ab_cd", "e\\f");
+        assertEquals(LikePattern.Kind.INFIX, LikePattern.parse("abc!").getKind());
+    }
+
+    @Test
+    @DisplayName("'!', '\\' 가 들어간 패턴도 db 의 like 와 같은 결과")
+    void escapedSearchTest() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.persist(Member.createMember("typeahead%Percent", 60));
+            em.persist(Member.createMember("typeahead!Bang", 70));
+            em.persist(Member.createMember("typeahead\\Slash", 80));
+        });
+
+        assertThat(usernameSearch.search("%ad!%Perc%", 10)).extracting(MemberDto::getUsername).containsExactly("typeahead%Percent");
+        assertThat(usernameSearch.search("%ad!!Ban%", 10)).extracting(MemberDto::getUsername).containsExactly("typeahead!Bang");
+        assertThat(usernameSearch.search("%ad\\Sla%", 10)).extracting(MemberDto::getUsername).containsExactly("typeahead\\Slash");
+        assertThat(usernameSearch.search("typeahead!!Bang", 10)).extracting(MemberDto::getUsername).containsExactly("typeahead!Bang");
+        assertThat(usernameSearch.search("typeahead!%P%", 10)).extracting(MemberDto::getUsername).containsExactly("typeahead%Percent");
+    }
+}
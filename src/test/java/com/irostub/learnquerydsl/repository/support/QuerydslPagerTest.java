@@ -0,0 +1,132 @@
+package com.irostub.learnquerydsl.repository.support;
+
+import com.irostub.learnquerydsl.entity.Member;
+import com.irostub.learnquerydsl.entity.Team;
+import com.irostub.learnquerydsl.support.statement.StatementCounter;
+import com.irostub.learnquerydsl.support.statement.StatementScope;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+
+import static com.irostub.learnquerydsl.entity.QMember.member;
+import static com.irostub.learnquerydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class QuerydslPagerTest {
+    private static final int MEMBERS = 25;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    QuerydslPager pager;
+
+    JPAQueryFactory query;
+    CountQueryOptimizer optimizer;
+
+    @BeforeEach
+    void init() {
+        query = new JPAQueryFactory(em);
+        optimizer = new CountQueryOptimizer(em, query);
+        Team pagingTeam = Team.createTeam("pagingTeam");
+        em.persist(pagingTeam);
+        for (int i = 0; i < MEMBERS; i++) {
+            em.persist(Member.createMember("paging" + i, i, i % 2 == 0 ? pagingTeam : null));
+        }
+        em.flush();
+        em.clear();
+        pager.evictCountCache();
+    }
+
+    @Test
+    @DisplayName("count 쿼리에서 order by, fetch join, 참조하지 않는 left join 제거")
+    void minimalCountQueryTest() {
+        JPAQuery<Member> content = query
+                .selectFrom(member)
+                .leftJoin(member.team, team).fetchJoin()
+                .where(member.username.startsWith("paging"))
+                .orderBy(member.username.desc());
+
+        String countJpql = optimizer.toCountQuery(content).toString();
+
+        assertThat(countJpql).doesNotContainIgnoringCase("join");
+        assertThat(countJpql).doesNotContainIgnoringCase("order by");
+        assertEquals(MEMBERS, optimizer.count(content));
+    }
+
+    @Test
+    @DisplayName("where 에서 참조하거나 행을 걸러내는 join 은 유지")
+    void keepFilteringJoinTest() {
+        JPAQuery<Member> referenced = query
+                .selectFrom(member)
+                .leftJoin(member.team, team)
+                .where(team.name.eq("pagingTeam"));
+        //Member.team 은 optional 이므로 inner join 은 팀이 없는 회원을 걸러낸다
+        JPAQuery<Member> innerJoin = query
+                .selectFrom(member)
+                .join(member.team, team)
+                .where(member.username.startsWith("paging"));
+
+        assertThat(optimizer.toCountQuery(referenced).toString()).containsIgnoringCase("join");
+        assertThat(optimizer.toCountQuery(innerJoin).toString()).containsIgnoringCase("join");
+        assertEquals(referenced.fetchCount(), optimizer.count(referenced));
+        assertEquals(innerJoin.fetchCount(), optimizer.count(innerJoin));
+    }
+
+    @Test
+    @DisplayName("첫 페이지가 page size 보다 작으면 count 쿼리를 실행하지 않는다")
+    void skipCountOnSmallFirstPageTest() {
+        try (StatementScope scope = StatementCounter.open()) {
+            Page<Member> page = pager.fetchPage(pagingQuery(), PageRequest.of(0, MEMBERS + 10));
+
+            assertEquals(MEMBERS, page.getTotalElements());
+            assertEquals(1, scope.getCount(), scope.getStatements().toString());
+        }
+    }
+
+    @Test
+    @DisplayName("마지막 페이지는 count 쿼리를 실행하지 않는다")
+    void skipCountOnLastPageTest() {
+        try (StatementScope scope = StatementCounter.open()) {
+            Page<Member> page = pager.fetchPage(pagingQuery(), PageRequest.of(2, 10));
+
+            assertThat(page.getContent()).hasSize(5);
+            assertEquals(MEMBERS, page.getTotalElements());
+            assertEquals(1, scope.getCount(), scope.getStatements().toString());
+        }
+    }
+
+    @Test
+    @DisplayName("중간 페이지는 count 쿼리 실행, CACHED 는 두 번째부터 재사용")
+    void cachedCountTest() {
+        try (StatementScope scope = StatementCounter.open()) {
+            Page<Member> first = pager.fetchPage(pagingQuery(), PageRequest.of(1, 10), CountMode.CACHED);
+            assertEquals(MEMBERS, first.getTotalElements());
+            assertEquals(2, scope.getCount(), scope.getStatements().toString());
+
+            Page<Member> second = pager.fetchPage(pagingQuery(), PageRequest.of(1, 10), CountMode.CACHED);
+            assertEquals(MEMBERS, second.getTotalElements());
+            assertEquals(3, scope.getCount(), scope.getStatements().toString());
+        }
+    }
+
+    private JPAQuery<Member> pagingQuery() {
+        return query
+                .selectFrom(member)
+                .leftJoin(member.team, team).fetchJoin()
+                .where(member.username.startsWith("paging"))
+                .orderBy(member.username.asc());
+    }
+}
@@ -0,0 +1,29 @@
+package com.irostub.learnquerydsl.repository.support;
+
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.MariaDB103Dialect;
+import org.hibernate.dialect.Oracle12cDialect;
+import org.hibernate.dialect.PostgreSQL10Dialect;
+import org.hibernate.dialect.SQLServer2012Dialect;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RowCountEstimatorTest {
+
+    @Test
+    @DisplayName("dialect 의 하위 버전도 같은 통계 sql 을 사용")
+    void forDialectTest() {
+        assertEquals(RowCountEstimator.H2, RowCountEstimator.forDialect(new H2Dialect()));
+        assertEquals(RowCountEstimator.POSTGRESQL, RowCountEstimator.forDialect(new PostgreSQL10Dialect()));
+        assertEquals(RowCountEstimator.MYSQL, RowCountEstimator.forDialect(new MariaDB103Dialect()));
+    }
+
+    @Test
+    @DisplayName("통계를 읽을 수 없는 db 는 null 이고 EXACT 로 count 한다")
+    void unsupportedDialectTest() {
+        assertNull(RowCountEstimator.forDialect(new Oracle12cDialect()));
+        assertNull(RowCountEstimator.forDialect(new SQLServer2012Dialect()));
+    }
+}
@@ -0,0 +1,190 @@
+package com.irostub.learnquerydsl.repository.support;
+
+import com.irostub.learnquerydsl.entity.Member;
+import com.irostub.learnquerydsl.entity.QMember;
+import com.irostub.learnquerydsl.entity.Team;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.CaseBuilder;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.jpa.JPQLQuery;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.irostub.learnquerydsl.entity.QMember.member;
+import static com.irostub.learnquerydsl.entity.QTeam.team;
+import static com.querydsl.jpa.JPAExpressions.select;
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class SubQueryOptimizerTest {
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    SubQueryOptimizer optimizer;
+
+    JPAQueryFactory query;
+    QMember subMember = new QMember("subMember");
+
+    @BeforeEach
+    void init() {
+        query = new JPAQueryFactory(em);
+        Team teamA = Team.createTeam("subQueryTeamA");
+        Team teamB = Team.createTeam("subQueryTeamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(Member.createMember("subQuery1", 19, teamA));
+        em.persist(Member.createMember("subQuery2", 20, teamA));
+        em.persist(Member.createMember("subQuery3", 30, teamB));
+        em.persist(Member.createMember("subQuery4", 31, teamB));
+        em.persist(Member.createMember("subQuery5", 40));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    @DisplayName("상관관계 없는 집계 서브쿼리는 상수로 바인딩")
+    void scalarSubQueryTest() {
+        JPAQuery<Member> original = query
+                .selectFrom(member)
+                .where(member.username.startsWith("subQuery"),
+                        member.age.loe(select(subMember.age.avg()).from(subMember).where(subMember.username.startsWith("subQuery"))));
+
+        JPAQuery<Member> optimized = optimizer.optimize(original);
+
+        assertThat(optimized.toString()).doesNotContain("avg(");
+        assertThat(optimized.fetch()).extracting(Member::getUsername)
+                .containsExactlyInAnyOrderElementsOf(usernames(original.fetch()))
+                .containsExactlyInAnyOrder("subQuery1", "subQuery2");
+    }
+
+    @Test
+    @DisplayName("정수가 아닌 평균은 비교 방향에 맞게 올리거나 내려서 바인딩")
+    void fractionalScalarSubQueryTest() {
+        //subQuery1, subQuery2 의 평균 19.5
+        JPQLQuery<Double> average = select(subMember.age.avg()).from(subMember).where(subMember.username.in("subQuery1", "subQuery2"));
+        List<Predicate> conditions = List.of(
+                member.age.goe(average), member.age.gt(average), member.age.loe(average), member.age.lt(average),
+                Expressions.predicate(Ops.EQ, member.age, average),
+                Expressions.predicate(Ops.BETWEEN, member.age, average, select(subMember.age.max()).from(subMember)));
+
+        for (Predicate condition : conditions) {
+            JPAQuery<Member> original = query.selectFrom(member).where(member.username.startsWith("subQuery"), condition);
+            assertThat(usernames(optimizer.optimize(original).fetch()))
+                    .as(condition.toString())
+                    .containsExactlyInAnyOrderElementsOf(usernames(original.fetch()));
+        }
+
+        JPAQuery<Member> goe = optimizer.optimize(query.selectFrom(member).where(member.age.goe(average)));
+        assertThat(goe.toString()).doesNotContain("avg(");
+        JPAQuery<Member> eq = optimizer.optimize(query.selectFrom(member).where(Expressions.predicate(Ops.EQ, member.age, average)));
+        assertThat(eq.toString()).contains("avg(");
+        assertThat(eq.fetch()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("산술 연산의 집계 서브쿼리는 정수로 바꾸지 않는다")
+    void arithmeticScalarSubQueryTest() {
+        //subQuery2, subQuery3 의 평균 25.0 (정수로 바인딩하면 age / 25 가 정수 나눗셈이 된다)
+        JPQLQuery<Double> average = select(subMember.age.avg()).from(subMember).where(subMember.username.in("subQuery2", "subQuery3"));
+
+        JPAQuery<Member> original = query
+                .selectFrom(member)
+                .where(member.username.startsWith("subQuery"), member.age.divide(average).gt(1));
+        JPAQuery<Member> optimized = optimizer.optimize(original);
+
+        assertThat(optimized.toString()).contains("avg(");
+        assertThat(optimized.fetch()).extracting(Member::getUsername)
+                .containsExactlyInAnyOrderElementsOf(usernames(original.fetch()))
+                .containsExactlyInAnyOrder("subQuery3", "subQuery4", "subQuery5");
+
+        JPAQuery<?> projected = query
+                .select(member.age.divide(average))
+                .from(member)
+                .where(member.username.startsWith("subQuery"))
+                .orderBy(member.username.asc());
+        assertThat(optimizer.optimize(projected).fetch()).containsExactlyElementsOf(projected.fetch());
+    }
+
+    @Test
+    @DisplayName("case 문 안의 집계 서브쿼리")
+    void caseSubQueryTest() {
+        JPAQuery<String> original = query
+                .select(new CaseBuilder()
+                        .when(member.age.goe(select(subMember.age.avg()).from(subMember).where(subMember.username.startsWith("subQuery"))))
+                        .then("이상")
+                        .otherwise("미만")
+                        .as("eval"))
+                .from(member)
+                .where(member.username.startsWith("subQuery"))
+                .orderBy(member.username.asc());
+
+        JPAQuery<String> optimized = optimizer.optimize(original);
+
+        assertThat(optimized.toString()).doesNotContain("avg(");
+        assertThat(optimized.fetch()).containsExactlyElementsOf(original.fetch())
+                .containsExactly("미만", "미만", "이상", "이상", "이상");
+    }
+
+    @Test
+    @DisplayName("자기 자신의 id in 서브쿼리는 조건으로 바꾼다")
+    void selfSemiJoinTest() {
+        JPAQuery<Member> original = query
+                .selectFrom(member)
+                .where(member.id.in(select(subMember.id).from(subMember).where(subMember.username.startsWith("subQuery"), subMember.age.gt(20))));
+
+        JPAQuery<Member> optimized = optimizer.optimize(original);
+
+        assertThat(optimized.toString()).doesNotContain("subMember");
+        assertThat(optimized.fetch()).extracting(Member::getUsername)
+                .containsExactlyInAnyOrderElementsOf(usernames(original.fetch()))
+                .containsExactlyInAnyOrder("subQuery3", "subQuery4", "subQuery5");
+    }
+
+    @Test
+    @DisplayName("다른 엔티티 in 서브쿼리는 exists 로 바꾼다")
+    void existsTest() {
+        JPAQuery<Member> original = query
+                .selectFrom(member)
+                .where(member.username.startsWith("subQuery"),
+                        member.team.id.in(select(team.id).from(team).where(team.name.eq("subQueryTeamA"))));
+
+        JPAQuery<Member> optimized = optimizer.optimize(original);
+
+        assertThat(optimized.toString()).contains("exists");
+        assertThat(optimized.fetch()).extracting(Member::getUsername)
+                .containsExactlyInAnyOrderElementsOf(usernames(original.fetch()))
+                .containsExactlyInAnyOrder("subQuery1", "subQuery2");
+    }
+
+    @Test
+    @DisplayName("not 아래의 in 서브쿼리와 상관 서브쿼리는 그대로 둔다")
+    void untouchedTest() {
+        JPAQuery<Member> original = query
+                .selectFrom(member)
+                .where(member.username.startsWith("subQuery"),
+                        member.id.in(select(subMember.id).from(subMember).where(subMember.age.gt(20))).not(),
+                        member.age.goe(select(subMember.age.avg()).from(subMember).where(subMember.team.eq(member.team))));
+
+        JPAQuery<Member> optimized = optimizer.optimize(original);
+
+        assertThat(optimized.toString()).isEqualTo(original.toString());
+        assertThat(usernames(optimized.fetch())).containsExactlyInAnyOrderElementsOf(usernames(original.fetch()));
+    }
+
+    private static List<String> usernames(List<Member> members) {
+        return members.stream().map(Member::getUsername).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,68 @@
+package com.irostub.learnquerydsl.service;
+
+import com.irostub.learnquerydsl.dto.MemberDto;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.irostub.learnquerydsl.entity.QMember.member;
+import static com.irostub.learnquerydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class MemberBulkLoaderTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberBulkLoader bulkLoader;
+
+    JPAQueryFactory query;
+
+    @BeforeEach
+    void setUp() {
+        query = new JPAQueryFactory(em);
+    }
+
+    @Test
+    @DisplayName("팀 별 회원 대량 적재")
+    void loadTest() {
+        Map<String, List<MemberDto>> membersByTeam = new LinkedHashMap<>();
+        membersByTeam.put("bulkTeamA", List.of(new MemberDto("bulk1", 10), new MemberDto("bulk2", 20)));
+        membersByTeam.put("bulkTeamB", List.of(new MemberDto("bulk3", 30)));
+
+        long loaded = bulkLoader.load(membersByTeam);
+
+        assertEquals(3L, loaded);
+        List<String> teamNames = query
+                .select(team.name)
+                .from(member)
+                .join(member.team, team)
+                .where(member.username.startsWith("bulk"))
+                .orderBy(member.username.asc())
+                .fetch();
+        assertThat(teamNames).containsExactly("bulkTeamA", "bulkTeamA", "bulkTeamB");
+    }
+
+    @Test
+    @DisplayName("회원 시퀀스는 설정한 allocation size 만큼 증가")
+    void pooledSequenceTest() {
+        Number increment = (Number) em.createNativeQuery(
+                        "select increment from information_schema.sequences where sequence_name = 'MEMBER_SEQ'")
+                .getSingleResult();
+
+        assertEquals(100L, increment.longValue());
+    }
+}
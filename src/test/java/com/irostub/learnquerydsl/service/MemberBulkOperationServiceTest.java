@@ -0,0 +1,154 @@
+package com.irostub.learnquerydsl.service;
+
+import com.irostub.learnquerydsl.config.BulkOperationProperties;
+import com.irostub.learnquerydsl.dto.MemberDto;
+import com.irostub.learnquerydsl.entity.Member;
+import com.irostub.learnquerydsl.repository.MemberUsernameSearch;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static com.irostub.learnquerydsl.entity.QMember.member;
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+//청크마다 별도 트랜잭션으로 커밋하므로 테스트 데이터를 커밋하고 직접 정리한다
+@SpringBootTest(properties = "app.bulk-operation.chunk-size=100")
+class MemberBulkOperationServiceTest {
+    private static final int MEMBERS = 250;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    MemberBulkOperationService bulkOperationService;
+
+    @Autowired
+    BulkOperationProperties properties;
+
+    @Autowired
+    MemberUsernameSearch usernameSearch;
+
+    JPAQueryFactory query;
+
+    @BeforeEach
+    void init() {
+        query = new JPAQueryFactory(em);
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < MEMBERS; i++) {
+                em.persist(Member.createMember("bulkOperation" + i, i % 2 == 0 ? 10 : 50));
+            }
+        });
+    }
+
+    @AfterEach
+    void cleanUp() {
+        properties.setParallelism(1);
+        transactionTemplate.executeWithoutResult(status -> query
+                .delete(member)
+                .where(member.username.startsWith("bulkOperation"))
+                .execute());
+    }
+
+    @Test
+    @DisplayName("청크 단위 update, 청크마다 진행 상황 보고")
+    void chunkedUpdateTest() {
+        List<BulkProgress> reported = new CopyOnWriteArrayList<>();
+
+        BulkProgress result = bulkOperationService.update(
+                member.username.startsWith("bulkOperation").and(member.age.eq(10)),
+                update -> update.set(member.age, member.age.add(1)),
+                reported::add);
+
+        assertEquals(MEMBERS / 2, result.getRows());
+        assertTrue(result.isDone());
+        assertThat(result.getTotalChunks()).isGreaterThan(1);
+        assertThat(reported).hasSize((int) result.getTotalChunks());
+        assertEquals(MEMBERS / 2, countByAge(11));
+    }
+
+    @Test
+    @DisplayName("병렬 청크 delete")
+    void parallelDeleteTest() {
+        properties.setParallelism(4);
+
+        BulkProgress result = bulkOperationService.delete(member.username.startsWith("bulkOperation").and(member.age.eq(50)));
+
+        assertEquals(MEMBERS / 2, result.getRows());
+        assertEquals(0, countByAge(50));
+        assertEquals(MEMBERS / 2, countByAge(10));
+    }
+
+    @Test
+    @DisplayName("청크가 실패하면 진행 중인 청크가 끝난 뒤의 진행 상황을 보고한다")
+    void parallelFailureTest() {
+        properties.setParallelism(4);
+
+        BulkOperationException exception = assertThrows(BulkOperationException.class, () -> bulkOperationService.update(
+                member.username.startsWith("bulkOperation").and(member.age.eq(10)),
+                update -> update.set(member.age, 11),
+                progress -> {
+                    throw new IllegalStateException("listener failure");
+                }));
+
+        //보고된 행 수 이후로 커밋된 청크가 없어야 한다
+        assertEquals(exception.getCompleted().getRows(), countByAge(11));
+    }
+
+    @Test
+    @DisplayName("청크가 커밋되면 바뀐 이름을 username 색인에 반영한다")
+    void usernameIndexRefreshTest() {
+        bulkOperationService.update(member.username.eq("bulkOperation0"),
+                update -> update.set(member.username, "bulkOperationRenamed0"));
+
+        assertThat(usernameSearch.search("%Renamed%", 10)).extracting(MemberDto::getUsername)
+                .containsExactly("bulkOperationRenamed0");
+    }
+
+    @Test
+    @DisplayName("대상이 없으면 청크를 만들지 않는다")
+    void emptyTest() {
+        BulkProgress result = bulkOperationService.delete(member.username.eq("bulkOperationNone"));
+
+        assertEquals(0, result.getRows());
+        assertEquals(0, result.getTotalChunks());
+    }
+
+    @Test
+    @DisplayName("호출자 영속성 컨텍스트에서 영향받은 회원만 detach")
+    void detachAffectedOnlyTest() {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Member> loaded = query.selectFrom(member).where(member.username.in("bulkOperation0", "bulkOperation1")).fetch();
+            Member affected = loaded.stream().filter(m -> m.getAge() == 10).findFirst().orElseThrow();
+            Member untouched = loaded.stream().filter(m -> m.getAge() == 50).findFirst().orElseThrow();
+
+            bulkOperationService.update(member.username.startsWith("bulkOperation").and(member.age.eq(10)),
+                    update -> update.set(member.age, 20), progress -> {
+                    });
+
+            assertFalse(em.contains(affected));
+            assertTrue(em.contains(untouched));
+            assertEquals(20, em.find(Member.class, affected.getId()).getAge());
+        });
+    }
+
+    private long countByAge(int age) {
+        return transactionTemplate.execute(status -> query
+                .select(member.count())
+                .from(member)
+                .where(member.username.startsWith("bulkOperation"), member.age.eq(age))
+                .fetchOne());
+    }
+}
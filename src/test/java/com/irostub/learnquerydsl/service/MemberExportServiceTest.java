@@ -0,0 +1,62 @@
+package com.irostub.learnquerydsl.service;
+
+import com.irostub.learnquerydsl.entity.Member;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static com.irostub.learnquerydsl.entity.QMember.member;
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class MemberExportServiceTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberExportService exportService;
+
+    @BeforeEach
+    void init() {
+        em.persist(Member.createMember("export1", 19));
+        em.persist(Member.createMember("export2", 20));
+        em.persist(Member.createMember("export,\"3\"", 30));
+    }
+
+    @Test
+    @DisplayName("dto 프로젝션 NDJSON 스트리밍")
+    void exportDtoNdjsonTest() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = exportService.exportMemberDtos(member.username.startsWith("export"), ExportFormat.NDJSON, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3L, count);
+        assertThat(lines).hasSize(3);
+        assertThat(lines).contains("{\"username\":\"export1\",\"age\":19}");
+    }
+
+    @Test
+    @DisplayName("엔티티 CSV 스트리밍")
+    void exportEntityCsvTest() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = exportService.exportMembers(member.username.startsWith("export"), ExportFormat.CSV, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3L, count);
+        assertEquals("id,username,age", lines[0]);
+        assertThat(lines).hasSize(4);
+        assertThat(lines).anyMatch(line -> line.endsWith(",\"export,\"\"3\"\"\",30"));
+    }
+}
@@ -0,0 +1,78 @@
+package com.irostub.learnquerydsl.service;
+
+import com.irostub.learnquerydsl.dto.MemberDto;
+import com.irostub.learnquerydsl.entity.Member;
+import com.irostub.learnquerydsl.entity.MemberSearchCondition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.*;
+
+//검색은 executor 스레드의 별도 트랜잭션에서 실행되므로 테스트 데이터를 커밋하고 직접 정리한다
+@SpringBootTest
+class MemberSearchServiceTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    MemberSearchService searchService;
+
+    @BeforeEach
+    void init() {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < 10; i++) {
+                em.persist(Member.createMember("asyncSearch" + i, 20 + i));
+            }
+        });
+    }
+
+    @AfterEach
+    void cleanUp() {
+        transactionTemplate.executeWithoutResult(status -> em
+                .createQuery("delete from Member m where m.username like 'asyncSearch%'")
+                .executeUpdate());
+    }
+
+    @Test
+    @DisplayName("검색 결과를 dto 로 반환")
+    void searchTest() {
+        List<MemberDto> result = searchService.search(new MemberSearchCondition("asyncSearch%", 25), 100).join();
+
+        assertThat(result).extracting(MemberDto::getAge).containsExactlyInAnyOrder(25, 26, 27, 28, 29);
+    }
+
+    @Test
+    @DisplayName("size 만큼만 반환")
+    void sizeTest() {
+        List<MemberDto> result = searchService.search(new MemberSearchCondition("asyncSearch%", null), 3).join();
+
+        assertThat(result).hasSize(3);
+    }
+
+    @Test
+    @DisplayName("동시 요청")
+    void concurrentTest() {
+        List<CompletableFuture<List<MemberDto>>> futures = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            futures.add(searchService.search(new MemberSearchCondition("asyncSearch" + (i % 10), null), 10));
+        }
+
+        for (int i = 0; i < futures.size(); i++) {
+            assertThat(futures.get(i).join()).extracting(MemberDto::getUsername).containsExactly("asyncSearch" + (i % 10));
+        }
+    }
+}
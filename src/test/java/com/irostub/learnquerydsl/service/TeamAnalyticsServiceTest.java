@@ -0,0 +1,115 @@
+package com.irostub.learnquerydsl.service;
+
+import com.irostub.learnquerydsl.dto.TeamAnalytics;
+import com.irostub.learnquerydsl.entity.Member;
+import com.irostub.learnquerydsl.entity.Team;
+import com.irostub.learnquerydsl.support.analytics.TeamAgeSummary;
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.irostub.learnquerydsl.entity.QMember.member;
+import static com.irostub.learnquerydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+//jdbc 로 읽는 스냅샷도 테스트 트랜잭션의 커넥션을 사용하므로 flush 한 데이터가 보인다
+@SpringBootTest
+@Transactional
+class TeamAnalyticsServiceTest {
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    TeamAnalyticsService analyticsService;
+
+    JPAQueryFactory query;
+    Team analyticsA;
+    Team analyticsB;
+
+    @BeforeEach
+    void init() {
+        query = new JPAQueryFactory(em);
+        analyticsA = Team.createTeam("analyticsA");
+        analyticsB = Team.createTeam("analyticsB");
+        em.persist(analyticsA);
+        em.persist(analyticsB);
+        //analyticsA: 1 ~ 100 살 100명, analyticsB: 20, 25, 40 살
+        for (int age = 100; age >= 1; age--) {
+            em.persist(Member.createMember("analyticsA" + age, age, analyticsA));
+        }
+        em.persist(Member.createMember("analyticsB1", 40, analyticsB));
+        em.persist(Member.createMember("analyticsB2", 20, analyticsB));
+        em.persist(Member.createMember("analyticsB3", 25, analyticsB));
+        em.persist(Member.createMember("noTeam", 99));
+        em.flush();
+        analyticsService.refresh();
+    }
+
+    @Test
+    @DisplayName("메모리 집계 결과는 group by 결과와 같다")
+    void sameAsGroupByTest() {
+        Map<Long, TeamAgeSummary> summaries = summaries(analyticsService.analyze(new double[]{50}, 10));
+
+        List<Tuple> expected = query
+                .select(team.id, member.count(), member.age.sum(), member.age.avg(), member.age.min(), member.age.max())
+                .from(member)
+                .join(member.team, team)
+                .where(team.id.in(analyticsA.getId(), analyticsB.getId()))
+                .groupBy(team.id)
+                .fetch();
+        assertThat(expected).hasSize(2);
+        for (Tuple row : expected) {
+            Object[] values = row.toArray();
+            TeamAgeSummary summary = summaries.get((Long) values[0]);
+            assertEquals(((Number) values[1]).longValue(), summary.getMemberCount());
+            assertEquals(((Number) values[2]).longValue(), summary.getAgeSum());
+            assertEquals(((Number) values[3]).doubleValue(), summary.getAgeAvg(), 1e-9);
+            assertEquals(((Number) values[4]).intValue(), summary.getAgeMin());
+            assertEquals(((Number) values[5]).intValue(), summary.getAgeMax());
+        }
+    }
+
+    @Test
+    @DisplayName("백분위와 히스토그램")
+    void percentileAndHistogramTest() {
+        Map<Long, TeamAgeSummary> summaries = summaries(analyticsService.analyze(new double[]{0, 50, 90, 100}, 10));
+
+        TeamAgeSummary a = summaries.get(analyticsA.getId());
+        assertThat(a.getPercentiles()).containsExactly(1, 50, 90, 100);
+        assertEquals(0, a.getHistogramStart());
+        //0~9 는 1~9 살 9명, 100~109 는 100 살 1명
+        assertThat(a.getHistogram()).containsExactly(9, 10, 10, 10, 10, 10, 10, 10, 10, 10, 1);
+
+        TeamAgeSummary b = summaries.get(analyticsB.getId());
+        assertThat(b.getPercentiles()).containsExactly(20, 25, 40, 40);
+        assertEquals(20, b.getHistogramStart());
+        assertThat(b.getHistogram()).containsExactly(2, 0, 1);
+    }
+
+    @Test
+    @DisplayName("팀이 없는 회원은 제외하고 행 당 4바이트")
+    void columnSizeTest() {
+        TeamAnalytics analytics = analyticsService.analyze(new double[]{50}, 10);
+
+        Long withTeam = query.select(member.count()).from(member).where(member.team.isNotNull()).fetchOne();
+        assertEquals(withTeam.intValue(), analytics.getRows());
+        assertThat(analytics.getColumnBytes()).isLessThan(analytics.getRows() * 4L + analytics.getTeams().size() * 12L + 32);
+        assertEquals("analyticsA", analytics.getTeamNames().get(analyticsA.getId()));
+    }
+
+    private static Map<Long, TeamAgeSummary> summaries(TeamAnalytics analytics) {
+        return analytics.getTeams().stream().collect(Collectors.toMap(TeamAgeSummary::getTeamId, Function.identity()));
+    }
+}
@@ -0,0 +1,100 @@
+package com.irostub.learnquerydsl.service;
+
+import com.irostub.learnquerydsl.dto.MemberDto;
+import com.irostub.learnquerydsl.dto.TeamDashboard;
+import com.irostub.learnquerydsl.dto.TeamStatsDto;
+import com.irostub.learnquerydsl.entity.Member;
+import com.irostub.learnquerydsl.entity.Team;
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.irostub.learnquerydsl.entity.QMember.member;
+import static com.irostub.learnquerydsl.entity.QTeam.team;
+import static com.irostub.learnquerydsl.entity.QTeamStats.teamStats;
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+//대시보드 쿼리는 executor 스레드의 별도 트랜잭션에서 실행되므로 테스트 데이터를 커밋하고 직접 정리한다
+@SpringBootTest
+class TeamDashboardServiceTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    TeamDashboardService dashboardService;
+
+    JPAQueryFactory query;
+
+    @BeforeEach
+    void init() {
+        query = new JPAQueryFactory(em);
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = Team.createTeam("dashboardA");
+            Team teamB = Team.createTeam("dashboardB");
+            em.persist(teamA);
+            em.persist(teamB);
+            em.persist(Member.createMember("dashboard1", 10, teamA));
+            em.persist(Member.createMember("dashboard2", 20, teamA));
+            em.persist(Member.createMember("dashboard3", 30, teamB));
+            em.persist(Member.createMember("dashboard4", 40, teamB));
+        });
+    }
+
+    @AfterEach
+    void cleanUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            query.delete(member).where(member.username.startsWith("dashboard")).execute();
+            query.delete(teamStats).where(teamStats.teamId.in(JPAExpressions.select(team.id).from(team)
+                    .where(team.name.startsWith("dashboard")))).execute();
+            query.delete(team).where(team.name.startsWith("dashboard")).execute();
+        });
+    }
+
+    @Test
+    @DisplayName("team_stats 에서 읽은 팀 별 통계가 팀 마다 실행한 집계와 같다")
+    void teamStatsTest() {
+        TeamDashboard dashboard = dashboardService.dashboard(10).join();
+
+        List<TeamStatsDto> stats = dashboard.getTeams();
+        assertThat(stats).extracting(TeamStatsDto::getTeamName).contains("dashboardA", "dashboardB");
+        for (TeamStatsDto teamStats : stats.stream()
+                .filter(dto -> dto.getTeamName().startsWith("dashboard"))
+                .collect(Collectors.toList())) {
+            Tuple expected = transactionTemplate.execute(status -> query
+                    .select(member.count(), member.age.avg())
+                    .from(member)
+                    .where(member.team.id.eq(teamStats.getTeamId()))
+                    .fetchOne());
+
+            assertEquals(expected.get(member.count()), teamStats.getMemberCount());
+            assertEquals(expected.get(member.age.avg()), teamStats.getAgeAvg());
+        }
+    }
+
+    @Test
+    @DisplayName("전체 회원 수와 나이 순 회원 목록")
+    void totalAndYoungestTest() {
+        TeamDashboard dashboard = dashboardService.dashboard(2).join();
+
+        Long total = transactionTemplate.execute(status -> query.select(member.count()).from(member).fetchOne());
+        assertEquals(total, dashboard.getTotalMembers());
+        assertThat(dashboard.getYoungest()).hasSize(2);
+        assertThat(dashboard.getYoungest()).extracting(MemberDto::getAge).isSorted();
+    }
+}
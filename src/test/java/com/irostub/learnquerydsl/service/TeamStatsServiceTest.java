@@ -0,0 +1,140 @@
+package com.irostub.learnquerydsl.service;
+
+import com.irostub.learnquerydsl.dto.TeamStatsDto;
+import com.irostub.learnquerydsl.entity.Member;
+import com.irostub.learnquerydsl.entity.Team;
+import com.irostub.learnquerydsl.entity.TeamStats;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+
+import static com.irostub.learnquerydsl.entity.QMember.member;
+import static com.irostub.learnquerydsl.entity.QTeam.team;
+import static com.irostub.learnquerydsl.entity.QTeamStats.teamStats;
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+//증감분은 커밋 직전에 반영되므로 테스트 데이터를 커밋하고 직접 정리한다
+//reconcile 이 여러 배치로 나뉘도록 배치 크기를 1 로 둔다
+@SpringBootTest(properties = "app.team-stats.reconcile-batch-size=1")
+class TeamStatsServiceTest {
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    TeamStatsService statsService;
+
+    @Autowired
+    MemberBulkOperationService bulkOperationService;
+
+    JPAQueryFactory query;
+    Long statsA;
+    Long statsB;
+
+    @BeforeEach
+    void init() {
+        query = new JPAQueryFactory(em);
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = Team.createTeam("statsA");
+            Team teamB = Team.createTeam("statsB");
+            em.persist(teamA);
+            em.persist(teamB);
+            em.persist(Member.createMember("statsMember1", 20, teamA));
+            em.persist(Member.createMember("statsMember2", 30, teamA));
+            em.persist(Member.createMember("statsMember3", 40, teamB));
+            statsA = teamA.getId();
+            statsB = teamB.getId();
+        });
+    }
+
+    @AfterEach
+    void cleanUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            query.delete(member).where(member.username.startsWith("statsMember")).execute();
+            query.delete(team).where(team.id.in(statsA, statsB)).execute();
+            query.delete(teamStats).where(teamStats.teamId.in(statsA, statsB)).execute();
+        });
+    }
+
+    @Test
+    @DisplayName("insert 는 커밋 시 팀 별로 반영")
+    void insertTest() {
+        assertStats(statsA, 2, 50);
+        assertStats(statsB, 1, 40);
+
+        assertThat(statsService.findAll())
+                .filteredOn(dto -> dto.getTeamId().equals(statsA))
+                .extracting(TeamStatsDto::getTeamName, TeamStatsDto::getMemberCount, TeamStatsDto::getAgeAvg)
+                .containsExactly(tuple("statsA", 2L, 25.0));
+    }
+
+    @Test
+    @DisplayName("팀 변경과 삭제")
+    void changeTeamAndDeleteTest() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Member member1 = query.selectFrom(member).where(member.username.eq("statsMember1")).fetchOne();
+            member1.changeTeam(em.find(Team.class, statsB));
+            Member member3 = query.selectFrom(member).where(member.username.eq("statsMember3")).fetchOne();
+            em.remove(member3);
+        });
+
+        assertStats(statsA, 1, 30);
+        assertStats(statsB, 1, 20);
+    }
+
+    @Test
+    @DisplayName("롤백된 변경은 반영되지 않는다")
+    void rollbackTest() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.persist(Member.createMember("statsMember4", 50, em.find(Team.class, statsA)));
+            em.flush();
+            status.setRollbackOnly();
+        });
+
+        assertStats(statsA, 2, 50);
+    }
+
+    @Test
+    @DisplayName("벌크 update 도 청크마다 반영")
+    void bulkUpdateTest() {
+        bulkOperationService.update(member.username.startsWith("statsMember"),
+                update -> update.set(member.age, member.age.add(1)), progress -> {
+                });
+
+        assertStats(statsA, 2, 52);
+        assertStats(statsB, 1, 41);
+    }
+
+    @Test
+    @DisplayName("reconcile 은 어긋난 값을 바로잡는다")
+    void reconcileTest() {
+        jdbcTemplate.update("update team_stats set member_count = 999 where team_id = ?", statsA);
+        jdbcTemplate.update("delete from team_stats where team_id = ?", statsB);
+
+        assertThat(statsService.reconcile()).isGreaterThanOrEqualTo(2);
+
+        assertStats(statsA, 2, 50);
+        assertStats(statsB, 1, 40);
+    }
+
+    private void assertStats(Long teamId, long memberCount, long ageSum) {
+        TeamStats stats = transactionTemplate.execute(status -> em.find(TeamStats.class, teamId));
+        assertNotNull(stats);
+        assertEquals(memberCount, stats.getMemberCount());
+        assertEquals(ageSum, stats.getAgeSum());
+    }
+}
@@ -0,0 +1,78 @@
+package com.irostub.learnquerydsl.support.async;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedQueryExecutorTest {
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    BoundedQueryExecutor executor = new BoundedQueryExecutor(1, 2);
+    CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void cleanUp() {
+        release.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("결과를 CompletableFuture 로 반환")
+    void submitTest() throws Exception {
+        assertEquals("result", executor.submit(() -> "result", TIMEOUT).get());
+    }
+
+    @Test
+    @DisplayName("maxPending 을 넘으면 바로 거절")
+    void rejectTest() {
+        executor.submit(this::block, TIMEOUT);
+        executor.submit(this::block, TIMEOUT);
+
+        CompletableFuture<String> rejected = executor.submit(() -> "rejected", TIMEOUT);
+
+        assertTrue(rejected.isCompletedExceptionally());
+        assertThatThrownBy(rejected::get).hasCauseInstanceOf(RejectedExecutionException.class);
+    }
+
+    @Test
+    @DisplayName("timeout 이 지나면 TimeoutException 으로 실패하고 대기 중이던 작업은 실행하지 않는다")
+    void timeoutTest() throws Exception {
+        AtomicBoolean executed = new AtomicBoolean();
+        CompletableFuture<String> running = executor.submit(this::block, Duration.ofMillis(100));
+        CompletableFuture<String> waiting = executor.submit(() -> {
+            executed.set(true);
+            return "waiting";
+        }, Duration.ofMillis(100));
+
+        assertThatThrownBy(running::get).isInstanceOf(ExecutionException.class).hasCauseInstanceOf(TimeoutException.class);
+        assertThatThrownBy(waiting::get).isInstanceOf(ExecutionException.class).hasCauseInstanceOf(TimeoutException.class);
+
+        release.countDown();
+        while (executor.getPending() > 0) {
+            Thread.sleep(10);
+        }
+        assertFalse(executed.get());
+        assertEquals(0, executor.getActive());
+        assertEquals("after", executor.submit(() -> "after", TIMEOUT).get());
+    }
+
+    private String block() {
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "blocked";
+    }
+}
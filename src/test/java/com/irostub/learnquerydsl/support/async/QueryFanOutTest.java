@@ -0,0 +1,79 @@
+package com.irostub.learnquerydsl.support.async;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.irostub.learnquerydsl.entity.QMember.member;
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class QueryFanOutTest {
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    @Autowired
+    QueryFanOut fanOut;
+
+    @Test
+    @DisplayName("결과를 key 타입 그대로 꺼낸다")
+    void typedBundleTest() {
+        QueryBatch batch = new QueryBatch();
+        QueryKey<Long> count = batch.add("count", q -> q.select(member.count()).from(member).fetchOne());
+        QueryKey<String> name = batch.add("name", q -> "constant");
+
+        QueryBundle bundle = fanOut.execute(batch, TIMEOUT).join();
+
+        assertNotNull(bundle.get(count));
+        assertEquals("constant", bundle.get(name));
+        assertThatThrownBy(() -> bundle.get(new QueryBatch().add("other", q -> 1)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("쿼리들은 각자의 읽기 전용 트랜잭션에서 동시에 실행된다")
+    void concurrentTest() {
+        //두 쿼리가 동시에 실행되지 않으면 서로를 기다리다 false 를 반환한다
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        QueryBatch batch = new QueryBatch();
+        QueryKey<Boolean> first = batch.add("first", q -> awaitOther(bothStarted));
+        QueryKey<Boolean> second = batch.add("second", q -> awaitOther(bothStarted));
+
+        QueryBundle bundle = fanOut.execute(batch, TIMEOUT).join();
+
+        assertTrue(bundle.get(first));
+        assertTrue(bundle.get(second));
+    }
+
+    @Test
+    @DisplayName("하나라도 실패하면 그 예외로 실패")
+    void failureTest() {
+        QueryBatch batch = new QueryBatch();
+        batch.add("ok", q -> q.select(member.count()).from(member).fetchOne());
+        batch.add("fail", q -> {
+            throw new IllegalStateException("boom");
+        });
+
+        CompletableFuture<QueryBundle> bundle = fanOut.execute(batch, TIMEOUT);
+
+        assertThatThrownBy(bundle::join).hasCauseInstanceOf(IllegalStateException.class);
+    }
+
+    private static boolean awaitOther(CountDownLatch bothStarted) {
+        assertTrue(TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+        bothStarted.countDown();
+        try {
+            return bothStarted.await(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
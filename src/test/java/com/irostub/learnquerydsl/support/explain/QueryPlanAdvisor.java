@@ -0,0 +1,78 @@
+package com.irostub.learnquerydsl.support.explain;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+//쿼리를 실행하면서 p6spy 로 값이 채워진 sql 을 잡아 h2 EXPLAIN 결과에서 테이블 별 접근 경로를 뽑는다
+//ex) FROM PUBLIC.MEMBER MEMBER0_ /* PUBLIC.IDX_MEMBER_USERNAME_ID: USERNAME = 'member1' */ -> MEMBER:IDX_MEMBER_USERNAME_ID
+//조건 없이 테이블/인덱스 전체를 읽으면 SCAN 으로 표시한다
+//use_sql_comments 의 주석 안 ?1 도 p6spy 가 값으로 치환하므로 주석을 끈 상태에서 사용한다
+public class QueryPlanAdvisor extends SimpleJdbcEventListener {
+    public static final String SCAN = "SCAN";
+
+    //FROM/JOIN 테이블 별칭 뒤의 /* 인덱스[: 조건] */ 주석, h2 는 식별자를 큰따옴표로 감싸서 출력한다
+    //ex) FROM "PUBLIC"."MEMBER" "MEMBER0_" /* PUBLIC.IDX_MEMBER_USERNAME_ID: USERNAME = 'member1' */
+    private static final Pattern ACCESS = Pattern.compile("(?:FROM|JOIN)\\s+(?:\"?\\w+\"?\\.)?\"?(\\w+)\"?\\s+\"?\\w+\"?\\s*/\\*\\s*([^*]+?)\\s*\\*/");
+
+    private final ThreadLocal<List<String>> captured = new ThreadLocal<>();
+    private JdbcTemplate jdbcTemplate;
+
+    public void setJdbcTemplate(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    //shape 를 실행하며 첫 번째로 실행된 sql 의 접근 경로를 반환한다
+    public List<String> explain(Runnable shape) {
+        List<String> statements = new ArrayList<>();
+        captured.set(statements);
+        try {
+            shape.run();
+        } finally {
+            captured.remove();
+        }
+        if (statements.isEmpty()) {
+            throw new IllegalStateException("shape executed no sql");
+        }
+        return accessPaths(plan(statements.get(0)));
+    }
+
+    public String plan(String sql) {
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class));
+    }
+
+    static List<String> accessPaths(String plan) {
+        List<String> paths = new ArrayList<>();
+        Matcher matcher = ACCESS.matcher(plan);
+        while (matcher.find()) {
+            paths.add(matcher.group(1).toUpperCase() + ":" + access(matcher.group(2)));
+        }
+        return Collections.unmodifiableList(paths);
+    }
+
+    //PRIMARY_KEY_8, FK..._INDEX_8 같이 h2 가 붙이는 번호는 스키마 생성 순서에 따라 바뀌므로 제거한다
+    private static String access(String comment) {
+        int colon = comment.indexOf(':');
+        if (colon < 0 || comment.endsWith(".tableScan")) {
+            return SCAN;
+        }
+        String index = comment.substring(0, colon).replace("\"", "").trim();
+        index = index.substring(index.lastIndexOf('.') + 1);
+        return index.replaceAll("^PRIMARY_KEY_\\w+$", "PRIMARY_KEY").replaceAll("_INDEX_\\w+$", "_INDEX");
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        List<String> statements = captured.get();
+        if (statements != null) {
+            statements.add(statementInformation.getSqlWithValues());
+        }
+    }
+}
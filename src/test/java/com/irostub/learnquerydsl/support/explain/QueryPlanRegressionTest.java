@@ -0,0 +1,193 @@
+package com.irostub.learnquerydsl.support.explain;
+
+import com.irostub.learnquerydsl.entity.Member;
+import com.irostub.learnquerydsl.entity.Team;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.Function;
+
+import static com.irostub.learnquerydsl.entity.QMember.member;
+import static com.irostub.learnquerydsl.entity.QTeam.team;
+import static org.junit.jupiter.api.Assertions.*;
+
+//등록된 쿼리 모양마다 h2 EXPLAIN 의 테이블 별 접근 경로를 query-plans.properties 기준과 비교한다
+//- fullScan 으로 등록하지 않은 모양이 인덱스 없이 테이블/인덱스 전체를 읽으면 실패
+//- 기준과 접근 경로가 다르면 실패, 기준의 * 는 SCAN 이 아닌 아무 인덱스, ? 는 아무 접근 경로
+//  join 순서는 h2 optimizer 가 정하므로 테이블 이름 순으로 비교한다
+//새 모양을 추가하거나 의도적으로 인덱스를 바꾼 경우 -Pexplain.update-baseline=true 로 기준 파일을 다시 쓴다
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.use_sql_comments=false")
+@Transactional
+class QueryPlanRegressionTest {
+    private static final String BASELINE = "query-plans.properties";
+    private static final Path BASELINE_SOURCE = Paths.get("src/test/resources", BASELINE);
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    QueryPlanAdvisor advisor;
+
+    JPAQueryFactory query;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @TestConfiguration
+    static class AdvisorConfig {
+        //p6spy-spring-boot-starter 는 JdbcEventListener 빈을 자동으로 등록한다
+        //DataSource 를 주입받으면 p6spy decorator 보다 먼저 DataSource 가 만들어져 감싸지지 않으므로 JdbcTemplate 은 나중에 넣는다
+        @Bean
+        QueryPlanAdvisor queryPlanAdvisor() {
+            return new QueryPlanAdvisor();
+        }
+    }
+
+    @BeforeEach
+    void init() {
+        advisor.setJdbcTemplate(jdbcTemplate);
+        query = new JPAQueryFactory(em);
+        for (int t = 0; t < 4; t++) {
+            Team planTeam = Team.createTeam("planTeam" + t);
+            em.persist(planTeam);
+            for (int m = 0; m < 25; m++) {
+                em.persist(Member.createMember("planMember" + t + "_" + m, m, planTeam));
+            }
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    @DisplayName("쿼리 모양 별 실행 계획이 기준에서 벗어나지 않는다")
+    void queryPlanTest() throws IOException {
+        Properties baseline = loadBaseline();
+        Map<String, String> actual = new LinkedHashMap<>();
+        List<String> problems = new ArrayList<>();
+
+        for (Shape shape : shapes()) {
+            List<String> paths = advisor.explain(() -> shape.query.apply(query).fetch());
+            String plan = String.join(",", paths);
+            actual.put(shape.name, plan);
+
+            if (!shape.fullScan && plan.contains(QueryPlanAdvisor.SCAN)) {
+                problems.add(shape.name + ": full scan " + plan);
+            }
+            String expected = baseline.getProperty(shape.name);
+            if (expected == null) {
+                problems.add(shape.name + ": no baseline, add `" + shape.name + "=" + plan + "` to " + BASELINE);
+            } else if (!matches(expected, paths)) {
+                problems.add(shape.name + ": expected " + expected + " but was " + plan);
+            }
+        }
+
+        if (Boolean.getBoolean("explain.update-baseline")) {
+            writeBaseline(actual);
+            return;
+        }
+        assertTrue(problems.isEmpty(), "query plan regressions:\n" + String.join("\n", problems));
+    }
+
+    //새 쿼리 모양은 여기에 등록한다
+    private static List<Shape> shapes() {
+        return Arrays.asList(
+                new Shape("usernameEq", false, q -> q.selectFrom(member).where(member.username.eq("planMember0_1"))),
+                new Shape("usernameStartsWith", false, q -> q.selectFrom(member).where(member.username.startsWith("planMember1"))),
+                new Shape("usernameLikePrefix", false, q -> q.selectFrom(member).where(member.username.like("planMember2%"))),
+                new Shape("ageRange", false, q -> q.selectFrom(member).where(member.age.between(10, 12))),
+                new Shape("ageGoeOrderById", false, q -> q.selectFrom(member).where(member.age.goe(20)).orderBy(member.age.asc(), member.id.asc())),
+                new Shape("teamNameJoin", false, q -> q.selectFrom(member).join(member.team, team).where(team.name.eq("planTeam1"))),
+                new Shape("teamIdAgeAvg", false, q -> q.select(member.age.avg()).from(member).where(member.team.id.eq(1L))),
+                //조건 없는 전체 조회는 스캔이 맞다
+                new Shape("sortAgeDescNullsLast", true, q -> q.selectFrom(member).orderBy(member.age.desc().nullsLast())),
+                new Shape("groupByTeamName", true, q -> q.select(team.name, member.age.avg()).from(member).join(member.team, team).groupBy(team.name))
+        );
+    }
+
+    private static boolean matches(String expected, List<String> paths) {
+        List<String> tokens = new ArrayList<>();
+        for (String token : expected.split(",")) {
+            tokens.add(token.trim());
+        }
+        List<String> actual = new ArrayList<>(paths);
+        if (tokens.size() != actual.size()) {
+            return false;
+        }
+        tokens.sort(Comparator.comparing(QueryPlanRegressionTest::table));
+        actual.sort(Comparator.comparing(QueryPlanRegressionTest::table));
+        for (int i = 0; i < tokens.size(); i++) {
+            String token = tokens.get(i);
+            String path = actual.get(i);
+            String access = path.substring(path.indexOf(':') + 1);
+            if (!table(token).equals(table(path))) {
+                return false;
+            }
+            if (token.endsWith(":?")) {
+                continue;
+            }
+            if (token.endsWith(":*") ? access.equals(QueryPlanAdvisor.SCAN) : !token.equals(path)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String table(String path) {
+        return path.substring(0, path.indexOf(':'));
+    }
+
+    private Properties loadBaseline() throws IOException {
+        Properties baseline = new Properties();
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream(BASELINE)) {
+            if (in != null) {
+                baseline.load(in);
+            }
+        }
+        return baseline;
+    }
+
+    private static void writeBaseline(Map<String, String> plans) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(BASELINE_SOURCE, StandardCharsets.UTF_8)) {
+            writer.write("#QueryPlanRegressionTest 기준, -Pexplain.update-baseline=true 로 다시 생성\n");
+            for (Map.Entry<String, String> plan : plans.entrySet()) {
+                writer.write(plan.getKey() + "=" + plan.getValue() + "\n");
+            }
+        }
+    }
+
+    private static final class Shape {
+        private final String name;
+        private final boolean fullScan;
+        private final Function<JPAQueryFactory, JPAQuery<?>> query;
+
+        private Shape(String name, boolean fullScan, Function<JPAQueryFactory, JPAQuery<?>> query) {
+            this.name = name;
+            this.fullScan = fullScan;
+            this.query = query;
+        }
+    }
+}
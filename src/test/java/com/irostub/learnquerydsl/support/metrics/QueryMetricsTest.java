@@ -0,0 +1,94 @@
+package com.irostub.learnquerydsl.support.metrics;
+
+import com.irostub.learnquerydsl.entity.Member;
+import com.mysema.commons.lang.CloseableIterator;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+
+import static com.irostub.learnquerydsl.entity.QMember.member;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class QueryMetricsTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory query;
+
+    @Autowired
+    MeterRegistry registry;
+
+    @BeforeEach
+    void init() {
+        em.persist(Member.createMember("metricMember1", 10));
+        em.persist(Member.createMember("metricMember2", 20));
+    }
+
+    @Test
+    @DisplayName("상수만 다른 쿼리는 같은 fingerprint 로 기록")
+    void sameShapeSameFingerprintTest() {
+        String jpql = query.selectFrom(member).where(member.username.eq("metricMember1")).toString();
+        String fingerprint = QueryMetrics.fingerprint(jpql);
+        Timer timer = registry.find("querydsl.query").tag("shape", fingerprint).timer();
+        long before = timer != null ? timer.count() : 0;
+
+        query.selectFrom(member).where(member.username.eq("metricMember1")).fetch();
+        query.selectFrom(member).where(member.username.eq("metricMember2")).fetch();
+
+        Timer recorded = registry.find("querydsl.query").tag("shape", fingerprint).timer();
+        assertNotNull(recorded);
+        assertEquals(before + 2, recorded.count());
+    }
+
+    @Test
+    @DisplayName("반환 행 수와 영속성 컨텍스트 크기 기록")
+    void rowsAndPersistenceContextTest() {
+        String jpql = query.selectFrom(member).where(member.username.startsWith("metricMember")).toString();
+        String fingerprint = QueryMetrics.fingerprint(jpql);
+        //같은 모양을 다른 테스트(export 의 iterate 등)도 기록하므로 이번 호출분만 비교한다
+        DistributionSummary before = registry.find("querydsl.query.rows").tag("shape", fingerprint).summary();
+        double rowsBefore = before != null ? before.totalAmount() : 0;
+
+        query.selectFrom(member).where(member.username.startsWith("metricMember")).fetch();
+
+        assertEquals(rowsBefore + 2.0, registry.find("querydsl.query.rows").tag("shape", fingerprint).summary().totalAmount());
+        assertTrue(registry.find("querydsl.persistence.context.entities").tag("shape", fingerprint).summary().max() >= 2.0);
+    }
+
+    @Test
+    @DisplayName("iterate 는 끝까지 읽었을 때 읽은 행 수로 한 번 기록")
+    void iterateTest() {
+        String jpql = query.selectFrom(member).where(member.username.startsWith("metricMember")).orderBy(member.id.desc()).toString();
+        String fingerprint = QueryMetrics.fingerprint(jpql);
+        DistributionSummary before = registry.find("querydsl.query.rows").tag("shape", fingerprint).summary();
+        long countBefore = before != null ? before.count() : 0;
+        double rowsBefore = before != null ? before.totalAmount() : 0;
+
+        try (CloseableIterator<Member> iterator = query.selectFrom(member)
+                .where(member.username.startsWith("metricMember"))
+                .orderBy(member.id.desc())
+                .iterate()) {
+            while (iterator.hasNext()) {
+                iterator.next();
+            }
+        }
+
+        DistributionSummary rows = registry.find("querydsl.query.rows").tag("shape", fingerprint).summary();
+        assertNotNull(rows);
+        assertEquals(countBefore + 1, rows.count());
+        assertEquals(rowsBefore + 2.0, rows.totalAmount());
+    }
+}
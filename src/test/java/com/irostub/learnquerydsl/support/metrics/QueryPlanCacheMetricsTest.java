@@ -0,0 +1,65 @@
+package com.irostub.learnquerydsl.support.metrics;
+
+import com.irostub.learnquerydsl.entity.Member;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+import static com.irostub.learnquerydsl.entity.QMember.member;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class QueryPlanCacheMetricsTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory query;
+
+    @Autowired
+    MeterRegistry registry;
+
+    @Autowired
+    DataSource dataSource;
+
+    @BeforeEach
+    void init() {
+        em.persist(Member.createMember("planCacheMember", 10));
+    }
+
+    @Test
+    @DisplayName("같은 jpql 을 다시 실행하면 query plan cache hit")
+    void planCacheHitTest() {
+        query.selectFrom(member).where(member.username.eq("planCacheMember")).fetch();
+        FunctionCounter hits = registry.find("hibernate.cache.query.plan").tag("result", "hit").functionCounter();
+        assertNotNull(hits);
+        double before = hits.count();
+
+        query.selectFrom(member).where(member.username.eq("planCacheMember")).fetch();
+
+        assertTrue(hits.count() > before);
+        assertTrue(registry.get("hibernate.query.plan.cache.hit.ratio").gauge().value() > 0);
+    }
+
+    @Test
+    @DisplayName("hikari 풀 설정과 h2 query cache 크기 적용")
+    void poolAndStatementCacheTest() throws SQLException {
+        HikariDataSource hikari = dataSource.unwrap(HikariDataSource.class);
+        assertEquals("querydsl", hikari.getPoolName());
+        assertEquals(10, hikari.getMaximumPoolSize());
+        assertEquals("64", hikari.getDataSourceProperties().getProperty("QUERY_CACHE_SIZE"));
+    }
+}
@@ -0,0 +1,152 @@
+package com.irostub.learnquerydsl.support.routing;
+
+import com.irostub.learnquerydsl.dto.MemberDto;
+import com.irostub.learnquerydsl.entity.Member;
+import com.irostub.learnquerydsl.entity.MemberSearchCondition;
+import com.irostub.learnquerydsl.service.MemberSearchService;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.servlet.http.Cookie;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.irostub.learnquerydsl.entity.QMember.member;
+import static org.assertj.core.api.Assertions.*;
+
+//primary 는 테스트 기본 in-memory db, replica 는 별도의 in-memory db 를 사용한다
+//두 db 사이에 복제가 없으므로 한쪽에만 있는 행으로 어느 쪽에서 읽었는지 확인한다
+@SpringBootTest(properties = {
+        "app.routing.enabled=true",
+        "app.routing.replicas[0].url=" + ReplicaRoutingTest.REPLICA_URL,
+        "app.routing.replicas[0].username=sa",
+        "app.routing.sticky-window=PT1M"})
+class ReplicaRoutingTest {
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory query;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    WriteStickiness stickiness;
+
+    @Autowired
+    MemberSearchService memberSearchService;
+
+    JdbcTemplate replica;
+    TransactionTemplate write;
+    TransactionTemplate read;
+
+    @BeforeAll
+    static void replicaSchema() {
+        Flyway.configure().dataSource(REPLICA_URL, "sa", "").load().migrate();
+    }
+
+    @BeforeEach
+    void init() {
+        replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+        replica.update("insert into member (id, age, username) values (-1, 20, 'replicaMember')");
+        write = new TransactionTemplate(transactionManager);
+        read = new TransactionTemplate(transactionManager);
+        read.setReadOnly(true);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        replica.update("delete from member where id = -1");
+        write.executeWithoutResult(status -> query.delete(member).where(member.username.eq("primaryMember")).execute());
+        stickiness.unbind();
+    }
+
+    @Test
+    @DisplayName("read-only 트랜잭션의 조회는 replica 로 간다")
+    void readOnlyGoesToReplicaTest() {
+        List<String> usernames = read.execute(status -> query
+                .select(member.username)
+                .from(member)
+                .where(member.username.in("replicaMember", "primaryMember"))
+                .fetch());
+
+        assertThat(usernames).containsExactly("replicaMember");
+    }
+
+    @Test
+    @DisplayName("쓰기 트랜잭션은 primary 로 가고, 커밋 후 조회는 sticky-window 동안 primary 에서 읽는다")
+    void readYourWritesTest() {
+        write.executeWithoutResult(status -> em.persist(Member.createMember("primaryMember", 30)));
+
+        List<String> sticky = read.execute(status -> query
+                .select(member.username)
+                .from(member)
+                .where(member.username.in("replicaMember", "primaryMember"))
+                .fetch());
+        assertThat(sticky).containsExactly("primaryMember");
+
+        stickiness.unbind();
+        List<String> replicated = read.execute(status -> query
+                .select(member.username)
+                .from(member)
+                .where(member.username.in("replicaMember", "primaryMember"))
+                .fetch());
+        assertThat(replicated).containsExactly("replicaMember");
+    }
+
+    @Test
+    @DisplayName("롤백된 쓰기 트랜잭션은 primary 유지 시한을 늘리지 않는다")
+    void rollbackIsNotStickyTest() {
+        write.executeWithoutResult(status -> {
+            em.persist(Member.createMember("primaryMember", 30));
+            em.flush();
+            status.setRollbackOnly();
+        });
+
+        assertThat(stickiness.isSticky()).isFalse();
+    }
+
+    @Test
+    @DisplayName("쓰기 후 executor 에서 실행되는 검색도 sticky-window 동안 primary 에서 읽는다")
+    void readYourWritesOnQueryExecutorTest() {
+        write.executeWithoutResult(status -> em.persist(Member.createMember("primaryMember", 30)));
+
+        List<String> usernames = memberSearchService.search(new MemberSearchCondition(null, 20), 1000).join()
+                .stream()
+                .map(MemberDto::getUsername)
+                .collect(Collectors.toList());
+
+        assertThat(usernames).contains("primaryMember").doesNotContain("replicaMember");
+    }
+
+    @Test
+    @DisplayName("쿠키의 지난 시한은 버리고, 먼 미래의 시한은 지금부터 window 까지로 줄인다")
+    void cookieIsClampedTest() {
+        long now = System.currentTimeMillis();
+
+        MockHttpServletRequest past = new MockHttpServletRequest();
+        past.setCookies(new Cookie(RoutingStickinessFilter.COOKIE, Long.toString(now - 1000)));
+        assertThat(RoutingStickinessFilter.primaryUntil(past, stickiness)).isNull();
+
+        MockHttpServletRequest forever = new MockHttpServletRequest();
+        forever.setCookies(new Cookie(RoutingStickinessFilter.COOKIE, Long.toString(Long.MAX_VALUE)));
+        assertThat(RoutingStickinessFilter.primaryUntil(forever, stickiness))
+                .isLessThanOrEqualTo(System.currentTimeMillis() + stickiness.window().toMillis());
+    }
+}
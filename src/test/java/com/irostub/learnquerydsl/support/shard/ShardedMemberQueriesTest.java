@@ -0,0 +1,179 @@
+package com.irostub.learnquerydsl.support.shard;
+
+import com.irostub.learnquerydsl.dto.MemberDto;
+import com.irostub.learnquerydsl.dto.MemberDtoProjection;
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQuery;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static com.irostub.learnquerydsl.entity.QMember.member;
+import static com.irostub.learnquerydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+//테스트 in-memory db 안에 shard 스키마 3개를 만든다
+@SpringBootTest(properties = {"app.sharding.enabled=true", "app.sharding.shards=3"})
+class ShardedMemberQueriesTest {
+    private static final int TEAMS = 6;
+    private static final int MEMBERS_PER_TEAM = 5;
+
+    @Autowired
+    MemberShards shards;
+
+    @Autowired
+    ShardedMemberStore store;
+
+    @Autowired
+    ShardedMemberQueries queries;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    Map<String, Long> teamIds;
+    List<String> usernames;
+
+    @BeforeEach
+    void init() {
+        teamIds = new LinkedHashMap<>();
+        usernames = new ArrayList<>();
+        for (int t = 0; t < TEAMS; t++) {
+            String teamName = "shardTeam" + t;
+            Long teamId = store.createTeam(teamName);
+            teamIds.put(teamName, teamId);
+            List<MemberDto> members = new ArrayList<>();
+            for (int m = 0; m < MEMBERS_PER_TEAM; m++) {
+                String username = "shardMember" + t + "_" + m;
+                members.add(new MemberDto(username, t * 10 + m));
+                usernames.add(username);
+            }
+            store.addMembers(teamId, members);
+        }
+    }
+
+    @AfterEach
+    void cleanUp() {
+        for (String schema : shards.schemas()) {
+            jdbcTemplate.update("delete from " + schema + ".member");
+            jdbcTemplate.update("delete from " + schema + ".team");
+        }
+    }
+
+    @Test
+    @DisplayName("팀의 회원은 팀과 같은 shard 하나에만 저장")
+    void teamMembersInOneShardTest() {
+        for (Long teamId : teamIds.values()) {
+            for (int shard = 0; shard < shards.count(); shard++) {
+                Long count = jdbcTemplate.queryForObject(
+                        "select count(*) from " + shards.schema(shard) + ".member where team_id = ?", Long.class, teamId);
+                assertEquals(shard == shards.shardOf(teamId) ? MEMBERS_PER_TEAM : 0, count);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("member.team 을 고정한 조건은 그 팀의 shard 만 조회")
+    void pruneByTeamTest() {
+        Long teamId = teamIds.get("shardTeam2");
+        JPAQuery<String> query = queries.query()
+                .select(member.username)
+                .from(member)
+                .where(member.team.id.eq(teamId), member.age.goe(0));
+
+        assertThat(queries.shardsOf(query)).containsExactly(shards.shardOf(teamId));
+        assertThat(queries.fetch(query)).hasSize(MEMBERS_PER_TEAM).allMatch(username -> username.startsWith("shardMember2_"));
+    }
+
+    @Test
+    @DisplayName("join 별칭의 team.id 와 or 조건은 해당 팀 shard 의 합집합")
+    void pruneByJoinedTeamTest() {
+        Long team0 = teamIds.get("shardTeam0");
+        Long team1 = teamIds.get("shardTeam1");
+        JPAQuery<MemberDto> query = queries.query()
+                .select(new MemberDtoProjection(member.username, member.age))
+                .from(member)
+                .join(member.team, team)
+                .where(team.id.eq(team0).or(team.id.eq(team1)));
+
+        assertThat(queries.shardsOf(query)).containsOnly(shards.shardOf(team0), shards.shardOf(team1));
+        assertThat(queries.fetch(query)).hasSize(MEMBERS_PER_TEAM * 2);
+    }
+
+    @Test
+    @DisplayName("팀을 고정하지 않으면 모든 shard 를 동시에 조회하고 정렬/페이징 결과를 병합")
+    void fanOutOrderedPageTest() {
+        JPAQuery<String> query = queries.query()
+                .select(member.username)
+                .from(member)
+                .orderBy(member.username.desc())
+                .offset(4)
+                .limit(7);
+
+        List<String> expected = usernames.stream()
+                .sorted(Comparator.reverseOrder())
+                .skip(4)
+                .limit(7)
+                .collect(Collectors.toList());
+
+        assertThat(queries.shardsOf(query)).hasSize(shards.count());
+        assertThat(queries.fetch(query, Comparator.<String>reverseOrder())).containsExactlyElementsOf(expected);
+        assertEquals(TEAMS * MEMBERS_PER_TEAM, queries.fetchCount(queries.query().select(member).from(member)));
+    }
+
+    @Test
+    @DisplayName("팀 id 로 묶은 group by 집계는 shard 결과를 이어 붙인다")
+    void groupByTeamTest() {
+        List<Tuple> result = queries.fetch(queries.query()
+                .select(team.name, member.age.avg())
+                .from(member)
+                .join(member.team, team)
+                .groupBy(team.id, team.name));
+
+        assertThat(result).hasSize(TEAMS);
+        assertThat(result).extracting(tuple -> tuple.get(team.name)).containsExactlyInAnyOrderElementsOf(teamIds.keySet());
+        Tuple team3 = result.stream().filter(tuple -> "shardTeam3".equals(tuple.get(team.name))).findFirst().orElseThrow();
+        assertEquals(32.0, team3.get(member.age.avg()));
+    }
+
+    @Test
+    @DisplayName("팀을 고정하지 않은 집계와 팀 id 없는 group by 는 shard 별 부분값이 되므로 거절")
+    void aggregateAcrossShardsTest() {
+        assertThrows(IllegalArgumentException.class, () -> queries.fetch(queries.query()
+                .select(member.age.avg())
+                .from(member)));
+        assertThrows(IllegalArgumentException.class, () -> queries.fetch(queries.query()
+                .select(team.name, member.count())
+                .from(member)
+                .join(member.team, team)
+                .groupBy(team.name)));
+
+        Long teamId = teamIds.get("shardTeam3");
+        assertEquals(List.of(32.0), queries.fetch(queries.query()
+                .select(member.age.avg())
+                .from(member)
+                .where(member.team.id.eq(teamId))));
+    }
+
+    @Test
+    @DisplayName("여러 shard 에 걸친 offset/limit 은 정렬 기준이 필요")
+    void pagingWithoutOrderTest() {
+        JPAQuery<String> query = queries.query()
+                .select(member.username)
+                .from(member)
+                .limit(3);
+
+        assertThrows(IllegalArgumentException.class, () -> queries.fetch(query));
+    }
+}
@@ -0,0 +1,55 @@
+package com.irostub.learnquerydsl.support.startup;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+//fast 프로필만 켜서 실행한다, 마이그레이션과 엔티티 매핑이 어긋나면 ddl-auto: validate 로 컨텍스트가 뜨지 않는다
+//새 in-memory db 에서 시작하므로 baseline 없이 V1 부터 적용한다
+@ActiveProfiles("fast")
+@SpringBootTest(properties = {
+        "spring.flyway.baseline-on-migrate=false",
+        "spring.jpa.hibernate.ddl-auto=validate"
+})
+class StartupTimingReportTest {
+    @Autowired
+    Environment environment;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    @Autowired
+    StartupTimingReport startupTimingReport;
+
+    @Test
+    @DisplayName("fast 프로필은 flyway 마이그레이션으로 스키마를 만든다")
+    void flywayMigrationTest() {
+        assertThat(environment.getActiveProfiles()).contains("fast");
+
+        String version = jdbcTemplate.queryForObject(
+                "select max(\"version\") from \"flyway_schema_history\" where \"success\" = true", String.class);
+        assertNotNull(version);
+    }
+
+    @Test
+    @DisplayName("jpa bootstrap 시간 기록")
+    void jpaBootstrapTest() {
+        //deferred 모드에서는 처음 사용할 때 백그라운드 bootstrap 완료를 기다린다
+        emf.getMetamodel();
+
+        assertNotNull(startupTimingReport.getJpaBootstrap());
+        assertFalse(startupTimingReport.getJpaBootstrap().isNegative());
+    }
+}
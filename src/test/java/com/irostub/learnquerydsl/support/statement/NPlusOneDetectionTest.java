@@ -0,0 +1,87 @@
+package com.irostub.learnquerydsl.support.statement;
+
+import com.irostub.learnquerydsl.entity.Member;
+import com.irostub.learnquerydsl.entity.Team;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static com.irostub.learnquerydsl.entity.QMember.member;
+import static com.irostub.learnquerydsl.entity.QTeam.team;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class NPlusOneDetectionTest {
+    private static final int TEAMS = 10;
+
+    @Autowired
+    EntityManager em;
+
+    JPAQueryFactory query;
+
+    @BeforeEach
+    void init() {
+        query = new JPAQueryFactory(em);
+        for (int t = 0; t < TEAMS; t++) {
+            Team newTeam = Team.createTeam("batchTeam" + t);
+            em.persist(newTeam);
+            for (int m = 0; m < 2; m++) {
+                Member newMember = Member.createMember("batchMember" + t + "_" + m, 20);
+                newMember.changeTeam(newTeam);
+                em.persist(newMember);
+            }
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    @DisplayName("Member.team 지연 로딩은 batch size 단위 IN 절로 묶인다")
+    void memberTeamBatchFetchTest() {
+        try (StatementScope scope = StatementCounter.open()) {
+            List<Member> members = query
+                    .selectFrom(member)
+                    .where(member.username.startsWith("batchMember"))
+                    .fetch();
+            members.forEach(m -> m.getTeam().getName());
+
+            //회원 조회 1 + 팀 batch 조회 1
+            assertTrue(scope.getCount() <= 2, scope.getStatements().toString());
+            scope.assertNoNPlusOne(3);
+        }
+    }
+
+    @Test
+    @DisplayName("Team.members 지연 로딩은 batch size 단위 IN 절로 묶인다")
+    void teamMembersBatchFetchTest() {
+        try (StatementScope scope = StatementCounter.open()) {
+            List<Team> teams = query
+                    .selectFrom(team)
+                    .where(team.name.startsWith("batchTeam"))
+                    .fetch();
+            teams.forEach(t -> t.getMembers().size());
+
+            assertTrue(scope.getCount() <= 2, scope.getStatements().toString());
+            scope.assertNoNPlusOne(3);
+        }
+    }
+
+    @Test
+    @DisplayName("같은 select 반복은 N+1 로 판단")
+    void detectRepeatedSelectTest() {
+        try (StatementScope scope = StatementCounter.open()) {
+            for (int i = 0; i < 5; i++) {
+                query.selectFrom(member).where(member.username.eq("batchMember0_" + (i % 2))).fetch();
+            }
+            assertThrows(NPlusOneDetectedException.class, () -> scope.assertNoNPlusOne(5));
+        }
+    }
+}
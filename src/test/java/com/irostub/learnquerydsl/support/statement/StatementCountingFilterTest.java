@@ -0,0 +1,85 @@
+package com.irostub.learnquerydsl.support.statement;
+
+import com.irostub.learnquerydsl.config.NPlusOneProperties;
+import com.irostub.learnquerydsl.support.async.BoundedQueryExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatementCountingFilterTest {
+    private static final String SELECT = "select m.id from member m where m.team_id=?";
+
+    BoundedQueryExecutor executor = new BoundedQueryExecutor(2, 2, StatementCounter::propagate);
+
+    @AfterEach
+    void cleanUp() {
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("FAIL 모드는 응답을 커밋하기 전에 판단해 본문을 버리고 실패시킨다")
+    void failBeforeCommitTest() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertThrows(NPlusOneDetectedException.class,
+                () -> filter(NPlusOneProperties.Mode.FAIL).doFilter(new MockHttpServletRequest(), response, chain(5)));
+        assertFalse(response.isCommitted());
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("FAIL 모드에서 N+1 이 없으면 버퍼링한 본문을 그대로 보낸다")
+    void failModePassesBodyTest() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter(NPlusOneProperties.Mode.FAIL).doFilter(new MockHttpServletRequest(), response, chain(1));
+
+        assertEquals("body", response.getContentAsString());
+    }
+
+    @Test
+    @DisplayName("executor 작업 스레드에서 실행된 sql 도 요청 scope 에 기록된다")
+    void executorTaskRecordsToRequestScopeTest() {
+        try (StatementScope scope = StatementCounter.open()) {
+            executor.submit(() -> {
+                StatementCounter.record(SELECT);
+                return null;
+            }, Duration.ofSeconds(5)).join();
+
+            assertEquals(1, scope.getCount());
+        }
+    }
+
+    private StatementCountingFilter filter(NPlusOneProperties.Mode mode) {
+        NPlusOneProperties properties = new NPlusOneProperties();
+        properties.setMode(mode);
+        properties.setThreshold(5);
+        return new StatementCountingFilter(properties);
+    }
+
+    //본문을 쓰고 flush 한 뒤 같은 select 를 반복한다
+    private static MockFilterChain chain(int selects) {
+        return new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                response.getWriter().write("body");
+                response.flushBuffer();
+                for (int i = 0; i < selects; i++) {
+                    StatementCounter.record(SELECT);
+                }
+            }
+        });
+    }
+}